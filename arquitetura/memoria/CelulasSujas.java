@@ -0,0 +1,46 @@
+package arquitetura.memoria;
+
+import model.VeiculoMemoria;
+
+import java.util.Arrays;
+
+// lista das celulas ocupadas de uma estrada, pra limpar so elas em vez de fazer Arrays.fill na estrada inteira
+public class CelulasSujas {
+    private int[] indices;
+    private int tamanho;
+
+    // construtor
+    public CelulasSujas(int capacidade) {
+        this.indices = new int[Math.max(16, capacidade)];
+    }
+
+    // anota uma celula ocupada
+    public void adicionar(int indice) {
+        if (tamanho == indices.length) indices = Arrays.copyOf(indices, tamanho * 2);
+        indices[tamanho++] = indice;
+    }
+
+    public int getTamanho() {
+        return tamanho;
+    }
+
+    // esvazia as celulas anotadas e reinicia a lista
+    public void limpar(VeiculoMemoria[] estrada) {
+        for (int k = 0; k < tamanho; k++) estrada[indices[k]] = null;
+        tamanho = 0;
+    }
+
+    public void limpar(byte[] estrada) {
+        for (int k = 0; k < tamanho; k++) estrada[indices[k]] = SequencialMemoriaByte.VAZIO;
+        tamanho = 0;
+    }
+
+    // anota todas as celulas ocupadas de uma estrada (so na inicializacao)
+    public static CelulasSujas de(VeiculoMemoria[] estrada) {
+        CelulasSujas sujas = new CelulasSujas(0);
+        for (int i = 0; i < estrada.length; i++) {
+            if (estrada[i] != null) sujas.adicionar(i);
+        }
+        return sujas;
+    }
+}
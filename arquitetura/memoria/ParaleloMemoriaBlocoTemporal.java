@@ -0,0 +1,202 @@
+package arquitetura.memoria;
+
+import core.IGravador;
+import core.IObservador;
+import core.ISimulacaoGravavel;
+import core.ISimulacaoObservavel;
+import core.Observaveis;
+import core.Parametros;
+import core.PoolThreads;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+
+// bloqueio temporal: cada tarefa copia o proprio ladrilho da estrada com um halo de k * V_MAX celulas de cada lado
+// e anda k passos seguidos so dentro dessa janela, que cabe na cache L2, em vez de varrer a estrada inteira a cada passo
+// cada passo estraga V_MAX celulas de cada ponta da janela (o trapezio vai afinando), entao depois de k passos
+// o ladrilho no meio sai exato e as threads so se sincronizam a cada k passos
+// cada thread pega os ladrilhos i, i + threads, ... e reaproveita o mesmo par de janelas em todos os ladrilhos e blocos
+public class ParaleloMemoriaBlocoTemporal implements ISimulacaoObservavel, ISimulacaoGravavel {
+    // celulas de um ladrilho, as duas janelas de bytes ficam com pouco mais de 128 KB
+    static final int LADRILHO = 1 << 16;
+
+    private byte[] estradaAtual;
+    private byte[] proximaEstrada;
+    private ExecutorService executor;
+    private final PoolThreads<ExecutorService> pool = PoolThreads.fixo();
+    private Parametros parametros;
+
+    // tamanho e numero de ladrilhos, passos por bloco e o par de janelas de cada thread (ladrilho + 2 * k * V_MAX)
+    private int ladrilho;
+    private int numLadrilhos;
+    private int passosPorBloco;
+    private byte[][][] janelas;
+
+    // observaveis de cada passo do bloco, cada thread soma as dos seus ladrilhos e o laco junta depois do invokeAll
+    private IObservador observador;
+    private Observaveis.Parcial[][] parciais;
+
+    // estrada de cada passo do bloco pro gravador, cada thread copia o miolo exato dos seus ladrilhos
+    private IGravador gravador;
+
+    // nome pra tabela
+    @Override
+    public String getNome() {
+        return "Paralelo Bloco Temporal (Memoria byte[])";
+    }
+
+    // monta a estrada
+    @Override
+    public void inicializar(Parametros parametros) {
+        this.parametros = parametros;
+        this.estradaAtual = new byte[parametros.tamEstrada];
+        this.proximaEstrada = new byte[parametros.tamEstrada];
+        SequencialMemoriaByte.inicializarEstrada(parametros, this.estradaAtual);
+        this.executor = pool.obter(parametros.numThreads);
+
+        // estrada curta ainda precisa de um ladrilho por thread
+        this.ladrilho = Math.max(1, Math.min(LADRILHO, (int) Math.ceil((double) parametros.tamEstrada / parametros.numThreads)));
+        this.numLadrilhos = (int) Math.ceil((double) parametros.tamEstrada / ladrilho);
+        this.passosPorBloco = Math.max(1, parametros.passosPorBloco);
+
+        int numWorkers = Math.min(parametros.numThreads, numLadrilhos);
+        int tamJanela = ladrilho + 2 * passosPorBloco * parametros.vMax;
+        this.janelas = new byte[numWorkers][2][tamJanela];
+        this.parciais = new Observaveis.Parcial[numWorkers][passosPorBloco];
+        for (Observaveis.Parcial[] doWorker : parciais) {
+            for (int s = 0; s < passosPorBloco; s++) doWorker[s] = new Observaveis.Parcial();
+        }
+    }
+
+    // roda a simulacao
+    @Override
+    public void executar() throws InterruptedException {
+        final Parametros p = parametros;
+        final int ladrilho = this.ladrilho;
+        final int numLadrilhos = this.numLadrilhos;
+        final int k = passosPorBloco;
+        final int numWorkers = janelas.length;
+        final IObservador obs = observador;
+        final IGravador grav = gravador;
+        Observaveis.Parcial total = new Observaveis.Parcial();
+        final byte[][] linhas = (grav != null) ? new byte[k][p.tamEstrada] : null;
+
+        for (int step = 0; step < p.steps; step += k) {
+            List<Callable<Void>> tarefas = new ArrayList<>();
+
+            // o ultimo bloco pode ter menos passos
+            final int stepAtual = step;
+            final int passos = Math.min(k, p.steps - step);
+
+            // arrays da estrada
+            final byte[] leitura = estradaAtual;
+            final byte[] escrita = proximaEstrada;
+
+            // uma tarefa por thread, cada uma escreve os seus ladrilhos inteiros na proxima estrada
+            for (int w = 0; w < numWorkers; w++) {
+                final int primeiro = w;
+                final byte[][] par = janelas[w];
+                final Observaveis.Parcial[] somas = (obs != null) ? parciais[w] : null;
+                if (somas != null) {
+                    for (Observaveis.Parcial parcial : somas) parcial.zerar();
+                }
+
+                tarefas.add(() -> {
+                    for (int i = primeiro; i < numLadrilhos; i += numWorkers) {
+                        int inicio = i * ladrilho;
+                        int fim = Math.min(inicio + ladrilho, p.tamEstrada);
+                        avancar(leitura, escrita, inicio, fim, p, stepAtual, passos, par, somas, linhas);
+                    }
+                    return null;
+                });
+            }
+
+            // executa todas as threads
+            executor.invokeAll(tarefas);
+
+            // cada passo do bloco ja terminou em todos os ladrilhos
+            if (obs != null) {
+                for (int s = 0; s < passos; s++) {
+                    total.zerar();
+                    for (Observaveis.Parcial[] doWorker : parciais) total.somar(doWorker[s]);
+                    obs.observar(step + s, total.fechar(p.tamEstrada));
+                }
+            }
+            if (grav != null) {
+                for (int s = 0; s < passos; s++) grav.gravar(step + s, linhas[s]);
+            }
+
+            // troca as estradas, nao precisa limpar porque os ladrilhos cobrem a proxima estrada inteira
+            byte[] temp = estradaAtual;
+            estradaAtual = proximaEstrada;
+            proximaEstrada = temp;
+
+            // com blocos de k passos so da pra mostrar a estrada a cada k passos
+            if (p.modoVisual) {
+                SequencialMemoriaByte.imprimirEstrada(estradaAtual, step);
+                Thread.sleep(p.delayVisualMs);
+            }
+        }
+    }
+
+    // anda alguns passos com o ladrilho [inicio, fim) e escreve ele na proxima estrada
+    // usa o comeco do par de janelas da thread, que cabe o maior ladrilho com o maior halo
+    // a janela pode ser maior que a estrada, ai ela repete o anel e continua exata
+    // com somas, os carros que saem do ladrilho em cada passo s vao pra somas[s]: o ladrilho fica no miolo exato da janela
+    // com linhas, o ladrilho depois de cada passo s vai pra linhas[s] pelo mesmo motivo
+    static void avancar(byte[] atual, byte[] proxima, int inicio, int fim, Parametros parametros, int primeiroStep,
+                        int passos, byte[][] par, Observaveis.Parcial[] somas, byte[][] linhas) {
+        int tamEstrada = atual.length;
+        int halo = passos * parametros.vMax;
+        int origem = Math.floorMod(inicio - halo, tamEstrada);
+
+        byte[] janela = par[0];
+        byte[] outra = par[1];
+        int tamJanela = halo + (fim - inicio) + halo;
+        copiarDoAnel(atual, origem, janela, tamJanela);
+
+        for (int s = 0; s < passos; s++) {
+            SequencialMemoriaByte.passoJanela(janela, outra, tamJanela, origem, parametros, primeiroStep + s,
+                    (somas != null) ? somas[s] : null, halo, halo + (fim - inicio));
+            byte[] temp = janela;
+            janela = outra;
+            outra = temp;
+            if (linhas != null) System.arraycopy(janela, halo, linhas[s], inicio, fim - inicio);
+        }
+        System.arraycopy(janela, halo, proxima, inicio, fim - inicio);
+    }
+
+    // copia quantas celulas seguidas do anel a partir de origem, dando quantas voltas forem precisas
+    static void copiarDoAnel(byte[] estrada, int origem, byte[] destino, int quantas) {
+        int copiadas = 0;
+        int de = origem;
+        while (copiadas < quantas) {
+            int n = Math.min(quantas - copiadas, estrada.length - de);
+            System.arraycopy(estrada, de, destino, copiadas, n);
+            copiadas += n;
+            de = 0;
+        }
+    }
+
+    @Override
+    public void setObservador(IObservador observador) {
+        this.observador = observador;
+    }
+
+    @Override
+    public void setGravador(IGravador gravador) {
+        this.gravador = gravador;
+    }
+
+    // fecha o pool que fica vivo entre as execucoes
+    @Override
+    public void encerrar() {
+        pool.encerrar();
+    }
+
+    @Override
+    public byte[] getEstrada() {
+        return estradaAtual.clone();
+    }
+}
@@ -0,0 +1,167 @@
+package arquitetura.memoria;
+
+import core.IGravador;
+import core.IObservador;
+import core.ISimulacaoGravavel;
+import core.ISimulacaoObservavel;
+import core.Observaveis;
+import core.Parametros;
+import core.PoolThreads;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class ParaleloMemoriaByteCyclicBarrier implements ISimulacaoObservavel, ISimulacaoGravavel {
+
+    // arrays volateis da estrada
+    private volatile byte[] leitura;
+    private volatile byte[] escrita;
+
+    private ExecutorService executor;
+
+    private final PoolThreads<ExecutorService> pool = PoolThreads.fixo();
+    private Parametros parametros;
+    private IObservador observador;
+    private IGravador gravador;
+
+    // nome pra tabela
+    @Override
+    public String getNome() {
+        return "Paralelo CyclicBarrier (Memoria byte[])";
+    }
+
+    // monta a estrada
+    @Override
+    public void inicializar(Parametros parametros) {
+        this.parametros = parametros;
+        byte[] bufferA = new byte[parametros.tamEstrada];
+        byte[] bufferB = new byte[parametros.tamEstrada];
+        SequencialMemoriaByte.inicializarEstrada(parametros, bufferA);
+        Arrays.fill(bufferB, SequencialMemoriaByte.VAZIO);
+
+        this.leitura = bufferA;
+        this.escrita = bufferB;
+
+        this.executor = pool.obter(parametros.numThreads);
+    }
+
+    // roda a simulacao
+    @Override
+    public void executar() throws InterruptedException {
+        AtomicInteger contador = new AtomicInteger(0);
+        final Parametros p = parametros;
+        final IObservador obs = observador;
+        final IGravador grav = gravador;
+
+        // divide a estrada, so conta os segmentos que realmente tem celulas
+        int segmento = (int) Math.ceil((double) p.tamEstrada / p.numThreads);
+        int numWorkers = (int) Math.ceil((double) p.tamEstrada / segmento);
+
+        // celulas ocupadas que cada thread leu no passo
+        CelulasSujas[] sujas = new CelulasSujas[numWorkers];
+        for (int i = 0; i < numWorkers; i++) sujas[i] = new CelulasSujas(p.numVeiculos / numWorkers);
+
+        // observaveis que cada thread somou no passo, juntadas na acao da barreira
+        Observaveis.Parcial[] parciais = new Observaveis.Parcial[numWorkers];
+        for (int i = 0; i < numWorkers; i++) parciais[i] = (obs != null) ? new Observaveis.Parcial() : null;
+        Observaveis.Parcial total = new Observaveis.Parcial();
+
+        // troca os buffers no final do calculo de cada passo e limpa o de escrita
+        CyclicBarrier barreira = new CyclicBarrier(numWorkers, () -> {
+            byte[] temp = leitura;
+            leitura = escrita;
+            escrita = temp;
+            int stepAtual = contador.getAndIncrement();
+
+            // as threads estao paradas na barreira, entao da pra ler e zerar as parciais delas
+            if (obs != null) {
+                total.zerar();
+                for (Observaveis.Parcial parcial : parciais) {
+                    total.somar(parcial);
+                    parcial.zerar();
+                }
+                obs.observar(stepAtual, total.fechar(p.tamEstrada));
+            }
+
+            // so copia a estrada, o gravador escreve no arquivo em outra thread enquanto as daqui calculam
+            if (grav != null) grav.gravar(stepAtual, leitura);
+
+            if (p.modoVisual) {
+                SequencialMemoriaByte.imprimirEstrada(leitura, stepAtual);
+                try { Thread.sleep(p.delayVisualMs); } catch (InterruptedException e) {}
+            }
+
+            // a escrita agora e a estrada lida no passo, entao limpa so as celulas que as threads leram
+            for (CelulasSujas s : sujas) s.limpar(escrita);
+        });
+
+        // prepara a lista das threads
+        List<Worker> workers = new ArrayList<>();
+        for (int i = 0; i < numWorkers; i++) {
+            int inicio = i * segmento;
+            int fim = Math.min(inicio + segmento, p.tamEstrada);
+            workers.add(new Worker(inicio, fim, barreira, sujas[i], parciais[i]));
+        }
+
+        // inicia as threads e espera todas terminarem, o pool continua vivo pra proxima execucao
+        executor.invokeAll(workers);
+    }
+
+    @Override
+    public void setObservador(IObservador observador) {
+        this.observador = observador;
+    }
+
+    @Override
+    public void setGravador(IGravador gravador) {
+        this.gravador = gravador;
+    }
+
+    // fecha o pool que fica vivo entre as execucoes
+    @Override
+    public void encerrar() {
+        pool.encerrar();
+    }
+
+    @Override
+    public byte[] getEstrada() {
+        return leitura.clone();
+    }
+
+    // classe que implementa a thread
+    private class Worker implements Callable<Void> {
+        final int inicio, fim;
+        final CyclicBarrier barreira;
+        final CelulasSujas sujas;
+        final Observaveis.Parcial parcial;
+
+        public Worker(int inicio, int fim, CyclicBarrier barreira, CelulasSujas sujas, Observaveis.Parcial parcial) {
+            this.inicio = inicio;
+            this.fim = fim;
+            this.barreira = barreira;
+            this.sujas = sujas;
+            this.parcial = parcial;
+        }
+
+        // execucao da thread
+        @Override
+        public Void call() throws Exception {
+            final Parametros p = parametros;
+            for (int s = 0; s < p.steps; s++) {
+                // calcula o trecho da thread
+                SequencialMemoriaByte.passo(leitura, escrita, inicio, fim, p, s, sujas, parcial);
+
+                // espera todas as threads terminarem e depois inicia a troca de buffer
+                try {
+                    barreira.await();
+                } catch (BrokenBarrierException ex) {
+                    break;
+                }
+            }
+            return null;
+        }
+    }
+}
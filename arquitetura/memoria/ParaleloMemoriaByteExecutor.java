@@ -0,0 +1,133 @@
+package arquitetura.memoria;
+
+import core.IGravador;
+import core.IObservador;
+import core.ISimulacaoGravavel;
+import core.ISimulacaoObservavel;
+import core.Observaveis;
+import core.Parametros;
+import core.PoolThreads;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.*;
+
+public class ParaleloMemoriaByteExecutor implements ISimulacaoObservavel, ISimulacaoGravavel {
+    private byte[] estradaAtual;
+    private byte[] proximaEstrada;
+    private ExecutorService executor;
+    private final PoolThreads<ExecutorService> pool = PoolThreads.fixo();
+    private Parametros parametros;
+
+    // celulas ocupadas que cada tarefa leu, limpas depois da troca
+    private CelulasSujas[] sujas;
+
+    // observaveis de cada passo, cada tarefa soma as do seu trecho e o laco junta depois do invokeAll
+    private IObservador observador;
+    private Observaveis.Parcial[] parciais;
+
+    // recebe a estrada do fim de cada passo, pro diagrama espaco-tempo
+    private IGravador gravador;
+
+    // nome pra tabela
+    @Override
+    public String getNome() {
+        return "Paralelo Executor (Memoria byte[])";
+    }
+
+    // monta a estrada
+    @Override
+    public void inicializar(Parametros parametros) {
+        this.parametros = parametros;
+        this.estradaAtual = new byte[parametros.tamEstrada];
+        this.proximaEstrada = new byte[parametros.tamEstrada];
+        Arrays.fill(this.proximaEstrada, SequencialMemoriaByte.VAZIO);
+        SequencialMemoriaByte.inicializarEstrada(parametros, this.estradaAtual);
+        this.sujas = new CelulasSujas[parametros.numThreads];
+        for (int i = 0; i < parametros.numThreads; i++) sujas[i] = new CelulasSujas(parametros.numVeiculos / parametros.numThreads);
+        this.parciais = new Observaveis.Parcial[parametros.numThreads];
+        for (int i = 0; i < parametros.numThreads; i++) parciais[i] = new Observaveis.Parcial();
+        this.executor = pool.obter(parametros.numThreads);
+    }
+
+    // roda a simulacao
+    @Override
+    public void executar() throws InterruptedException {
+        // divide a estrada entre as threads
+        final Parametros p = parametros;
+        final IObservador obs = observador;
+        final IGravador grav = gravador;
+        int segmento = (int) Math.ceil((double) p.tamEstrada / p.numThreads);
+        Observaveis.Parcial total = new Observaveis.Parcial();
+
+        for (int step = 0; step < p.steps; step++) {
+            List<Callable<Void>> tarefas = new ArrayList<>();
+
+            final int stepAtual = step;
+
+            // arrays da estrada
+            final byte[] leitura = estradaAtual;
+            final byte[] escrita = proximaEstrada;
+
+            // cria as tarefas
+            for (int i = 0; i < p.numThreads; i++) {
+                final int inicio = i * segmento;
+                final int fim = Math.min(inicio + segmento, p.tamEstrada);
+                final CelulasSujas minhasSujas = sujas[i];
+                final Observaveis.Parcial minhaParcial = (obs != null) ? parciais[i] : null;
+
+                if (inicio < p.tamEstrada) {
+                    tarefas.add(() -> {
+                        if (minhaParcial != null) minhaParcial.zerar();
+                        SequencialMemoriaByte.passo(leitura, escrita, inicio, fim, p, stepAtual, minhasSujas, minhaParcial);
+                        return null;
+                    });
+                }
+            }
+
+            // executa todas as threads
+            executor.invokeAll(tarefas);
+
+            // troca os arrays e limpa so as celulas que tinham carro
+            byte[] temp = estradaAtual;
+            estradaAtual = proximaEstrada;
+            proximaEstrada = temp;
+            for (CelulasSujas s : sujas) s.limpar(proximaEstrada);
+
+            // junta as somas das tarefas, o invokeAll ja esperou todas
+            if (obs != null) {
+                total.zerar();
+                for (int i = 0; i < tarefas.size(); i++) total.somar(parciais[i]);
+                obs.observar(step, total.fechar(p.tamEstrada));
+            }
+            if (grav != null) grav.gravar(step, estradaAtual);
+
+            if (p.modoVisual) {
+                SequencialMemoriaByte.imprimirEstrada(estradaAtual, step);
+                Thread.sleep(p.delayVisualMs);
+            }
+        }
+    }
+
+    @Override
+    public void setObservador(IObservador observador) {
+        this.observador = observador;
+    }
+
+    @Override
+    public void setGravador(IGravador gravador) {
+        this.gravador = gravador;
+    }
+
+    // fecha o pool que fica vivo entre as execucoes
+    @Override
+    public void encerrar() {
+        pool.encerrar();
+    }
+
+    @Override
+    public byte[] getEstrada() {
+        return estradaAtual.clone();
+    }
+}
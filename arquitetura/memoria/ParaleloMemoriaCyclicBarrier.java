@@ -1,16 +1,21 @@
 package arquitetura.memoria;
 
-import core.Config;
-import core.ISimulacao;
+import core.Aleatorio;
+import core.IGravador;
+import core.IObservador;
+import core.ISimulacaoGravavel;
+import core.ISimulacaoObservavel;
+import core.Observaveis;
+import core.Parametros;
+import core.PoolThreads;
 import model.VeiculoMemoria;
 
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.List;
 import java.util.concurrent.*;
 import java.util.concurrent.atomic.AtomicInteger;
 
-public class ParaleloMemoriaCyclicBarrier implements ISimulacao {
+public class ParaleloMemoriaCyclicBarrier implements ISimulacaoObservavel, ISimulacaoGravavel {
 
     // arrays volateis da estrada
     private volatile VeiculoMemoria[] leitura;
@@ -22,6 +27,18 @@ public class ParaleloMemoriaCyclicBarrier implements ISimulacao {
 
     private ExecutorService executor;
 
+    private final PoolThreads<ExecutorService> pool = PoolThreads.fixo();
+    private Parametros parametros;
+
+    // faixas de cada thread, refeitas pela densidade na acao da barreira, e o tempo ocupado de cada uma
+    private Particionamento particao;
+
+    // observaveis de cada passo, cada thread soma as da sua faixa e a acao da barreira junta
+    private IObservador observador;
+
+    // estrada de cada passo, convertida pra bytes pro gravador
+    private IGravador gravador;
+
     // nome pra tabela
     @Override
     public String getNome() {
@@ -30,94 +47,140 @@ public class ParaleloMemoriaCyclicBarrier implements ISimulacao {
 
     // monta a estrada
     @Override
-    public void inicializar() {
-        this.bufferA = new VeiculoMemoria[Config.L];
-        this.bufferB = new VeiculoMemoria[Config.L];
-        SequencialMemoria.inicializarEstrada(this.bufferA);
+    public void inicializar(Parametros parametros) {
+        this.parametros = parametros;
+        this.bufferA = new VeiculoMemoria[parametros.tamEstrada];
+        this.bufferB = new VeiculoMemoria[parametros.tamEstrada];
+        SequencialMemoria.inicializarEstrada(parametros, this.bufferA);
 
         this.leitura = bufferA;
         this.escrita = bufferB;
 
-        this.executor = Executors.newFixedThreadPool(Config.NUM_THREADS);
+        this.particao = new Particionamento(parametros.numThreads, parametros.tamEstrada, parametros.rebalancearACada);
+        this.executor = pool.obter(parametros.numThreads);
     }
 
     // roda a simulacao
     @Override
     public void executar() throws InterruptedException {
         AtomicInteger contador = new AtomicInteger(0);
+        final Parametros p = parametros;
+        final IObservador obs = observador;
+        final IGravador grav = gravador;
+        final byte[] linha = (grav != null) ? new byte[parametros.tamEstrada] : null;
+
+        // celulas ocupadas que cada thread leu no passo
+        CelulasSujas[] sujas = new CelulasSujas[p.numThreads];
+        for (int i = 0; i < p.numThreads; i++) sujas[i] = new CelulasSujas(p.numVeiculos / p.numThreads);
+
+        // observaveis que cada thread somou no passo, juntadas na acao da barreira
+        Observaveis.Parcial[] parciais = new Observaveis.Parcial[p.numThreads];
+        for (int i = 0; i < p.numThreads; i++) parciais[i] = (obs != null) ? new Observaveis.Parcial() : null;
+        Observaveis.Parcial total = new Observaveis.Parcial();
 
         // cria a cyclic barrier falando pra acontecer a troca de buffers no final do calculo de velocidade e antes do proximo ciclo
-        CyclicBarrier barreira = new CyclicBarrier(Config.NUM_THREADS, () -> {
+        CyclicBarrier barreira = new CyclicBarrier(p.numThreads, () -> {
             VeiculoMemoria[] temp = leitura;
             leitura = escrita;
             escrita = temp;
+            int stepAtual = contador.incrementAndGet();
+
+            // as threads estao paradas na barreira, entao da pra ler e zerar as parciais delas
+            if (obs != null) {
+                total.zerar();
+                for (Observaveis.Parcial parcial : parciais) {
+                    total.somar(parcial);
+                    parcial.zerar();
+                }
+                obs.observar(stepAtual - 1, total.fechar(p.tamEstrada));
+            }
+            if (grav != null) grav.gravar(stepAtual - 1, SequencialMemoria.paraBytes(leitura, linha));
 
-            if (Config.MODO_VISUAL) {
-                int stepAtual = contador.incrementAndGet();
+            if (p.modoVisual) {
                 imprimirEstrada(leitura, stepAtual);
-                try { Thread.sleep(Config.DELAY_VISUAL_MS); } catch (InterruptedException e) {}
+                try { Thread.sleep(p.delayVisualMs); } catch (InterruptedException e) {}
             }
 
-            Arrays.fill(escrita, null);
+            // a escrita agora e a estrada lida no passo, entao limpa so as celulas que as threads leram
+            for (CelulasSujas s : sujas) s.limpar(escrita);
+
+            // as threads estao todas paradas na barreira, entao da pra mudar as faixas antes do proximo passo
+            if (stepAtual < p.steps && particao.deveRebalancear(stepAtual)) particao.rebalancear(leitura);
         });
 
-        // prepara a lista das threads
-        List<Worker> workers = new ArrayList<>();
-        int segmento = (int) Math.ceil((double) Config.L / Config.NUM_THREADS);
+        // divide a estrada pelo numero de carros antes do primeiro passo
+        if (particao.deveRebalancear(0)) particao.rebalancear(leitura);
 
-        for (int i = 0; i < Config.NUM_THREADS; i++) {
-            int inicio = i * segmento;
-            int fim = Math.min(inicio + segmento, Config.L);
-            if (inicio < Config.L) {
-                workers.add(new Worker(inicio, fim, barreira));
-            }
+        // prepara a lista das threads, todas passam pela barreira mesmo com a faixa vazia
+        List<Worker> workers = new ArrayList<>();
+        for (int i = 0; i < p.numThreads; i++) {
+            workers.add(new Worker(i, barreira, sujas[i], parciais[i]));
         }
 
-        // inicia e depois termina as threads
+        // inicia as threads e espera todas terminarem, o pool continua vivo pra proxima execucao
         executor.invokeAll(workers);
-        executor.shutdown();
     }
 
     // classe que implementa a thread
     private class Worker implements Callable<Void> {
-        final int inicio, fim;
+        final int id;
         final CyclicBarrier barreira;
+        final CelulasSujas sujas;
+        final Observaveis.Parcial parcial;
 
-        public Worker(int inicio, int fim, CyclicBarrier barreira) {
-            this.inicio = inicio;
-            this.fim = fim;
+        public Worker(int id, CyclicBarrier barreira, CelulasSujas sujas, Observaveis.Parcial parcial) {
+            this.id = id;
             this.barreira = barreira;
+            this.sujas = sujas;
+            this.parcial = parcial;
         }
 
         // execucao da thread
         @Override
         public Void call() throws Exception {
-            ThreadLocalRandom rnd = ThreadLocalRandom.current();
+            // copia os parametros pra variaveis locais fora do loop
+            final int tamEstrada = parametros.tamEstrada;
+            final int vMax = parametros.vMax;
+            final double prob = parametros.probabilidade;
+            final long semente = parametros.semente;
 
-            for (int s = 0; s < Config.STEPS; s++) {
+            // a busca do proximo carro so precisa ir ate V_MAX + 1 celulas, depois disso o carro nao e limitado
+            int limite = Math.min(vMax + 1, tamEstrada - 1);
+
+            for (int s = 0; s < parametros.steps; s++) {
                 // pega referencia dos arrays volateis
                 VeiculoMemoria[] l = ParaleloMemoriaCyclicBarrier.this.leitura;
                 VeiculoMemoria[] e = ParaleloMemoriaCyclicBarrier.this.escrita;
 
+                // faixa do passo, so muda na acao da barreira
+                int inicio = particao.getInicio(id);
+                int fim = particao.getFim(id);
+                long t0 = System.nanoTime();
+
                 // calculo da velocidade
                 for (int i = inicio; i < fim; i++) {
                     VeiculoMemoria veiculo = l[i];
                     if (veiculo != null) {
+                        sujas.adicionar(i);
                         int v = veiculo.velocidade;
-                        if (v < Config.V_MAX) v++;
+                        if (v < vMax) v++;
 
                         int dist = 0;
-                        for (int k = 1; k < Config.L; k++) {
+                        for (int k = 1; k <= limite; k++) {
                             dist++;
-                            if (l[(i + k) % Config.L] != null) break;
+                            if (l[(i + k) % tamEstrada] != null) break;
                         }
                         v = Math.min(v, dist - 1);
-                        if (rnd.nextDouble() < Config.PROBABILIDADE && v > 0) v--;
+                        if (Aleatorio.uniforme(semente, s, i) < prob && v > 0) v--;
 
                         veiculo.velocidade = v;
-                        e[(i + v) % Config.L] = veiculo;
+                        e[(i + v) % tamEstrada] = veiculo;
+
+                        // um carro parado abre engarrafamento se a celula atras dele estava vazia
+                        if (parcial != null) parcial.adicionar(v, l[i == 0 ? tamEstrada - 1 : i - 1] == null);
                     }
                 }
+                particao.somarOcupado(id, System.nanoTime() - t0);
 
                 // espera todas as threads terminarem e depois inicia a troca de buffer
                 try {
@@ -130,6 +193,31 @@ public class ParaleloMemoriaCyclicBarrier implements ISimulacao {
         }
     }
 
+    @Override
+    public void setObservador(IObservador observador) {
+        this.observador = observador;
+    }
+
+    @Override
+    public void setGravador(IGravador gravador) {
+        this.gravador = gravador;
+    }
+
+    public Particionamento getParticionamento() {
+        return particao;
+    }
+
+    // fecha o pool que fica vivo entre as execucoes
+    @Override
+    public void encerrar() {
+        pool.encerrar();
+    }
+
+    @Override
+    public byte[] getEstrada() {
+        return SequencialMemoria.paraBytes(leitura);
+    }
+
     private void imprimirEstrada(VeiculoMemoria[] estrada, int step) {
         StringBuilder sb = new StringBuilder();
         sb.append(String.format("T=%03d [", step));
@@ -1,18 +1,38 @@
 package arquitetura.memoria;
 
-import core.Config;
-import core.ISimulacao;
+import core.Aleatorio;
+import core.IGravador;
+import core.IObservador;
+import core.ISimulacaoGravavel;
+import core.ISimulacaoObservavel;
+import core.Observaveis;
+import core.Parametros;
+import core.PoolThreads;
 import model.VeiculoMemoria;
 
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.List;
 import java.util.concurrent.*;
 
-public class ParaleloMemoriaExecutor implements ISimulacao {
+public class ParaleloMemoriaExecutor implements ISimulacaoObservavel, ISimulacaoGravavel {
     private VeiculoMemoria[] estradaAtual;
     private VeiculoMemoria[] proximaEstrada;
     private ExecutorService executor;
+    private final PoolThreads<ExecutorService> pool = PoolThreads.fixo();
+    private Parametros parametros;
+
+    // celulas ocupadas que cada tarefa leu, limpas depois da troca
+    private CelulasSujas[] sujas;
+
+    // faixas de cada tarefa, refeitas pela densidade, e o tempo ocupado de cada uma
+    private Particionamento particao;
+
+    // observaveis de cada passo, cada tarefa soma as do seu trecho e o laco junta depois do invokeAll
+    private IObservador observador;
+    private Observaveis.Parcial[] parciais;
+
+    // estrada de cada passo, convertida pra bytes pro gravador
+    private IGravador gravador;
 
     // nome pra tabela
     @Override
@@ -22,51 +42,84 @@ public class ParaleloMemoriaExecutor implements ISimulacao {
 
     // monta a estrada
     @Override
-    public void inicializar() {
-        this.estradaAtual = new VeiculoMemoria[Config.L];
-        this.proximaEstrada = new VeiculoMemoria[Config.L];
-        SequencialMemoria.inicializarEstrada(this.estradaAtual);
-        this.executor = Executors.newFixedThreadPool(Config.NUM_THREADS);
+    public void inicializar(Parametros parametros) {
+        this.parametros = parametros;
+        this.estradaAtual = new VeiculoMemoria[parametros.tamEstrada];
+        this.proximaEstrada = new VeiculoMemoria[parametros.tamEstrada];
+        SequencialMemoria.inicializarEstrada(parametros, this.estradaAtual);
+        this.sujas = new CelulasSujas[parametros.numThreads];
+        for (int i = 0; i < parametros.numThreads; i++) sujas[i] = new CelulasSujas(parametros.numVeiculos / parametros.numThreads);
+        this.particao = new Particionamento(parametros.numThreads, parametros.tamEstrada, parametros.rebalancearACada);
+        this.parciais = new Observaveis.Parcial[parametros.numThreads];
+        for (int i = 0; i < parametros.numThreads; i++) parciais[i] = new Observaveis.Parcial();
+        this.executor = pool.obter(parametros.numThreads);
     }
 
     // roda a simulacao
     @Override
     public void executar() throws InterruptedException {
-        // divide a estrada entre as threads
-        int segmento = (int) Math.ceil((double) Config.L / Config.NUM_THREADS);
+        // copia os parametros pra variaveis locais fora do loop
+        final int tamEstrada = parametros.tamEstrada;
+        final int vMax = parametros.vMax;
+        final double prob = parametros.probabilidade;
+        final long semente = parametros.semente;
 
-        for (int step = 0; step < Config.STEPS; step++) {
+        // a busca do proximo carro so precisa ir ate V_MAX + 1 celulas, depois disso o carro nao e limitado
+        final int limite = Math.min(vMax + 1, tamEstrada - 1);
+
+        final IObservador obs = observador;
+        final IGravador grav = gravador;
+        final byte[] linha = (grav != null) ? new byte[parametros.tamEstrada] : null;
+        Observaveis.Parcial total = new Observaveis.Parcial();
+
+        for (int step = 0; step < parametros.steps; step++) {
             List<Callable<Void>> tarefas = new ArrayList<>();
 
+            final int stepAtual = step;
+
             // arrays da estrada
             final VeiculoMemoria[] leitura = estradaAtual;
             final VeiculoMemoria[] escrita = proximaEstrada;
 
-            // cria as tarefas
-            for (int i = 0; i < Config.NUM_THREADS; i++) {
-                final int inicio = i * segmento;
-                final int fim = Math.min(inicio + segmento, Config.L);
+            // divide a estrada entre as threads pelo numero de carros de cada faixa
+            if (particao.deveRebalancear(step)) particao.rebalancear(leitura);
 
-                if (inicio < Config.L) {
+            // cria as tarefas
+            for (int i = 0; i < parametros.numThreads; i++) {
+                final int id = i;
+                final int inicio = particao.getInicio(i);
+                final int fim = particao.getFim(i);
+                final CelulasSujas minhasSujas = sujas[i];
+                final Observaveis.Parcial minhaParcial = parciais[i];
+                minhaParcial.zerar();
+
+                if (inicio < fim) {
                     tarefas.add(() -> {
-                        ThreadLocalRandom rnd = ThreadLocalRandom.current();
+                        long t0 = System.nanoTime();
                         for (int idx = inicio; idx < fim; idx++) {
                             VeiculoMemoria veiculo = leitura[idx];
                             if (veiculo != null) {
+                                minhasSujas.adicionar(idx);
                                 int v = veiculo.velocidade;
-                                if (v < Config.V_MAX) v++;
+                                if (v < vMax) v++;
 
                                 int dist = 0;
-                                for (int k = 1; k < Config.L; k++) {
+                                for (int k = 1; k <= limite; k++) {
                                     dist++;
-                                    if (leitura[(idx + k) % Config.L] != null) break;
+                                    if (leitura[(idx + k) % tamEstrada] != null) break;
                                 }
                                 v = Math.min(v, dist - 1);
-                                if (rnd.nextDouble() < Config.PROBABILIDADE && v > 0) v--;
+                                if (Aleatorio.uniforme(semente, stepAtual, idx) < prob && v > 0) v--;
                                 veiculo.velocidade = v;
-                                escrita[(idx + v) % Config.L] = veiculo;
+                                escrita[(idx + v) % tamEstrada] = veiculo;
+
+                                // um carro parado abre engarrafamento se a celula atras dele estava vazia
+                                if (obs != null) {
+                                    minhaParcial.adicionar(v, leitura[idx == 0 ? tamEstrada - 1 : idx - 1] == null);
+                                }
                             }
                         }
+                        particao.somarOcupado(id, System.nanoTime() - t0);
                         return null;
                     });
                 }
@@ -75,20 +128,50 @@ public class ParaleloMemoriaExecutor implements ISimulacao {
             // executa todas as threads
             executor.invokeAll(tarefas);
 
-            // troca os arrays e limpa
+            // troca os arrays e limpa so as celulas que tinham carro
             VeiculoMemoria[] temp = estradaAtual;
             estradaAtual = proximaEstrada;
             proximaEstrada = temp;
-            Arrays.fill(proximaEstrada, null);
+            for (CelulasSujas s : sujas) s.limpar(proximaEstrada);
+
+            // junta as somas das tarefas, o invokeAll ja esperou todas
+            if (obs != null) {
+                total.zerar();
+                for (Observaveis.Parcial parcial : parciais) total.somar(parcial);
+                obs.observar(step, total.fechar(tamEstrada));
+            }
+            if (grav != null) grav.gravar(step, SequencialMemoria.paraBytes(estradaAtual, linha));
 
-            if (Config.MODO_VISUAL) {
+            if (parametros.modoVisual) {
                 imprimirEstrada(estradaAtual, step);
-                Thread.sleep(Config.DELAY_VISUAL_MS);
+                Thread.sleep(parametros.delayVisualMs);
             }
         }
+    }
+
+    @Override
+    public void setObservador(IObservador observador) {
+        this.observador = observador;
+    }
+
+    @Override
+    public void setGravador(IGravador gravador) {
+        this.gravador = gravador;
+    }
 
-        // encerra as threads
-        executor.shutdown();
+    public Particionamento getParticionamento() {
+        return particao;
+    }
+
+    // fecha o pool que fica vivo entre as execucoes
+    @Override
+    public void encerrar() {
+        pool.encerrar();
+    }
+
+    @Override
+    public byte[] getEstrada() {
+        return SequencialMemoria.paraBytes(estradaAtual);
     }
 
     private void imprimirEstrada(VeiculoMemoria[] estrada, int step) {
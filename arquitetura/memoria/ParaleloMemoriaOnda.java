@@ -0,0 +1,225 @@
+package arquitetura.memoria;
+
+import core.Aleatorio;
+import core.ISimulacao;
+import core.Parametros;
+import core.PoolThreads;
+
+import java.util.Arrays;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.locks.LockSupport;
+
+// frente de onda: sem barreira global, cada thread anda pro passo s + 1 assim que os dois vizinhos publicaram o passo s
+// cada thread so escreve no proprio segmento da proxima estrada: ela puxa os carros das V_MAX celulas antes do inicio
+// que caem no segmento e deixa pro vizinho da frente os carros que saem pelo fim
+// no passo s a thread le o proprio segmento e as pontas dos vizinhos do buffer s e escreve o proprio segmento no outro,
+// que foi lido pelos vizinhos no passo s - 1, entao esperar os dois vizinhos terminarem o passo s - 1 resolve as duas coisas
+// e um segmento nunca fica mais de um passo na frente do vizinho
+public class ParaleloMemoriaOnda implements ISimulacao {
+    // distancia entre os contadores de passo de duas threads, 16 ints = 64 bytes, pra nao dividirem linha de cache
+    static final int ESPACAMENTO = 16;
+
+    // voltas de espera ativa antes de dormir ate o vizinho acordar a thread
+    static final int GIROS = 200;
+
+    // os dois buffers da estrada, o passo s le buffers[s % 2] e escreve buffers[(s + 1) % 2]
+    private byte[][] buffers;
+    private int[] inicios;
+    private int numWorkers;
+
+    // passos terminados por cada segmento
+    private AtomicIntegerArray passos;
+    private Worker[] workers;
+    private volatile boolean falhou;
+
+    private ExecutorService executor;
+
+    private final PoolThreads<ExecutorService> pool = PoolThreads.fixo();
+    private Parametros parametros;
+
+    // nome pra tabela
+    @Override
+    public String getNome() {
+        return "Paralelo Frente de Onda (Memoria byte[])";
+    }
+
+    // monta a estrada
+    @Override
+    public void inicializar(Parametros parametros) {
+        this.parametros = parametros;
+        this.buffers = new byte[2][parametros.tamEstrada];
+        SequencialMemoriaByte.inicializarEstrada(parametros, buffers[0]);
+        Arrays.fill(buffers[1], SequencialMemoriaByte.VAZIO);
+
+        // a thread le V_MAX + 1 celulas do vizinho da frente e V_MAX do de tras, entao cada segmento precisa ter
+        // pelo menos V_MAX + 1 celulas pra leitura nunca chegar no segmento de quem pode estar um passo na frente
+        this.numWorkers = Math.max(1, Math.min(parametros.numThreads, parametros.tamEstrada / (parametros.vMax + 1)));
+        this.inicios = new int[numWorkers + 1];
+        for (int i = 0; i <= numWorkers; i++) inicios[i] = (int) ((long) i * parametros.tamEstrada / numWorkers);
+
+        this.executor = pool.obter(numWorkers);
+    }
+
+    // roda a simulacao
+    @Override
+    public void executar() throws Exception {
+        passos = new AtomicIntegerArray(numWorkers * ESPACAMENTO);
+        falhou = false;
+
+        workers = new Worker[numWorkers];
+        for (int i = 0; i < numWorkers; i++) workers[i] = new Worker(i);
+
+        // inicia as threads e espera todas terminarem, o pool continua vivo pra proxima execucao
+        for (Future<Void> f : executor.invokeAll(Arrays.asList(workers))) f.get();
+
+        // sem passo global nao tem um momento em que a estrada inteira esta num passo so, entao mostra so o final
+        if (parametros.modoVisual) SequencialMemoriaByte.imprimirEstrada(getEstrada(), parametros.steps - 1);
+    }
+
+    // fecha o pool que fica vivo entre as execucoes
+    @Override
+    public void encerrar() {
+        pool.encerrar();
+    }
+
+    @Override
+    public byte[] getEstrada() {
+        return buffers[parametros.steps % 2].clone();
+    }
+
+    // calcula o passo do segmento [inicio, fim) da proxima estrada, puxando tambem os carros das V_MAX celulas antes dele
+    // os carros que passam do fim ficam pro segmento da frente, que recalcula eles
+    // anota em escritas as celulas ocupadas na proxima, que a thread limpa antes de escrever de novo nesse buffer
+    static void passo(byte[] atual, byte[] proxima, int inicio, int fim, Parametros parametros, int step, CelulasSujas escritas) {
+        // copia os parametros pra variaveis locais fora do loop
+        final int tamEstrada = atual.length;
+        final int vMax = parametros.vMax;
+        final double prob = parametros.probabilidade;
+        final long semente = parametros.semente;
+
+        // carros do segmento de tras que podem entrar no segmento
+        for (int j = inicio - vMax; j < inicio; j++) {
+            int i = Math.floorMod(j, tamEstrada);
+            if (atual[i] != SequencialMemoriaByte.VAZIO) {
+                int v = novaVelocidade(atual, i, vMax, prob, semente, step);
+                if (j + v >= inicio) {
+                    proxima[j + v] = (byte) v;
+                    escritas.adicionar(j + v);
+                }
+            }
+        }
+
+        // carros do segmento que continuam nele
+        for (int i = inicio; i < fim; i++) {
+            if (atual[i] != SequencialMemoriaByte.VAZIO) {
+                int v = novaVelocidade(atual, i, vMax, prob, semente, step);
+                if (i + v < fim) {
+                    proxima[i + v] = (byte) v;
+                    escritas.adicionar(i + v);
+                }
+            }
+        }
+    }
+
+    // acelera, desacelera e randomiza o carro da celula i
+    static int novaVelocidade(byte[] atual, int i, int vMax, double prob, long semente, int step) {
+        final int tamEstrada = atual.length;
+        final int limite = Math.min(vMax + 1, tamEstrada - 1);
+
+        int v = atual[i];
+        if (v < vMax) v++;
+
+        int dist = 0;
+        for (int k = 1; k <= limite; k++) {
+            dist++;
+            if (atual[(i + k) % tamEstrada] != SequencialMemoriaByte.VAZIO) break;
+        }
+        v = Math.min(v, dist - 1);
+
+        if (Aleatorio.uniforme(semente, step, i) < prob && v > 0) v--;
+        return v;
+    }
+
+    // classe que implementa a thread de um segmento
+    private class Worker implements Callable<Void> {
+        final int id, inicio, fim;
+        final int tras, frente;
+
+        // celulas que a thread escreveu em cada buffer
+        final CelulasSujas[] escritas = new CelulasSujas[2];
+
+        // thread que roda o worker e se ela esta dormindo esperando um vizinho
+        volatile Thread thread;
+        volatile boolean dormindo;
+
+        Worker(int id) {
+            this.id = id;
+            this.inicio = inicios[id];
+            this.fim = inicios[id + 1];
+            this.tras = (id - 1 + numWorkers) % numWorkers;
+            this.frente = (id + 1) % numWorkers;
+
+            // o buffer 0 comeca com a estrada inicial, entao os carros do segmento contam como escritos nele
+            escritas[0] = new CelulasSujas((fim - inicio) / 2);
+            escritas[1] = new CelulasSujas((fim - inicio) / 2);
+            for (int i = inicio; i < fim; i++) {
+                if (buffers[0][i] != SequencialMemoriaByte.VAZIO) escritas[0].adicionar(i);
+            }
+        }
+
+        // execucao da thread
+        @Override
+        public Void call() throws Exception {
+            thread = Thread.currentThread();
+            try {
+                final Parametros p = parametros;
+                for (int s = 0; s < p.steps; s++) {
+                    // os vizinhos precisam ter terminado o passo s - 1: eles escreveram o que vai ser lido
+                    // e ja leram o que vai ser sobrescrito
+                    esperar(tras, s);
+                    esperar(frente, s);
+
+                    byte[] atual = buffers[s % 2];
+                    byte[] proxima = buffers[(s + 1) % 2];
+                    CelulasSujas sujas = escritas[(s + 1) % 2];
+
+                    // limpa o que a thread escreveu nesse buffer dois passos atras
+                    sujas.limpar(proxima);
+                    passo(atual, proxima, inicio, fim, p, s, sujas);
+
+                    // publica o passo, o set volatil torna as escritas visiveis pra quem ler o contador
+                    passos.set(id * ESPACAMENTO, s + 1);
+                    acordar(workers[tras]);
+                    acordar(workers[frente]);
+                }
+            } catch (Exception e) {
+                falhou = true;
+                for (Worker w : workers) acordar(w);
+                throw e;
+            }
+            return null;
+        }
+
+        // espera o segmento do vizinho chegar no passo, girando um pouco antes de dormir
+        // o vizinho publica o contador e depois olha o dormindo, e aqui e o contrario, entao um dos dois sempre ve o outro
+        private void esperar(int vizinho, int passo) {
+            int giros = 0;
+            while (passos.get(vizinho * ESPACAMENTO) < passo) {
+                if (falhou) throw new IllegalStateException("Outra thread da frente de onda falhou");
+                if (++giros < GIROS) {
+                    Thread.onSpinWait();
+                } else {
+                    dormindo = true;
+                    if (passos.get(vizinho * ESPACAMENTO) < passo && !falhou) LockSupport.park(this);
+                    dormindo = false;
+                }
+            }
+        }
+    }
+
+    // acorda o worker se ele dormiu esperando
+    private static void acordar(Worker w) {
+        if (w.dormindo) LockSupport.unpark(w.thread);
+    }
+}
@@ -1,18 +1,30 @@
 package arquitetura.memoria;
 
-import core.Config;
-import core.ISimulacao;
+import core.Aleatorio;
+import core.IGravador;
+import core.IObservador;
+import core.ISimulacaoGravavel;
+import core.ISimulacaoObservavel;
+import core.Observaveis;
+import core.Parametros;
+import core.PoolThreads;
 import model.VeiculoMemoria;
 
-import java.util.Arrays;
 import java.util.concurrent.ForkJoinPool;
-import java.util.concurrent.ThreadLocalRandom;
 import java.util.stream.IntStream;
 
-public class ParaleloMemoriaStream implements ISimulacao {
+public class ParaleloMemoriaStream implements ISimulacaoObservavel, ISimulacaoGravavel {
     private VeiculoMemoria[] estradaAtual;
     private VeiculoMemoria[] proximaEstrada;
     private ForkJoinPool customPool;
+    private final PoolThreads<ForkJoinPool> pool = PoolThreads.forkJoin();
+    private Parametros parametros;
+
+    // observaveis de cada passo, cada pedaco soma as suas e o laco junta depois do forEach
+    private IObservador observador;
+
+    // estrada de cada passo, convertida pra bytes pro gravador
+    private IGravador gravador;
 
     // nome pra tabela
     @Override
@@ -22,11 +34,12 @@ public class ParaleloMemoriaStream implements ISimulacao {
 
     // monta a estrada
     @Override
-    public void inicializar() {
-        this.estradaAtual = new VeiculoMemoria[Config.L];
-        this.proximaEstrada = new VeiculoMemoria[Config.L];
-        SequencialMemoria.inicializarEstrada(this.estradaAtual);
-        this.customPool = new ForkJoinPool(Config.NUM_THREADS);
+    public void inicializar(Parametros parametros) {
+        this.parametros = parametros;
+        this.estradaAtual = new VeiculoMemoria[parametros.tamEstrada];
+        this.proximaEstrada = new VeiculoMemoria[parametros.tamEstrada];
+        SequencialMemoria.inicializarEstrada(parametros, this.estradaAtual);
+        this.customPool = pool.obter(parametros.numThreads);
     }
 
     // roda a simulacao
@@ -35,51 +48,115 @@ public class ParaleloMemoriaStream implements ISimulacao {
         // array pra trocar dentro do submit
         final VeiculoMemoria[][] buffers = { estradaAtual, proximaEstrada };
 
+        // copia os parametros pra variaveis locais fora do loop
+        final Parametros p = parametros;
+        final int tamEstrada = p.tamEstrada;
+        final int vMax = p.vMax;
+        final double prob = p.probabilidade;
+        final long semente = p.semente;
+
+        // a busca do proximo carro so precisa ir ate V_MAX + 1 celulas, depois disso o carro nao e limitado
+        final int limite = Math.min(vMax + 1, tamEstrada - 1);
+
+        // divide a estrada em pedacos, cada um anota as celulas ocupadas que leu pra limpar depois
+        final int partes = p.numThreads * 4;
+        final int tamParte = (int) Math.ceil((double) tamEstrada / partes);
+        final CelulasSujas[] sujas = new CelulasSujas[partes];
+        for (int t = 0; t < partes; t++) sujas[t] = new CelulasSujas(p.numVeiculos / partes);
+
+        // observaveis de cada pedaco no passo
+        final IObservador obs = observador;
+        final IGravador grav = gravador;
+        final byte[] linha = (grav != null) ? new byte[parametros.tamEstrada] : null;
+        final Observaveis.Parcial[] parciais = new Observaveis.Parcial[partes];
+        for (int t = 0; t < partes; t++) parciais[t] = new Observaveis.Parcial();
+        final Observaveis.Parcial total = new Observaveis.Parcial();
+
         // pool de threads executando paralelamente a simulacao e trocando os buffers no final
         customPool.submit(() -> {
-            for (int step = 0; step < Config.STEPS; step++) {
+            for (int s = 0; s < p.steps; s++) {
+                final int step = s;
 
                 final VeiculoMemoria[] leitura = buffers[0];
                 final VeiculoMemoria[] escrita = buffers[1];
 
-                // divide os indices entre as threads
-                IntStream.range(0, Config.L).parallel().forEach(i -> {
-                    VeiculoMemoria veiculo = leitura[i];
-
-                    if (veiculo != null) {
-                        int v = veiculo.velocidade;
-                        // logica de velocidade igual a sequencial
-                        if (v < Config.V_MAX) v++;
-
-                        int dist = 0;
-                        for (int k = 1; k < Config.L; k++) {
-                            dist++;
-                            if (leitura[(i + k) % Config.L] != null) break;
+                // divide os pedacos da estrada entre as threads
+                IntStream.range(0, partes).parallel().forEach(t -> {
+                    Observaveis.Parcial parcial = parciais[t];
+                    parcial.zerar();
+                    int fim = Math.min((t + 1) * tamParte, tamEstrada);
+                    for (int i = t * tamParte; i < fim; i++) {
+                        VeiculoMemoria veiculo = leitura[i];
+
+                        if (veiculo != null) {
+                            sujas[t].adicionar(i);
+                            int v = veiculo.velocidade;
+                            // logica de velocidade igual a sequencial
+                            if (v < vMax) v++;
+
+                            int dist = 0;
+                            for (int k = 1; k <= limite; k++) {
+                                dist++;
+                                if (leitura[(i + k) % tamEstrada] != null) break;
+                            }
+                            v = Math.min(v, dist - 1);
+
+                            if (Aleatorio.uniforme(semente, step, i) < prob && v > 0) {
+                                v--;
+                            }
+                            veiculo.velocidade = v;
+                            escrita[(i + v) % tamEstrada] = veiculo;
+
+                            // um carro parado abre engarrafamento se a celula atras dele estava vazia
+                            if (obs != null) parcial.adicionar(v, leitura[i == 0 ? tamEstrada - 1 : i - 1] == null);
                         }
-                        v = Math.min(v, dist - 1);
-
-                        if (ThreadLocalRandom.current().nextDouble() < Config.PROBABILIDADE && v > 0) {
-                            v--;
-                        }
-                        veiculo.velocidade = v;
-                        escrita[(i + v) % Config.L] = veiculo;
                     }
                 });
 
                 // troca de Buffers das estradas
                 buffers[0] = escrita;
                 buffers[1] = leitura;
-                Arrays.fill(buffers[1], null); // lçimpa a escrita
+                for (CelulasSujas suja : sujas) suja.limpar(buffers[1]); // limpa a escrita so onde tinha carro
+
+                // o forEach ja esperou todos os pedacos
+                if (obs != null) {
+                    total.zerar();
+                    for (Observaveis.Parcial parcial : parciais) total.somar(parcial);
+                    obs.observar(step, total.fechar(tamEstrada));
+                }
+                if (grav != null) grav.gravar(step, SequencialMemoria.paraBytes(buffers[0], linha));
 
-                if (Config.MODO_VISUAL) {
+                if (p.modoVisual) {
                     imprimirEstrada(buffers[0], step);
-                    try { Thread.sleep(Config.DELAY_VISUAL_MS); } catch (InterruptedException e) {}
+                    try { Thread.sleep(p.delayVisualMs); } catch (InterruptedException e) {}
                 }
             }
         }).get();
 
-        // termina o pool de threads
-        customPool.shutdown();
+        // guarda a estrada final
+        estradaAtual = buffers[0];
+        proximaEstrada = buffers[1];
+    }
+
+    @Override
+    public void setObservador(IObservador observador) {
+        this.observador = observador;
+    }
+
+    @Override
+    public void setGravador(IGravador gravador) {
+        this.gravador = gravador;
+    }
+
+    // fecha o pool que fica vivo entre as execucoes
+    @Override
+    public void encerrar() {
+        pool.encerrar();
+    }
+
+    @Override
+    public byte[] getEstrada() {
+        return SequencialMemoria.paraBytes(estradaAtual);
     }
 
     private void imprimirEstrada(VeiculoMemoria[] estrada, int step) {
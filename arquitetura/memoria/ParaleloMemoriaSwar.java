@@ -0,0 +1,133 @@
+package arquitetura.memoria;
+
+import core.Aleatorio;
+import core.IGravador;
+import core.IObservador;
+import core.ISimulacaoGravavel;
+import core.ISimulacaoObservavel;
+import core.Observaveis;
+import core.Parametros;
+import core.PoolThreads;
+import model.EstradaCompacta;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+
+public class ParaleloMemoriaSwar implements ISimulacaoObservavel, ISimulacaoGravavel {
+    private EstradaCompacta estradaAtual;
+    private EstradaCompacta proximaEstrada;
+    private ExecutorService executor;
+    private final PoolThreads<ExecutorService> pool = PoolThreads.fixo();
+    private Parametros parametros;
+
+    // observaveis de cada passo, cada tarefa soma as das suas palavras e o laco junta depois do invokeAll
+    private IObservador observador;
+
+    // estrada de cada passo, o gravador recebe as palavras compactadas e nao precisa compactar de novo
+    private IGravador gravador;
+
+    // nome pra tabela
+    @Override
+    public String getNome() {
+        return "Paralelo Executor SWAR (Memoria compacta)";
+    }
+
+    // monta a estrada
+    @Override
+    public void inicializar(Parametros parametros) {
+        if (parametros.vMax > EstradaCompacta.VELOCIDADE_MAX) {
+            throw new IllegalStateException("V_MAX " + parametros.vMax + " nao cabe em 4 bits");
+        }
+
+        this.parametros = parametros;
+        this.estradaAtual = new EstradaCompacta(parametros.tamEstrada);
+        this.proximaEstrada = new EstradaCompacta(parametros.tamEstrada);
+        Aleatorio.sortearVeiculos(parametros, (pos, vel) -> estradaAtual.set(pos, vel));
+        this.executor = pool.obter(parametros.numThreads);
+    }
+
+    // roda a simulacao
+    @Override
+    public void executar() throws InterruptedException {
+        // divide as palavras da estrada entre as threads, cada thread so escreve nas proprias palavras
+        final Parametros p = parametros;
+        int numPalavras = estradaAtual.getPalavras().length;
+        int segmento = (int) Math.ceil((double) numPalavras / p.numThreads);
+
+        // observaveis que cada tarefa somou no passo
+        final IObservador obs = observador;
+        final IGravador grav = gravador;
+        Observaveis.Parcial[] parciais = new Observaveis.Parcial[p.numThreads];
+        for (int i = 0; i < p.numThreads; i++) parciais[i] = new Observaveis.Parcial();
+        Observaveis.Parcial total = new Observaveis.Parcial();
+
+        for (int step = 0; step < p.steps; step++) {
+            List<Callable<Void>> tarefas = new ArrayList<>();
+
+            final int stepAtual = step;
+
+            // arrays da estrada
+            final long[] leitura = estradaAtual.getPalavras();
+            final long[] escrita = proximaEstrada.getPalavras();
+
+            // cria as tarefas
+            for (int i = 0; i < p.numThreads; i++) {
+                final int inicio = i * segmento;
+                final int fim = Math.min(inicio + segmento, numPalavras);
+
+                final Observaveis.Parcial parcial = (obs != null) ? parciais[i] : null;
+                if (parcial != null) parcial.zerar();
+
+                if (inicio < numPalavras) {
+                    tarefas.add(() -> {
+                        SequencialMemoriaSwar.passo(leitura, escrita, inicio, fim, p, stepAtual, parcial);
+                        return null;
+                    });
+                }
+            }
+
+            // executa todas as threads
+            executor.invokeAll(tarefas);
+
+            if (obs != null) {
+                total.zerar();
+                for (Observaveis.Parcial parcial : parciais) total.somar(parcial);
+                obs.observar(step, total.fechar(p.tamEstrada));
+            }
+
+            // troca as estradas
+            EstradaCompacta temp = estradaAtual;
+            estradaAtual = proximaEstrada;
+            proximaEstrada = temp;
+
+            if (grav != null) grav.gravarPalavras(step, estradaAtual.getPalavras());
+
+            if (p.modoVisual) {
+                SequencialMemoriaByte.imprimirEstrada(estradaAtual.paraBytes(), step);
+                Thread.sleep(p.delayVisualMs);
+            }
+        }
+    }
+
+    @Override
+    public void setObservador(IObservador observador) {
+        this.observador = observador;
+    }
+
+    @Override
+    public void setGravador(IGravador gravador) {
+        this.gravador = gravador;
+    }
+
+    // fecha o pool que fica vivo entre as execucoes
+    @Override
+    public void encerrar() {
+        pool.encerrar();
+    }
+
+    @Override
+    public byte[] getEstrada() {
+        return estradaAtual.paraBytes();
+    }
+}
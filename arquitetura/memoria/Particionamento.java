@@ -0,0 +1,111 @@
+package arquitetura.memoria;
+
+import model.VeiculoMemoria;
+
+import java.util.Arrays;
+
+// divide a estrada em faixas contiguas de celulas, uma por worker, e refaz a divisao pela densidade
+// com congestionamento um segmento de tamanho fixo pode ficar com quase todos os carros e o passo inteiro espera por ele
+// as faixas so mudam entre um passo e outro: cada carro continua sendo lido por um worker so
+// e escrito numa celula so da proxima estrada, entao a escrita no outro buffer nao depende de onde estao os limites
+public class Particionamento {
+    // custo de um carro (busca do proximo carro + sorteio) em relacao a olhar uma celula vazia
+    static final int PESO_CARRO = 8;
+
+    private final int partes;
+    private final int tamEstrada;
+    private final int rebalancearACada;
+
+    // a faixa do worker i e [limites[i], limites[i + 1])
+    private final int[] limites;
+
+    // tempo ocupado de cada worker em ns
+    private final long[] ocupado;
+    private int rebalanceamentos;
+
+    // construtor, comeca com segmentos de ceil(L / partes) celulas igual a divisao fixa
+    public Particionamento(int partes, int tamEstrada, int rebalancearACada) {
+        this.partes = partes;
+        this.tamEstrada = tamEstrada;
+        this.rebalancearACada = rebalancearACada;
+        this.limites = new int[partes + 1];
+        this.ocupado = new long[partes];
+
+        int segmento = (int) Math.ceil((double) tamEstrada / partes);
+        for (int i = 0; i <= partes; i++) limites[i] = Math.min(i * segmento, tamEstrada);
+    }
+
+    // rebalanceia no passo 0 e a cada rebalancearACada passos, 0 deixa a divisao fixa
+    public boolean deveRebalancear(int step) {
+        return rebalancearACada > 0 && step % rebalancearACada == 0;
+    }
+
+    // refaz os limites pra cada faixa ter mais ou menos o mesmo peso, contando cada celula e PESO_CARRO por carro
+    public void rebalancear(VeiculoMemoria[] estrada) {
+        long total = tamEstrada;
+        for (int i = 0; i < tamEstrada; i++) {
+            if (estrada[i] != null) total += PESO_CARRO;
+        }
+
+        // corta a faixa k quando o peso acumulado chega em k / partes do total
+        long acumulado = 0;
+        int parte = 1;
+        for (int i = 0; i < tamEstrada && parte < partes; i++) {
+            acumulado += (estrada[i] != null) ? 1 + PESO_CARRO : 1;
+            while (parte < partes && acumulado * partes >= total * parte) limites[parte++] = i + 1;
+        }
+
+        rebalanceamentos++;
+    }
+
+    public int getPartes() {
+        return partes;
+    }
+
+    public int getInicio(int i) {
+        return limites[i];
+    }
+
+    public int getFim(int i) {
+        return limites[i + 1];
+    }
+
+    // cada worker so escreve no proprio indice
+    public void somarOcupado(int i, long ns) {
+        ocupado[i] += ns;
+    }
+
+    public long getOcupado(int i) {
+        return ocupado[i];
+    }
+
+    // zera os tempos, pra medir uma rodada sem o aquecimento
+    public void zerarOcupado() {
+        Arrays.fill(ocupado, 0L);
+    }
+
+    // maior tempo ocupado sobre a media: 1.0 e perfeitamente balanceado
+    public double desbalanceamento() {
+        long soma = 0, maior = 0;
+        for (long t : ocupado) {
+            soma += t;
+            maior = Math.max(maior, t);
+        }
+        return (soma == 0) ? 1.0 : (double) maior * partes / soma;
+    }
+
+    // tabela com a faixa atual, os carros dela na estrada e o tempo ocupado de cada worker
+    public String relatorio(byte[] estrada) {
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("%8s | %17s | %8s | %12s\n", "WORKER", "FAIXA", "CARROS", "OCUPADO MS"));
+        for (int p = 0; p < partes; p++) {
+            int carros = 0;
+            for (int i = getInicio(p); i < getFim(p); i++) {
+                if (estrada[i] >= 0) carros++;
+            }
+            sb.append(String.format("%8d | %8d-%-8d | %8d | %12.1f\n", p, getInicio(p), getFim(p), carros, ocupado[p] / 1e6));
+        }
+        sb.append(String.format("Desbalanceamento (maior / media): %.2f | Rebalanceamentos: %d\n", desbalanceamento(), rebalanceamentos));
+        return sb.toString();
+    }
+}
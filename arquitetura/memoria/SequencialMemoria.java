@@ -1,15 +1,29 @@
 package arquitetura.memoria;
 
-import core.Config;
-import core.ISimulacao;
+import core.Aleatorio;
+import core.IGravador;
+import core.IObservador;
+import core.ISimulacaoGravavel;
+import core.ISimulacaoObservavel;
+import core.Observaveis;
+import core.Parametros;
 import model.VeiculoMemoria;
 
-import java.util.*;
 
-public class SequencialMemoria implements ISimulacao {
+public class SequencialMemoria implements ISimulacaoObservavel, ISimulacaoGravavel {
     private VeiculoMemoria[] estradaAtual;
     private VeiculoMemoria[] proximaEstrada;
-    private Random random;
+    private Parametros parametros;
+
+    // celulas ocupadas da estrada atual, que viram lixo na proxima troca
+    private CelulasSujas sujas;
+
+    // observaveis de cada passo, so somadas quando tem observador
+    private IObservador observador;
+    private final Observaveis.Parcial parcial = new Observaveis.Parcial();
+
+    // estrada de cada passo, convertida pra bytes pro gravador
+    private IGravador gravador;
 
     // nome pra tabela
     @Override
@@ -19,40 +33,57 @@ public class SequencialMemoria implements ISimulacao {
 
     // monta a estrada
     @Override
-    public void inicializar() {
-        this.estradaAtual = new VeiculoMemoria[Config.L];
-        this.proximaEstrada = new VeiculoMemoria[Config.L];
-        this.random = new Random();
-        inicializarEstrada(this.estradaAtual);
+    public void inicializar(Parametros parametros) {
+        this.parametros = parametros;
+        this.estradaAtual = new VeiculoMemoria[parametros.tamEstrada];
+        this.proximaEstrada = new VeiculoMemoria[parametros.tamEstrada];
+        this.sujas = new CelulasSujas(parametros.numVeiculos);
+        inicializarEstrada(parametros, this.estradaAtual);
     }
 
     // roda a simulacao
     @Override
     public void executar() {
-        for (int step = 0; step < Config.STEPS; step++) {
+        // copia os parametros pra variaveis locais fora do loop
+        final int tamEstrada = parametros.tamEstrada;
+        final int vMax = parametros.vMax;
+        final double prob = parametros.probabilidade;
+        final long semente = parametros.semente;
+
+        // a busca do proximo carro so precisa ir ate V_MAX + 1 celulas, depois disso o carro nao e limitado
+        int limite = Math.min(vMax + 1, tamEstrada - 1);
+
+        final IObservador obs = observador;
+        final boolean medir = obs != null;
+        final IGravador grav = gravador;
+        final byte[] linha = (grav != null) ? new byte[tamEstrada] : null;
+
+        for (int step = 0; step < parametros.steps; step++) {
+            if (medir) parcial.zerar();
 
             // anda no array estrada inteiro
-            for (int i = 0; i < Config.L; i++) {
+            for (int i = 0; i < tamEstrada; i++) {
                 VeiculoMemoria veiculo = estradaAtual[i];
 
                 if (veiculo != null) {
+                    sujas.adicionar(i);
                     int v = veiculo.velocidade;
 
                     // fase 1: acelera
-                    if (v < Config.V_MAX) v++;
+                    if (v < vMax) v++;
 
                     // calcula a distancia pro proximo carro
                     int dist = 0;
-                    for (int k = 1; k < Config.L; k++) {
+                    for (int k = 1; k <= limite; k++) {
                         dist++;
-                        if (estradaAtual[(i + k) % Config.L] != null) break;
+                        if (estradaAtual[(i + k) % tamEstrada] != null) break;
                     }
 
                     // fase 2: desacelera
                     v = Math.min(v, dist - 1);
 
                     // fase 3: randomiza
-                    if (random.nextDouble() < Config.PROBABILIDADE && v > 0) {
+                    if (Aleatorio.uniforme(semente, step, i) < prob && v > 0) {
                         v--;
                     }
 
@@ -60,7 +91,10 @@ public class SequencialMemoria implements ISimulacao {
                     veiculo.velocidade = v;
 
                     // escreve o movimento na proxima estrada
-                    proximaEstrada[(i + v) % Config.L] = veiculo;
+                    proximaEstrada[(i + v) % tamEstrada] = veiculo;
+
+                    // um carro parado abre engarrafamento se a celula atras dele estava vazia
+                    if (medir) parcial.adicionar(v, estradaAtual[i == 0 ? tamEstrada - 1 : i - 1] == null);
                 }
             }
 
@@ -69,27 +103,51 @@ public class SequencialMemoria implements ISimulacao {
             estradaAtual = proximaEstrada;
             proximaEstrada = temp;
 
-            // limpa o array proximaEstrada
-            Arrays.fill(proximaEstrada, null);
+            // limpa o array proximaEstrada, so nas celulas que tinham carro
+            sujas.limpar(proximaEstrada);
+
+            if (medir) obs.observar(step, parcial.fechar(tamEstrada));
+            if (grav != null) grav.gravar(step, paraBytes(estradaAtual, linha));
 
             // caso esteja no modo viusal no config, imprime a estrada e seus veiculos
-            if (Config.MODO_VISUAL) {
+            if (parametros.modoVisual) {
                 imprimirEstrada(estradaAtual, step);
-                try { Thread.sleep(Config.DELAY_VISUAL_MS); } catch (Exception e) {}
+                try { Thread.sleep(parametros.delayVisualMs); } catch (Exception e) {}
             }
         }
     }
 
+    @Override
+    public void setObservador(IObservador observador) {
+        this.observador = observador;
+    }
+
+    @Override
+    public void setGravador(IGravador gravador) {
+        this.gravador = gravador;
+    }
+
+    @Override
+    public byte[] getEstrada() {
+        return paraBytes(estradaAtual);
+    }
+
     // monta e popula a estrada
-    public static void inicializarEstrada(VeiculoMemoria[] estrada) {
-        Random r = new Random();
-        Set<Integer> posicoes = new HashSet<>();
-        while (posicoes.size() < Config.NUM_VEICULOS) {
-            posicoes.add(r.nextInt(Config.L));
-        }
-        for (int pos : posicoes) {
-            estrada[pos] = new VeiculoMemoria(r.nextInt(Config.V_MAX + 1));
+    public static void inicializarEstrada(Parametros parametros, VeiculoMemoria[] estrada) {
+        Aleatorio.sortearVeiculos(parametros, (pos, vel) -> estrada[pos] = new VeiculoMemoria(vel));
+    }
+
+    // converte a estrada de objetos pra velocidades, -1 nas celulas vazias
+    public static byte[] paraBytes(VeiculoMemoria[] estrada) {
+        return paraBytes(estrada, new byte[estrada.length]);
+    }
+
+    // o mesmo num array do mesmo tamanho que ja existe, pra quem converte a cada passo
+    public static byte[] paraBytes(VeiculoMemoria[] estrada, byte[] bytes) {
+        for (int i = 0; i < estrada.length; i++) {
+            bytes[i] = (estrada[i] == null) ? -1 : (byte) estrada[i].velocidade;
         }
+        return bytes;
     }
 
     // metodo auxiliar para imprimir a estrada
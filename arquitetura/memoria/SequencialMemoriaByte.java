@@ -0,0 +1,230 @@
+package arquitetura.memoria;
+
+import core.Aleatorio;
+import core.IGravador;
+import core.IObservador;
+import core.ISimulacaoGravavel;
+import core.ISimulacaoObservavel;
+import core.Observaveis;
+import core.Parametros;
+
+import java.util.Arrays;
+
+public class SequencialMemoriaByte implements ISimulacaoObservavel, ISimulacaoGravavel {
+    // valor que marca uma celula vazia, qualquer outro valor e a velocidade do carro
+    public static final byte VAZIO = -1;
+
+    private byte[] estradaAtual;
+    private byte[] proximaEstrada;
+    private Parametros parametros;
+
+    // celulas ocupadas da estrada atual, que viram lixo na proxima troca
+    private CelulasSujas sujas;
+
+    // observaveis de cada passo, so somadas quando tem observador
+    private IObservador observador;
+    private final Observaveis.Parcial parcial = new Observaveis.Parcial();
+
+    // recebe a estrada do fim de cada passo, pro diagrama espaco-tempo
+    private IGravador gravador;
+
+    // nome pra tabela
+    @Override
+    public String getNome() {
+        return "Sequencial (Memoria byte[])";
+    }
+
+    // monta a estrada, reaproveitando os arrays da execucao anterior quando o tamanho e o mesmo
+    // (a varredura roda muitos pontos seguidos com o mesmo motor)
+    @Override
+    public void inicializar(Parametros parametros) {
+        this.parametros = parametros;
+        if (estradaAtual == null || estradaAtual.length != parametros.tamEstrada) {
+            this.estradaAtual = new byte[parametros.tamEstrada];
+            this.proximaEstrada = new byte[parametros.tamEstrada];
+            this.sujas = new CelulasSujas(parametros.numVeiculos);
+        }
+        Arrays.fill(this.proximaEstrada, VAZIO);
+        inicializarEstrada(parametros, this.estradaAtual);
+    }
+
+    // roda a simulacao
+    @Override
+    public void executar() {
+        final IObservador obs = observador;
+        final Observaveis.Parcial soma = (obs != null) ? parcial : null;
+        final IGravador grav = gravador;
+
+        for (int step = 0; step < parametros.steps; step++) {
+            // calcula o movimento de todos os carros
+            if (soma != null) soma.zerar();
+            passo(estradaAtual, proximaEstrada, 0, parametros.tamEstrada, parametros, step, sujas, soma);
+
+            // troca as estradas e limpa a proxima so nas celulas que tinham carro
+            byte[] temp = estradaAtual;
+            estradaAtual = proximaEstrada;
+            proximaEstrada = temp;
+            sujas.limpar(proximaEstrada);
+
+            if (obs != null) obs.observar(step, soma.fechar(parametros.tamEstrada));
+            if (grav != null) grav.gravar(step, estradaAtual);
+
+            if (parametros.modoVisual) {
+                imprimirEstrada(estradaAtual, step);
+                try { Thread.sleep(parametros.delayVisualMs); } catch (Exception e) {}
+            }
+        }
+    }
+
+    @Override
+    public void setObservador(IObservador observador) {
+        this.observador = observador;
+    }
+
+    @Override
+    public void setGravador(IGravador gravador) {
+        this.gravador = gravador;
+    }
+
+    // calcula um passo do trecho [inicio, fim) da estrada, escrevendo os carros na proxima
+    // e anotando em sujas as celulas ocupadas que foram lidas
+    // com parcial diferente de null soma as observaveis do trecho nela (o teste sai do laco no jit)
+    static void passo(byte[] atual, byte[] proxima, int inicio, int fim, Parametros parametros, int step,
+                      CelulasSujas sujas, Observaveis.Parcial parcial) {
+        // copia os parametros pra variaveis locais fora do loop
+        final int tamEstrada = atual.length;
+        final int vMax = parametros.vMax;
+        final double prob = parametros.probabilidade;
+        final long semente = parametros.semente;
+
+        // a busca do proximo carro so precisa ir ate V_MAX + 1 celulas, depois disso o carro nao e limitado
+        final int limite = Math.min(vMax + 1, tamEstrada - 1);
+
+        // somas do trecho em locais, escritas na parcial uma vez no fim
+        final boolean medir = parcial != null;
+        int carros = 0, parados = 0, engarrafamentos = 0;
+        long somaVelocidades = 0;
+
+        for (int i = inicio; i < fim; i++) {
+            int v = atual[i];
+
+            if (v != VAZIO) {
+                sujas.adicionar(i);
+
+                // fase 1: acelera
+                if (v < vMax) v++;
+
+                // calcula a distancia pro proximo carro
+                int dist = 0;
+                for (int k = 1; k <= limite; k++) {
+                    dist++;
+                    if (atual[(i + k) % tamEstrada] != VAZIO) break;
+                }
+
+                // fase 2: desacelera
+                v = Math.min(v, dist - 1);
+
+                // fase 3: randomiza
+                if (Aleatorio.uniforme(semente, step, i) < prob && v > 0) v--;
+
+                // fase 4: escreve a velocidade na nova celula
+                proxima[(i + v) % tamEstrada] = (byte) v;
+
+                // sem if nas contas, parar ou nao e quase aleatorio e o desvio errado custaria mais que a soma
+                if (medir) {
+                    int parado = (v - 1) >>> 31;
+                    carros++;
+                    somaVelocidades += v;
+                    parados += parado;
+                    engarrafamentos += parado & ((atual[i == 0 ? tamEstrada - 1 : i - 1] == VAZIO) ? 1 : 0);
+                }
+            }
+        }
+
+        if (medir) {
+            parcial.carros += carros;
+            parcial.somaVelocidades += somaVelocidades;
+            parcial.parados += parados;
+            parcial.engarrafamentos += engarrafamentos;
+        }
+    }
+
+    // calcula um passo de uma janela da estrada sem dar a volta no anel, janela[0] e a celula origem
+    // o que passa do fim da janela conta como vazio e os carros que saem dela somem, entao a cada passo
+    // as V_MAX celulas de cada ponta podem ficar erradas e so o miolo da janela sai igual ao da estrada inteira
+    public static void passoJanela(byte[] janela, byte[] proxima, int origem, Parametros parametros, int step) {
+        passoJanela(janela, proxima, janela.length, origem, parametros, step);
+    }
+
+    // o mesmo so nas primeiras tamJanela celulas dos arrays, pra quem reaproveita janelas maiores entre as chamadas
+    public static void passoJanela(byte[] janela, byte[] proxima, int tamJanela, int origem, Parametros parametros,
+                                   int step) {
+        passoJanela(janela, proxima, tamJanela, origem, parametros, step, null, 0, 0);
+    }
+
+    // o mesmo somando na parcial (se nao for null) os carros que saem das celulas [de, ate) da janela,
+    // que tem que estar longe o bastante das pontas pra velocidade e a celula de tras estarem exatas
+    public static void passoJanela(byte[] janela, byte[] proxima, int tamJanela, int origem, Parametros parametros,
+                                   int step, Observaveis.Parcial parcial, int de, int ate) {
+        // copia os parametros pra variaveis locais fora do loop
+        final int tamEstrada = parametros.tamEstrada;
+        final int vMax = parametros.vMax;
+        final double prob = parametros.probabilidade;
+        final long semente = parametros.semente;
+        final int limite = Math.min(vMax + 1, tamEstrada - 1);
+
+        Arrays.fill(proxima, 0, tamJanela, VAZIO);
+        for (int j = 0; j < tamJanela; j++) {
+            int v = janela[j];
+
+            if (v != VAZIO) {
+                // fase 1: acelera
+                if (v < vMax) v++;
+
+                // calcula a distancia pro proximo carro dentro da janela
+                int dist = 0;
+                for (int k = 1; k <= limite; k++) {
+                    dist++;
+                    if (j + k < tamJanela && janela[j + k] != VAZIO) break;
+                }
+
+                // fase 2: desacelera
+                v = Math.min(v, dist - 1);
+
+                // fase 3: randomiza com o indice da celula na estrada inteira
+                if (Aleatorio.uniforme(semente, step, (origem + j) % tamEstrada) < prob && v > 0) v--;
+
+                if (parcial != null && j >= de && j < ate) parcial.adicionar(v, janela[j - 1] == VAZIO);
+
+                // fase 4: escreve se o carro continua dentro da janela
+                if (j + v < tamJanela) proxima[j + v] = (byte) v;
+            }
+        }
+    }
+
+    @Override
+    public byte[] getEstrada() {
+        return estradaAtual.clone();
+    }
+
+    // monta e popula a estrada
+    public static void inicializarEstrada(Parametros parametros, byte[] estrada) {
+        Arrays.fill(estrada, VAZIO);
+        Aleatorio.sortearVeiculos(parametros, (pos, vel) -> estrada[pos] = (byte) vel);
+    }
+
+    // metodo auxiliar para imprimir a estrada
+    public static void imprimirEstrada(byte[] estrada, int step) {
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("T=%03d [", step));
+        for (byte v : estrada) {
+            if (v == VAZIO) sb.append(".");
+            else sb.append(v);
+        }
+        sb.append("]");
+
+        System.out.print("\033[H\033[2J");
+        System.out.flush();
+        System.out.println(sb.toString());
+    }
+}
@@ -0,0 +1,136 @@
+package arquitetura.memoria;
+
+import core.Aleatorio;
+import core.IGravador;
+import core.IObservador;
+import core.ISimulacaoGravavel;
+import core.ISimulacaoObservavel;
+import core.Observaveis;
+import core.Parametros;
+import model.EstradaCompacta;
+
+public class SequencialMemoriaCompacta implements ISimulacaoObservavel, ISimulacaoGravavel {
+    // 4 bits por celula, a estrada padrao de 20000 celulas cabe em 10 KB
+    private EstradaCompacta estradaAtual;
+    private EstradaCompacta proximaEstrada;
+    private Parametros parametros;
+
+    // observaveis de cada passo, so somadas quando tem observador
+    private IObservador observador;
+    private final Observaveis.Parcial parcial = new Observaveis.Parcial();
+
+    // estrada de cada passo, o gravador recebe as palavras compactadas e nao precisa compactar de novo
+    private IGravador gravador;
+
+    // nome pra tabela
+    @Override
+    public String getNome() {
+        return "Sequencial (Memoria compacta 4 bits)";
+    }
+
+    // monta a estrada
+    @Override
+    public void inicializar(Parametros parametros) {
+        if (parametros.vMax > EstradaCompacta.VELOCIDADE_MAX) {
+            throw new IllegalStateException("V_MAX " + parametros.vMax + " nao cabe em 4 bits");
+        }
+
+        this.parametros = parametros;
+        this.estradaAtual = new EstradaCompacta(parametros.tamEstrada);
+        this.proximaEstrada = new EstradaCompacta(parametros.tamEstrada);
+        Aleatorio.sortearVeiculos(parametros, (pos, vel) -> estradaAtual.set(pos, vel));
+    }
+
+    // roda a simulacao
+    @Override
+    public void executar() {
+        // copia os parametros pra variaveis locais fora do loop
+        final int tamEstrada = parametros.tamEstrada;
+        final int vMax = parametros.vMax;
+        final double prob = parametros.probabilidade;
+        final long semente = parametros.semente;
+
+        // a busca do proximo carro so precisa ir ate V_MAX + 1 celulas, depois disso o carro nao e limitado
+        final int limite = Math.min(vMax + 1, tamEstrada - 1);
+
+        final IObservador obs = observador;
+        final IGravador grav = gravador;
+        final boolean medir = obs != null;
+
+        for (int step = 0; step < parametros.steps; step++) {
+            long[] atual = estradaAtual.getPalavras();
+            if (medir) parcial.zerar();
+
+            // com 16 celulas por palavra limpar tudo custa L/16 escritas, menos que anotar as celulas sujas
+            proximaEstrada.limpar();
+
+            for (int w = 0; w < atual.length; w++) {
+                long palavra = atual[w];
+
+                // pula 16 celulas vazias de uma vez
+                if (palavra == 0) continue;
+
+                int base = w * EstradaCompacta.CELULAS_POR_PALAVRA;
+                for (int c = 0; c < EstradaCompacta.CELULAS_POR_PALAVRA; c++) {
+                    int v = EstradaCompacta.celula(palavra, c);
+                    if (v < 0) continue;
+                    int i = base + c;
+
+                    // fase 1: acelera
+                    if (v < vMax) v++;
+
+                    // calcula a distancia pro proximo carro
+                    int dist = 0;
+                    for (int k = 1; k <= limite; k++) {
+                        dist++;
+                        int frente = i + k;
+                        if (frente >= tamEstrada) frente -= tamEstrada;
+                        if (EstradaCompacta.get(atual, frente) >= 0) break;
+                    }
+
+                    // fase 2: desacelera
+                    v = Math.min(v, dist - 1);
+
+                    // fase 3: randomiza
+                    if (Aleatorio.uniforme(semente, step, i) < prob && v > 0) v--;
+
+                    // fase 4: escreve a velocidade na nova celula
+                    int destino = i + v;
+                    if (destino >= tamEstrada) destino -= tamEstrada;
+                    proximaEstrada.set(destino, v);
+
+                    // um carro parado abre engarrafamento se a celula atras dele estava vazia
+                    if (medir) parcial.adicionar(v, EstradaCompacta.get(atual, i == 0 ? tamEstrada - 1 : i - 1) < 0);
+                }
+            }
+
+            // troca as estradas
+            EstradaCompacta temp = estradaAtual;
+            estradaAtual = proximaEstrada;
+            proximaEstrada = temp;
+
+            if (medir) obs.observar(step, parcial.fechar(tamEstrada));
+            if (grav != null) grav.gravarPalavras(step, estradaAtual.getPalavras());
+
+            if (parametros.modoVisual) {
+                SequencialMemoriaByte.imprimirEstrada(estradaAtual.paraBytes(), step);
+                try { Thread.sleep(parametros.delayVisualMs); } catch (Exception e) {}
+            }
+        }
+    }
+
+    @Override
+    public void setObservador(IObservador observador) {
+        this.observador = observador;
+    }
+
+    @Override
+    public void setGravador(IGravador gravador) {
+        this.gravador = gravador;
+    }
+
+    @Override
+    public byte[] getEstrada() {
+        return estradaAtual.paraBytes();
+    }
+}
@@ -0,0 +1,254 @@
+package arquitetura.memoria;
+
+import core.Aleatorio;
+import core.IGravador;
+import core.IObservador;
+import core.ISimulacaoGravavel;
+import core.ISimulacaoObservavel;
+import core.Observaveis;
+import core.Parametros;
+import model.EstradaCompacta;
+
+import java.util.Arrays;
+
+// estrada compactada com 4 bits por celula, cada passo trabalha 16 celulas por vez dentro de um long (swar)
+// acelerar, limitar pela distancia e andar sao operacoes de palavra inteira; so o sorteio e feito carro a carro,
+// montando uma mascara por palavra com o mesmo gerador das outras implementacoes
+// as observaveis tambem saem por palavra: contagem de bits nas mascaras e soma dos nibbles
+public class SequencialMemoriaSwar implements ISimulacaoObservavel, ISimulacaoGravavel {
+    // constantes com um valor repetido em cada nibble
+    private static final long UM = 0x1111111111111111L;
+    private static final long BAIXO = 0x7777777777777777L;
+    private static final long ALTO = 0x8888888888888888L;
+
+    private EstradaCompacta estradaAtual;
+    private EstradaCompacta proximaEstrada;
+    private Parametros parametros;
+
+    // observaveis de cada passo, somadas palavra a palavra
+    private IObservador observador;
+    private final Observaveis.Parcial parcial = new Observaveis.Parcial();
+
+    // estrada de cada passo, o gravador recebe as palavras compactadas e nao precisa compactar de novo
+    private IGravador gravador;
+
+    // nome pra tabela
+    @Override
+    public String getNome() {
+        return "Sequencial SWAR (Memoria compacta)";
+    }
+
+    // monta a estrada
+    @Override
+    public void inicializar(Parametros parametros) {
+        if (parametros.vMax > EstradaCompacta.VELOCIDADE_MAX) {
+            throw new IllegalStateException("V_MAX " + parametros.vMax + " nao cabe em 4 bits");
+        }
+
+        this.parametros = parametros;
+        this.estradaAtual = new EstradaCompacta(parametros.tamEstrada);
+        this.proximaEstrada = new EstradaCompacta(parametros.tamEstrada);
+        Aleatorio.sortearVeiculos(parametros, (pos, vel) -> estradaAtual.set(pos, vel));
+    }
+
+    // roda a simulacao
+    @Override
+    public void executar() {
+        int numPalavras = estradaAtual.getPalavras().length;
+        final IObservador obs = observador;
+        final IGravador grav = gravador;
+
+        for (int step = 0; step < parametros.steps; step++) {
+            parcial.zerar();
+            passo(estradaAtual.getPalavras(), proximaEstrada.getPalavras(), 0, numPalavras, parametros, step,
+                    (obs != null) ? parcial : null);
+            if (obs != null) obs.observar(step, parcial.fechar(parametros.tamEstrada));
+
+            // troca as estradas
+            EstradaCompacta temp = estradaAtual;
+            estradaAtual = proximaEstrada;
+            proximaEstrada = temp;
+
+            if (grav != null) grav.gravarPalavras(step, estradaAtual.getPalavras());
+
+            if (parametros.modoVisual) {
+                SequencialMemoriaByte.imprimirEstrada(estradaAtual.paraBytes(), step);
+                try { Thread.sleep(parametros.delayVisualMs); } catch (Exception e) {}
+            }
+        }
+    }
+
+    // o swar precisa que a volta do anel caia no fim de uma palavra e que v + 2 caiba em 3 bits
+    static boolean swarSuportado(Parametros parametros) {
+        return parametros.tamEstrada % EstradaCompacta.CELULAS_POR_PALAVRA == 0 && parametros.vMax <= 6;
+    }
+
+    // calcula as palavras [wInicio, wFim) da proxima estrada, sem escrever fora delas
+    // os carros que chegam vindos da palavra anterior sao recalculados aqui, entao as threads nao dividem palavra
+    // com parcial, soma nela os carros que saem das palavras do trecho
+    static void passo(long[] atual, long[] proxima, int wInicio, int wFim, Parametros parametros, int step,
+                      Observaveis.Parcial parcial) {
+        if (swarSuportado(parametros)) passoSwar(atual, proxima, wInicio, wFim, parametros, step, parcial);
+        else passoEscalar(atual, proxima, wInicio, wFim, parametros, step, parcial);
+    }
+
+    private static void passoSwar(long[] atual, long[] proxima, int wInicio, int wFim, Parametros parametros, int step,
+                                  Observaveis.Parcial parcial) {
+        // copia os parametros pra variaveis locais fora do loop
+        final int numPalavras = atual.length;
+        final int vMax = parametros.vMax;
+        final double prob = parametros.probabilidade;
+        final long semente = parametros.semente;
+
+        Arrays.fill(proxima, wInicio, wFim, 0L);
+
+        // a palavra antes do trecho so entra pelos carros que passam pra dentro dele
+        for (int s = wInicio - 1; s < wFim; s++) {
+            int w = (s < 0) ? s + numPalavras : s;
+            long n = atual[w];
+
+            // 16 celulas vazias, nada sai daqui
+            if (n == 0) continue;
+
+            int wProx = (w + 1 == numPalavras) ? 0 : w + 1;
+            int base = w * EstradaCompacta.CELULAS_POR_PALAVRA;
+
+            // um 1 em cada nibble ocupado / vazio, a busca do carro da frente olha ate a proxima palavra
+            long ocupadas = naoZero(n);
+            long vazias = ~ocupadas & UM;
+            long vaziasProx = ~naoZero(atual[wProx]) & UM;
+
+            // fase 1: acelera, o nibble e v + 1 entao satura em V_MAX + 1
+            long n1 = n + ocupadas;
+            n1 -= iguais(n1, vMax + 2);
+
+            // celulas vazias seguidas na frente de cada celula, ate V_MAX
+            long livre = UM;
+            long distancia = 0;
+            for (int k = 1; k <= vMax; k++) {
+                livre &= (vazias >>> (4 * k)) | (vaziasProx << (64 - 4 * k));
+                distancia += livre;
+            }
+
+            // fase 2: desacelera (v + 1 <= distancia + 1), nas celulas vazias n1 e 0 e continua 0
+            long n2 = minimo(n1, distancia + UM);
+
+            // fase 3: randomiza, mascara com um 1 nos carros sorteados
+            long sorteio = 0;
+            for (long bits = ocupadas; bits != 0; bits &= bits - 1) {
+                int bit = Long.numberOfTrailingZeros(bits);
+                if (Aleatorio.uniforme(semente, step, base + (bit >>> 2)) < prob) sorteio |= 1L << bit;
+            }
+            long n3 = n2 - (sorteio & maiorIgualDois(n2));
+
+            // observaveis da palavra: o nibble 1 e carro parado e a celula de tras vem da palavra anterior
+            if (parcial != null && s >= wInicio) {
+                long paradas = iguais(n3, 1);
+                long vaziasAnt = ~naoZero(atual[(w == 0) ? numPalavras - 1 : w - 1]) & UM;
+                long atrasVazia = (vazias << 4) | (vaziasAnt >>> 60);
+                int carros = Long.bitCount(ocupadas);
+                parcial.carros += carros;
+                parcial.somaVelocidades += somaNibbles(n3) - carros;
+                parcial.parados += Long.bitCount(paradas);
+                parcial.engarrafamentos += Long.bitCount(paradas & atrasVazia);
+            }
+
+            // fase 4: anda, cada velocidade e um deslocamento da palavra inteira
+            for (int v = 0; v <= vMax; v++) {
+                long carros = iguais(n3, v + 1) * 0xF & n3;
+                if (carros == 0) continue;
+                if (s >= wInicio) proxima[w] |= carros << (4 * v);
+                if (v > 0 && s + 1 < wFim) proxima[wProx] |= carros >>> (64 - 4 * v);
+            }
+        }
+    }
+
+    // mesma divisao por palavras, celula por celula, pra qualquer L e V_MAX
+    private static void passoEscalar(long[] atual, long[] proxima, int wInicio, int wFim, Parametros parametros, int step,
+                                     Observaveis.Parcial parcial) {
+        // copia os parametros pra variaveis locais fora do loop
+        final int tamEstrada = parametros.tamEstrada;
+        final int vMax = parametros.vMax;
+        final double prob = parametros.probabilidade;
+        final long semente = parametros.semente;
+        final int limite = Math.min(vMax + 1, tamEstrada - 1);
+        final int inicio = wInicio * EstradaCompacta.CELULAS_POR_PALAVRA;
+        final int fim = Math.min(wFim * EstradaCompacta.CELULAS_POR_PALAVRA, tamEstrada);
+
+        Arrays.fill(proxima, wInicio, wFim, 0L);
+
+        // os carros ate V_MAX celulas antes do trecho podem entrar nele
+        for (int j = inicio - vMax; j < fim; j++) {
+            int i = Math.floorMod(j, tamEstrada);
+            int v = EstradaCompacta.get(atual, i);
+            if (v < 0) continue;
+
+            // fase 1: acelera
+            if (v < vMax) v++;
+
+            // calcula a distancia pro proximo carro
+            int dist = 0;
+            for (int k = 1; k <= limite; k++) {
+                dist++;
+                if (EstradaCompacta.get(atual, (i + k) % tamEstrada) >= 0) break;
+            }
+
+            // fase 2: desacelera
+            v = Math.min(v, dist - 1);
+
+            // fase 3: randomiza
+            if (Aleatorio.uniforme(semente, step, i) < prob && v > 0) v--;
+
+            if (parcial != null && j >= inicio) {
+                parcial.adicionar(v, EstradaCompacta.get(atual, i == 0 ? tamEstrada - 1 : i - 1) < 0);
+            }
+
+            // fase 4: escreve so se cair dentro do trecho
+            int destino = j + v;
+            if (destino >= inicio && destino < fim) EstradaCompacta.ocupar(proxima, destino, v);
+        }
+    }
+
+    // soma dos 16 nibbles, cada um ate 15
+    private static int somaNibbles(long x) {
+        long bytes = (x & 0x0F0F0F0F0F0F0F0FL) + ((x >>> 4) & 0x0F0F0F0F0F0F0F0FL);
+        return (int) ((bytes * 0x0101010101010101L) >>> 56);
+    }
+
+    // 1 em cada nibble diferente de zero
+    private static long naoZero(long x) {
+        return (((x & BAIXO) + BAIXO | x) & ALTO) >>> 3;
+    }
+
+    // 1 em cada nibble igual a c
+    private static long iguais(long x, int c) {
+        long z = x ^ (c * UM);
+        return (~((z & BAIXO) + BAIXO | z) & ALTO) >>> 3;
+    }
+
+    // menor nibble a nibble, com valores ate 7 o bit de cima nao deixa o emprestimo passar pro vizinho
+    private static long minimo(long a, long b) {
+        long aMaior = ((((a | ALTO) - b) & ALTO) >>> 3) * 0xF;
+        return (b & aMaior) | (a & ~aMaior);
+    }
+
+    // 1 em cada nibble >= 2, ou seja carro com v > 0
+    private static long maiorIgualDois(long x) {
+        return (((x | ALTO) - 2 * UM) & ALTO) >>> 3;
+    }
+
+    @Override
+    public void setObservador(IObservador observador) {
+        this.observador = observador;
+    }
+
+    @Override
+    public void setGravador(IGravador gravador) {
+        this.gravador = gravador;
+    }
+
+    @Override
+    public byte[] getEstrada() {
+        return estradaAtual.paraBytes();
+    }
+}
@@ -0,0 +1,221 @@
+package arquitetura.posicao;
+
+import core.Aleatorio;
+import core.IGravador;
+import core.IObservador;
+import core.ISimulacaoGravavel;
+import core.ISimulacaoObservavel;
+import core.Observaveis;
+import core.Parametros;
+import core.PoolThreads;
+import model.Ocupacao;
+import model.VeiculoPosicao;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// versao com duas estradas de ocupacao: cada thread le a distancia na atual e ja marca a posicao nova na proxima,
+// entao o calculo da velocidade e o movimento viram uma passada so e sobra uma barreira por passo em vez de duas
+public class ParaleloPosicaoBufferDuplo implements ISimulacaoObservavel, ISimulacaoGravavel {
+    // ocupacoes volateis da estrada, trocadas na acao da barreira
+    private volatile Ocupacao atual;
+    private volatile Ocupacao proxima;
+
+    private List<VeiculoPosicao> veiculosList;
+    private Parametros parametros;
+    private IObservador observador;
+
+    // carros de cada passo pro gravador, que monta a estrada na thread dele
+    private IGravador gravador;
+
+    private ExecutorService executor;
+    private final PoolThreads<ExecutorService> pool = PoolThreads.fixo();
+
+    // nome pra tabela
+    @Override
+    public String getNome() {
+        return "Paralelo Buffer Duplo (Posicao)";
+    }
+
+    // monta a estrada
+    @Override
+    public void inicializar(Parametros parametros) {
+        this.parametros = parametros;
+        this.atual = new Ocupacao(parametros.tamEstrada);
+        this.proxima = new Ocupacao(parametros.tamEstrada);
+        this.veiculosList = SequencialPosicao.gerarListaInicial(parametros, this.atual);
+        this.executor = pool.obter(parametros.numThreads);
+    }
+
+    // roda a simulacao
+    @Override
+    public void executar() throws InterruptedException {
+        AtomicInteger contador = new AtomicInteger(0);
+        final Parametros p = parametros;
+        final IObservador obs = observador;
+        final IGravador grav = gravador;
+
+        // prepara a lista das threads
+        List<List<VeiculoPosicao>> chunks = new ArrayList<>();
+        int chunkSize = Math.max(1, (int) Math.ceil((double) veiculosList.size() / p.numThreads));
+        for (int i = 0; i < veiculosList.size(); i += chunkSize) {
+            chunks.add(veiculosList.subList(i, Math.min(i + chunkSize, veiculosList.size())));
+        }
+        if (chunks.isEmpty()) return;
+
+        // observaveis que cada thread somou no passo, juntadas na acao da barreira
+        Observaveis.Parcial[] parciais = new Observaveis.Parcial[chunks.size()];
+        for (int i = 0; i < chunks.size(); i++) parciais[i] = (obs != null) ? new Observaveis.Parcial() : null;
+        Observaveis.Parcial total = new Observaveis.Parcial();
+
+        // posicao do carro logo atras do primeiro de cada pedaco (o ultimo do pedaco anterior), anotada com as
+        // threads paradas porque durante o passo a thread dona dele ja pode ter andado com ele
+        int[] tras = new int[chunks.size()];
+        if (obs != null) anotarTras(chunks, tras);
+
+        // unica barreira do passo: troca as estradas e limpa a que vai receber o proximo passo
+        CyclicBarrier barreira = new CyclicBarrier(chunks.size(), () -> {
+            Ocupacao temp = atual;
+            atual = proxima;
+            proxima = temp;
+
+            // os carros ja andaram, entao o que sobrou na proxima esta em posicao - velocidade
+            proxima.limparAnteriores(veiculosList);
+            int stepAtual = contador.getAndIncrement();
+
+            // as threads estao paradas na barreira, entao da pra ler e zerar as parciais delas
+            if (obs != null) {
+                total.zerar();
+                for (Observaveis.Parcial parcial : parciais) {
+                    total.somar(parcial);
+                    parcial.zerar();
+                }
+                obs.observar(stepAtual, total.fechar(p.tamEstrada));
+                anotarTras(chunks, tras);
+            }
+            if (grav != null) grav.gravarCarros(stepAtual, veiculosList);
+
+            if (p.modoVisual) {
+                SequencialPosicao.imprimirEstrada(veiculosList, p.tamEstrada, stepAtual);
+                try { Thread.sleep(p.delayVisualMs); } catch (InterruptedException e) {}
+            }
+        });
+
+        List<Worker> workers = new ArrayList<>();
+        for (int i = 0; i < chunks.size(); i++) workers.add(new Worker(chunks.get(i), barreira, parciais[i], tras, i));
+
+        // inicia as threads e espera todas terminarem, o pool continua vivo pra proxima execucao
+        executor.invokeAll(workers);
+    }
+
+    // ninguem ultrapassa, entao a lista segue a ordem do anel e o carro de tras e o anterior da lista
+    private static void anotarTras(List<List<VeiculoPosicao>> chunks, int[] tras) {
+        for (int i = 0; i < chunks.size(); i++) {
+            List<VeiculoPosicao> anterior = chunks.get(i == 0 ? chunks.size() - 1 : i - 1);
+            tras[i] = anterior.get(anterior.size() - 1).posicao;
+        }
+    }
+
+    @Override
+    public void setObservador(IObservador observador) {
+        this.observador = observador;
+    }
+
+    @Override
+    public void setGravador(IGravador gravador) {
+        this.gravador = gravador;
+    }
+
+    // fecha o pool que fica vivo entre as execucoes
+    @Override
+    public void encerrar() {
+        pool.encerrar();
+    }
+
+    @Override
+    public byte[] getEstrada() {
+        return SequencialPosicao.paraBytes(veiculosList, parametros.tamEstrada);
+    }
+
+    // classe que implementa a thread
+    private class Worker implements Callable<Void> {
+        private final List<VeiculoPosicao> meusVeiculos;
+        private final CyclicBarrier barreira;
+        private final Observaveis.Parcial parcial;
+        private final int[] tras;
+        private final int id;
+
+        public Worker(List<VeiculoPosicao> meusVeiculos, CyclicBarrier barreira, Observaveis.Parcial parcial, int[] tras, int id) {
+            this.meusVeiculos = meusVeiculos;
+            this.barreira = barreira;
+            this.parcial = parcial;
+            this.tras = tras;
+            this.id = id;
+        }
+
+        // execucao da thread
+        @Override
+        public Void call() throws Exception {
+            // copia os parametros pra variaveis locais fora do loop
+            final int tamEstrada = parametros.tamEstrada;
+            final int vMax = parametros.vMax;
+            final double prob = parametros.probabilidade;
+            final long semente = parametros.semente;
+            final boolean medir = parcial != null;
+
+            for (int step = 0; step < parametros.steps; step++) {
+                // pega referencia das estradas volateis
+                Ocupacao a = atual;
+                Ocupacao p = proxima;
+                int parados = 0, engarrafamentos = 0;
+                long somaVelocidades = 0;
+                int anterior = medir ? tras[id] : 0;
+
+                // calcula a velocidade lendo a estrada atual e marca a posicao nova na proxima
+                for (VeiculoPosicao v : meusVeiculos) {
+                    int vel = v.velocidade;
+                    if (vel < vMax) vel++;
+
+                    // distancia pro proximo carro olhando 64 celulas por vez
+                    int dist = a.distancia(v.posicao, vMax);
+
+                    vel = Math.min(vel, dist - 1);
+                    if (Aleatorio.uniforme(semente, step, v.posicao) < prob) {
+                        vel = Math.max(vel - 1, 0);
+                    }
+                    v.velocidade = vel;
+
+                    // o carro ainda nao andou, a celula de tras estava vazia se o carro de tras nao estava encostado
+                    // sem if nas contas, parar ou nao e quase aleatorio e o desvio errado custaria mais que a soma
+                    if (medir) {
+                        int parado = (vel - 1) >>> 31;
+                        int atras = (anterior + 1 == tamEstrada) ? 0 : anterior + 1;
+                        somaVelocidades += vel;
+                        parados += parado;
+                        engarrafamentos += parado & ((v.posicao != atras) ? 1 : 0);
+                        anterior = v.posicao;
+                    }
+
+                    // ninguem le a proxima nesse passo, mas as pontas dos pedacos podem cair na mesma palavra
+                    v.andar(tamEstrada);
+                    p.marcarAtomico(v.posicao);
+                }
+
+                if (medir) {
+                    parcial.carros += meusVeiculos.size();
+                    parcial.somaVelocidades += somaVelocidades;
+                    parcial.parados += parados;
+                    parcial.engarrafamentos += engarrafamentos;
+                }
+
+                // espera todas as threads e troca as estradas
+                try {
+                    barreira.await();
+                } catch (BrokenBarrierException e) { break; }
+            }
+            return null;
+        }
+    }
+}
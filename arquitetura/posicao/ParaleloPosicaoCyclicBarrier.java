@@ -1,19 +1,33 @@
 package arquitetura.posicao;
 
-import core.Config;
-import core.ISimulacao;
+import core.Aleatorio;
+import core.IGravador;
+import core.IObservador;
+import core.ISimulacaoGravavel;
+import core.ISimulacaoObservavel;
+import core.Observaveis;
+import core.Parametros;
+import core.PoolThreads;
+import model.Ocupacao;
 import model.VeiculoPosicao;
 
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.List;
 import java.util.concurrent.*;
 import java.util.concurrent.atomic.AtomicInteger;
 
-public class ParaleloPosicaoCyclicBarrier implements ISimulacao {
-    private VeiculoPosicao[] estrada;
+public class ParaleloPosicaoCyclicBarrier implements ISimulacaoObservavel, ISimulacaoGravavel {
+    private Ocupacao ocupacao;
     private List<VeiculoPosicao> veiculosList;
+    private Parametros parametros;
     private ExecutorService executor;
+    private final PoolThreads<ExecutorService> pool = PoolThreads.fixo();
+
+    // observaveis de cada passo, cada thread soma as do seu bloco e a barreira do movimento junta
+    private IObservador observador;
+
+    // carros de cada passo pro gravador, que monta a estrada na thread dele
+    private IGravador gravador;
 
     // nome pra tabela
     @Override
@@ -23,43 +37,85 @@ public class ParaleloPosicaoCyclicBarrier implements ISimulacao {
 
     // monta a estrada
     @Override
-    public void inicializar() {
-        this.estrada = new VeiculoPosicao[Config.L];
-        this.veiculosList = SequencialPosicao.gerarListaInicial(this.estrada);
-        this.executor = Executors.newFixedThreadPool(Config.NUM_THREADS);
+    public void inicializar(Parametros parametros) {
+        this.parametros = parametros;
+        this.ocupacao = new Ocupacao(parametros.tamEstrada);
+        this.veiculosList = SequencialPosicao.gerarListaInicial(parametros, this.ocupacao);
+        this.executor = pool.obter(parametros.numThreads);
     }
 
     // roda a simulacao
     @Override
     public void executar() throws InterruptedException {
         AtomicInteger contador = new AtomicInteger(0);
-        // cyclic barrier falando pra limpar a estrada antes do proximo ciclo
-        CyclicBarrier barreiraCalculo = new CyclicBarrier(Config.NUM_THREADS, () -> {
-            Arrays.fill(estrada, null);
+        final Parametros p = parametros;
+        final IObservador obs = observador;
+        final IGravador grav = gravador;
+
+        // observaveis que cada thread somou no passo, uma por bloco de carros
+        int chunkSize = (int) Math.ceil((double) veiculosList.size() / p.numThreads);
+        List<Observaveis.Parcial> parciais = new ArrayList<>();
+        Observaveis.Parcial total = new Observaveis.Parcial();
+        // cyclic barrier falando pra limpar a estrada (so onde estavam os carros) antes do proximo ciclo
+        CyclicBarrier barreiraCalculo = new CyclicBarrier(p.numThreads, () -> {
+            ocupacao.limpar(veiculosList);
         });
 
         // segunda barreira pra sincronizar o fim do movimento antes do proximo ciclo
-        CyclicBarrier barreiraMovimento = new CyclicBarrier(Config.NUM_THREADS, () -> {
-            if (Config.MODO_VISUAL) {
-                int currentStep = contador.getAndIncrement();
-                imprimirEstrada(estrada, currentStep);
-                try { Thread.sleep(Config.DELAY_VISUAL_MS); } catch (InterruptedException e) {}
+        CyclicBarrier barreiraMovimento = new CyclicBarrier(p.numThreads, () -> {
+            int currentStep = contador.getAndIncrement();
+
+            // as threads estao paradas na barreira, entao da pra ler e zerar as parciais delas
+            if (obs != null) {
+                total.zerar();
+                for (Observaveis.Parcial parcial : parciais) {
+                    total.somar(parcial);
+                    parcial.zerar();
+                }
+                obs.observar(currentStep, total.fechar(p.tamEstrada));
+            }
+            if (grav != null) grav.gravarCarros(currentStep, veiculosList);
+
+            if (p.modoVisual) {
+                SequencialPosicao.imprimirEstrada(veiculosList, p.tamEstrada, currentStep);
+                try { Thread.sleep(p.delayVisualMs); } catch (InterruptedException e) {}
             }
         });
 
         // prepara a lista das threads
         List<Worker> workers = new ArrayList<>();
-        int chunkSize = (int) Math.ceil((double) veiculosList.size() / Config.NUM_THREADS);
 
         // distribui a lista de veiculos e atribui uma thread para parte
         for (int i = 0; i < veiculosList.size(); i += chunkSize) {
             List<VeiculoPosicao> subLista = veiculosList.subList(i, Math.min(i + chunkSize, veiculosList.size()));
-            workers.add(new Worker(subLista, barreiraCalculo, barreiraMovimento));
+            Observaveis.Parcial parcial = (obs != null) ? new Observaveis.Parcial() : null;
+            if (parcial != null) parciais.add(parcial);
+            workers.add(new Worker(subLista, barreiraCalculo, barreiraMovimento, parcial));
         }
 
-        // inicia e depois termina as threads
+        // inicia as threads e espera todas terminarem, o pool continua vivo pra proxima execucao
         executor.invokeAll(workers);
-        executor.shutdown();
+    }
+
+    @Override
+    public void setObservador(IObservador observador) {
+        this.observador = observador;
+    }
+
+    @Override
+    public void setGravador(IGravador gravador) {
+        this.gravador = gravador;
+    }
+
+    // fecha o pool que fica vivo entre as execucoes
+    @Override
+    public void encerrar() {
+        pool.encerrar();
+    }
+
+    @Override
+    public byte[] getEstrada() {
+        return SequencialPosicao.paraBytes(veiculosList, parametros.tamEstrada);
     }
 
     // classe que implementa a thread
@@ -67,38 +123,46 @@ public class ParaleloPosicaoCyclicBarrier implements ISimulacao {
         private final List<VeiculoPosicao> meusVeiculos;
         private final CyclicBarrier barreiraCalc;
         private final CyclicBarrier barreiraMov;
+        private final Observaveis.Parcial parcial;
 
-        public Worker(List<VeiculoPosicao> meusVeiculos, CyclicBarrier bCalc, CyclicBarrier bMov) {
+        public Worker(List<VeiculoPosicao> meusVeiculos, CyclicBarrier bCalc, CyclicBarrier bMov,
+                      Observaveis.Parcial parcial) {
             this.meusVeiculos = meusVeiculos;
             this.barreiraCalc = bCalc;
             this.barreiraMov = bMov;
+            this.parcial = parcial;
         }
 
         // execucao da thread
         @Override
         public Void call() throws Exception {
-            // Random local para evitar contenção entre threads
-            ThreadLocalRandom random = ThreadLocalRandom.current();
+            // copia os parametros pra variaveis locais fora do loop
+            final int tamEstrada = parametros.tamEstrada;
+            final int vMax = parametros.vMax;
+            final double prob = parametros.probabilidade;
+            final long semente = parametros.semente;
 
             // loop da Simulação
-            for (int step = 0; step < Config.STEPS; step++) {
+            for (int step = 0; step < parametros.steps; step++) {
                 // calculo da velocidade
                 for (VeiculoPosicao v : meusVeiculos) {
                     int vel = v.velocidade;
-                    if (vel < Config.V_MAX) vel++;
+                    if (vel < vMax) vel++;
 
-                    int dist = 1;
-                    while (dist <= Config.V_MAX) {
-                        int andar = (v.posicao + dist) % Config.L;
-                        if (estrada[andar] != null) break;
-                        dist++;
-                    }
+                    // distancia pro proximo carro olhando 64 celulas por vez
+                    int dist = ocupacao.distancia(v.posicao, vMax);
 
                     vel = Math.min(vel, dist - 1);
-                    if (random.nextDouble() < Config.PROBABILIDADE) {
+                    if (Aleatorio.uniforme(semente, step, v.posicao) < prob) {
                         vel = Math.max(vel - 1, 0);
                     }
                     v.velocidade = vel;
+
+                    // a ocupacao ainda e a do passo anterior, um carro parado abre engarrafamento
+                    // se a celula atras dele estava vazia
+                    if (parcial != null) {
+                        parcial.adicionar(vel, !ocupacao.ocupada(v.posicao == 0 ? tamEstrada - 1 : v.posicao - 1));
+                    }
                 }
 
                 // barreira que limpa a estrada
@@ -109,8 +173,8 @@ public class ParaleloPosicaoCyclicBarrier implements ISimulacao {
 
                 // movimenta os carros
                 for (VeiculoPosicao v : meusVeiculos) {
-                    v.andar(Config.L);
-                    estrada[v.posicao] = v;
+                    v.andar(tamEstrada);
+                    ocupacao.marcarAtomico(v.posicao);
                 }
 
                 // sincroniza os carros
@@ -121,18 +185,4 @@ public class ParaleloPosicaoCyclicBarrier implements ISimulacao {
             return null;
         }
     }
-
-    private void imprimirEstrada(VeiculoPosicao[] estrada, int step) {
-        StringBuilder sb = new StringBuilder();
-        sb.append(String.format("T=%03d [", step));
-        for (VeiculoPosicao v : estrada) {
-            if (v == null) sb.append(".");
-            else sb.append(v.velocidade);
-        }
-        sb.append("]");
-
-        System.out.print("\033[H\033[2J");
-        System.out.flush();
-        System.out.println(sb.toString());
-    }
-}
\ No newline at end of file
+}
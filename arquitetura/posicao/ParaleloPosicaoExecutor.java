@@ -1,21 +1,33 @@
 package arquitetura.posicao;
 
-import core.Config;
-import core.ISimulacao;
+import core.Aleatorio;
+import core.IGravador;
+import core.IObservador;
+import core.ISimulacaoGravavel;
+import core.ISimulacaoObservavel;
+import core.Observaveis;
+import core.Parametros;
+import core.PoolThreads;
+import model.Ocupacao;
 import model.VeiculoPosicao;
 
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.List;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ThreadLocalRandom;
 
-public class ParaleloPosicaoExecutor implements ISimulacao {
-    private VeiculoPosicao[] estrada;
+public class ParaleloPosicaoExecutor implements ISimulacaoObservavel, ISimulacaoGravavel {
+    private Ocupacao ocupacao;
     private List<VeiculoPosicao> veiculosList;
+    private Parametros parametros;
     private ExecutorService executor;
+    private final PoolThreads<ExecutorService> pool = PoolThreads.fixo();
+
+    // observaveis de cada passo, cada tarefa soma as do seu bloco e o laco junta depois do latch
+    private IObservador observador;
+
+    // carros de cada passo pro gravador, que monta a estrada na thread dele
+    private IGravador gravador;
 
     // nome pra tabela
     @Override
@@ -25,18 +37,25 @@ public class ParaleloPosicaoExecutor implements ISimulacao {
 
     // monta a estrada
     @Override
-    public void inicializar() {
-        this.estrada = new VeiculoPosicao[Config.L];
-        this.veiculosList = SequencialPosicao.gerarListaInicial(this.estrada);
-        this.executor = Executors.newFixedThreadPool(Config.NUM_THREADS);
+    public void inicializar(Parametros parametros) {
+        this.parametros = parametros;
+        this.ocupacao = new Ocupacao(parametros.tamEstrada);
+        this.veiculosList = SequencialPosicao.gerarListaInicial(parametros, this.ocupacao);
+        this.executor = pool.obter(parametros.numThreads);
     }
 
     // roda a simulacao
     @Override
     public void executar() throws InterruptedException {
+        // copia os parametros pra variaveis locais fora do loop
+        final int tamEstrada = parametros.tamEstrada;
+        final int vMax = parametros.vMax;
+        final double prob = parametros.probabilidade;
+        final long semente = parametros.semente;
+
         // divide a estrada
         List<List<VeiculoPosicao>> chunks = new ArrayList<>();
-        int chunkSize = (int) Math.ceil((double) veiculosList.size() / Config.NUM_THREADS);
+        int chunkSize = (int) Math.ceil((double) veiculosList.size() / parametros.numThreads);
 
         // divide a lista de veiculos para cada thread
         for (int i = 0; i < veiculosList.size(); i += chunkSize) {
@@ -44,30 +63,42 @@ public class ParaleloPosicaoExecutor implements ISimulacao {
         }
         int numTarefas = chunks.size();
 
-        for (int step = 0; step < Config.STEPS; step++) {
+        // observaveis que cada tarefa somou no passo
+        final IObservador obs = observador;
+        final IGravador grav = gravador;
+        Observaveis.Parcial[] parciais = new Observaveis.Parcial[numTarefas];
+        for (int i = 0; i < numTarefas; i++) parciais[i] = new Observaveis.Parcial();
+        Observaveis.Parcial total = new Observaveis.Parcial();
+
+        for (int step = 0; step < parametros.steps; step++) {
 
             // inicializa as threads para o calculo da velocidade
             CountDownLatch latchCalc = new CountDownLatch(numTarefas);
-            final VeiculoPosicao[] estradaLeitura = estrada;
+            final int stepAtual = step;
+
+            for (int c = 0; c < numTarefas; c++) {
+                final List<VeiculoPosicao> chunk = chunks.get(c);
+                final Observaveis.Parcial parcial = parciais[c];
+                parcial.zerar();
 
-            for (List<VeiculoPosicao> chunk : chunks) {
                 executor.submit(() -> {
                     try {
-                        ThreadLocalRandom rnd = ThreadLocalRandom.current();
                         for (VeiculoPosicao v : chunk) {
                             int vel = v.velocidade;
-                            if (vel < Config.V_MAX) vel++;
+                            if (vel < vMax) vel++;
 
-                            int dist = 1;
-                            while (dist <= Config.V_MAX) {
-                                int andar = (v.posicao + dist) % Config.L;
-                                if (estradaLeitura[andar] != null) break;
-                                dist++;
-                            }
+                            // distancia pro proximo carro olhando 64 celulas por vez
+                            int dist = ocupacao.distancia(v.posicao, vMax);
 
                             vel = Math.min(vel, dist - 1);
-                            if (rnd.nextDouble() < Config.PROBABILIDADE) vel = Math.max(vel - 1, 0);
+                            if (Aleatorio.uniforme(semente, stepAtual, v.posicao) < prob) vel = Math.max(vel - 1, 0);
                             v.velocidade = vel;
+
+                            // a ocupacao ainda e a do passo anterior, um carro parado abre engarrafamento
+                            // se a celula atras dele estava vazia
+                            if (obs != null) {
+                                parcial.adicionar(vel, !ocupacao.ocupada(v.posicao == 0 ? tamEstrada - 1 : v.posicao - 1));
+                            }
                         }
                     } finally {
                         latchCalc.countDown(); // final da tarefa
@@ -76,19 +107,18 @@ public class ParaleloPosicaoExecutor implements ISimulacao {
             }
             latchCalc.await(); // espera o termino de todas as threads
 
-            // limpa a estrada
-            Arrays.fill(estrada, null);
+            // limpa a estrada so onde estavam os carros
+            ocupacao.limpar(veiculosList);
 
             // threads pra atualizar o movimento
             CountDownLatch latchMove = new CountDownLatch(numTarefas);
-            final VeiculoPosicao[] estradaEscrita = estrada;
 
             for (List<VeiculoPosicao> chunk : chunks) {
                 executor.submit(() -> {
                     try {
                         for (VeiculoPosicao v : chunk) {
-                            v.andar(Config.L);
-                            estradaEscrita[v.posicao] = v;
+                            v.andar(tamEstrada);
+                            ocupacao.marcarAtomico(v.posicao);
                         }
                     } finally {
                         latchMove.countDown(); // final da tarefa
@@ -97,28 +127,38 @@ public class ParaleloPosicaoExecutor implements ISimulacao {
             }
             latchMove.await(); // espera o termino de todas as threads, garantindo que todos os carros se moveram
 
-            if (Config.MODO_VISUAL) {
-                imprimirEstrada(estrada, step);
-                try { Thread.sleep(Config.DELAY_VISUAL_MS); } catch (Exception e) {}
+            if (obs != null) {
+                total.zerar();
+                for (Observaveis.Parcial parcial : parciais) total.somar(parcial);
+                obs.observar(step, total.fechar(tamEstrada));
+            }
+            if (grav != null) grav.gravarCarros(step, veiculosList);
+
+            if (parametros.modoVisual) {
+                SequencialPosicao.imprimirEstrada(veiculosList, tamEstrada, step);
+                try { Thread.sleep(parametros.delayVisualMs); } catch (Exception e) {}
             }
         }
-        // encerra as threads
-        executor.shutdown();
     }
 
-    private void imprimirEstrada(VeiculoPosicao[] estrada, int step) {
-        StringBuilder sb = new StringBuilder();
-        sb.append(String.format("T=%03d [", step));
-        for (VeiculoPosicao v : estrada) {
-            if (v == null) sb.append(".");
-            else sb.append(v.velocidade);
-        }
-        sb.append("]");
+    @Override
+    public void setObservador(IObservador observador) {
+        this.observador = observador;
+    }
 
-        // Limpa o console e imprime
-        System.out.print("\033[H\033[2J");
-        System.out.flush();
-        System.out.println(sb.toString());
+    @Override
+    public void setGravador(IGravador gravador) {
+        this.gravador = gravador;
     }
-}
 
+    // fecha o pool que fica vivo entre as execucoes
+    @Override
+    public void encerrar() {
+        pool.encerrar();
+    }
+
+    @Override
+    public byte[] getEstrada() {
+        return SequencialPosicao.paraBytes(veiculosList, parametros.tamEstrada);
+    }
+}
@@ -1,18 +1,31 @@
 package arquitetura.posicao;
 
-import core.Config;
-import core.ISimulacao;
+import core.Aleatorio;
+import core.IGravador;
+import core.IObservador;
+import core.ISimulacaoGravavel;
+import core.ISimulacaoObservavel;
+import core.Observaveis;
+import core.Parametros;
+import core.PoolThreads;
+import model.Ocupacao;
 import model.VeiculoPosicao;
 
-import java.util.Arrays;
 import java.util.List;
 import java.util.concurrent.ForkJoinPool;
-import java.util.concurrent.ThreadLocalRandom;
 
-public class ParaleloPosicaoStream implements ISimulacao {
-    private VeiculoPosicao[] estrada;
+public class ParaleloPosicaoStream implements ISimulacaoObservavel, ISimulacaoGravavel {
+    private Ocupacao ocupacao;
     private List<VeiculoPosicao> veiculosList;
+    private Parametros parametros;
     private ForkJoinPool customPool;
+    private final PoolThreads<ForkJoinPool> pool = PoolThreads.forkJoin();
+
+    // observaveis de cada passo, o stream da velocidade ja devolve a soma dos carros
+    private IObservador observador;
+
+    // carros de cada passo pro gravador, que monta a estrada na thread dele
+    private IGravador gravador;
 
     // nome pra tabela
     @Override
@@ -22,74 +35,89 @@ public class ParaleloPosicaoStream implements ISimulacao {
 
     // monta a estrada
     @Override
-    public void inicializar() {
-        this.estrada = new VeiculoPosicao[Config.L];
-        this.veiculosList = SequencialPosicao.gerarListaInicial(this.estrada);
-        this.customPool = new ForkJoinPool(Config.NUM_THREADS);
+    public void inicializar(Parametros parametros) {
+        this.parametros = parametros;
+        this.ocupacao = new Ocupacao(parametros.tamEstrada);
+        this.veiculosList = SequencialPosicao.gerarListaInicial(parametros, this.ocupacao);
+        this.customPool = pool.obter(parametros.numThreads);
     }
 
     // roda a simulacao
     @Override
     public void executar() throws Exception {
+        // copia os parametros pra variaveis locais fora do loop
+        final Parametros p = parametros;
+        final int tamEstrada = p.tamEstrada;
+        final int vMax = p.vMax;
+        final double prob = p.probabilidade;
+        final long semente = p.semente;
+        final IObservador obs = observador;
+        final IGravador grav = gravador;
+
         // pool de threads executando paralelamente a simulacao
         customPool.submit(() -> {
-            for (int step = 0; step < Config.STEPS; step++) {
+            for (int s = 0; s < p.steps; s++) {
+                final int step = s;
 
-                // referencia de estrada
-                final VeiculoPosicao[] estradaLeitura = estrada;
-
-                // calculo da velocidade paralelamente
-                veiculosList.parallelStream().forEach(v -> {
+                // calculo da velocidade paralelamente, cada pedaco do stream soma as observaveis dos seus carros
+                Observaveis.Parcial total = veiculosList.parallelStream().collect(Observaveis.Parcial::new, (parcial, v) -> {
                     int vel = v.velocidade;
-                    if (vel < Config.V_MAX) vel++;
+                    if (vel < vMax) vel++;
 
-                    int dist = 1;
-                    while (dist <= Config.V_MAX) {
-                        int andar = (v.posicao + dist) % Config.L;
-                        if (estradaLeitura[andar] != null) break;
-                        dist++;
-                    }
+                    // distancia pro proximo carro olhando 64 celulas por vez
+                    int dist = ocupacao.distancia(v.posicao, vMax);
 
                     vel = Math.min(vel, dist - 1);
 
-                    if (ThreadLocalRandom.current().nextDouble() < Config.PROBABILIDADE) {
+                    if (Aleatorio.uniforme(semente, step, v.posicao) < prob) {
                         vel = Math.max(vel - 1, 0);
                     }
                     v.velocidade = vel;
-                });
 
-                // limpa a estrada
-                Arrays.fill(estrada, null);
+                    // a ocupacao ainda e a do passo anterior
+                    if (obs != null) {
+                        parcial.adicionar(vel, !ocupacao.ocupada(v.posicao == 0 ? tamEstrada - 1 : v.posicao - 1));
+                    }
+                }, Observaveis.Parcial::somar);
+
+                // limpa a estrada so onde estavam os carros
+                ocupacao.limpar(veiculosList);
 
                 // movimenta os veiculos paralelamente
                 veiculosList.parallelStream().forEach(v -> {
-                    v.andar(Config.L);
-                    estrada[v.posicao] = v;
+                    v.andar(tamEstrada);
+                    ocupacao.marcarAtomico(v.posicao);
                 });
 
-                if (Config.MODO_VISUAL) {
-                    imprimirEstrada(estrada, step);
-                    try { Thread.sleep(Config.DELAY_VISUAL_MS); } catch (InterruptedException e) {}
+                if (obs != null) obs.observar(step, total.fechar(tamEstrada));
+                if (grav != null) grav.gravarCarros(step, veiculosList);
+
+                if (p.modoVisual) {
+                    SequencialPosicao.imprimirEstrada(veiculosList, tamEstrada, step);
+                    try { Thread.sleep(p.delayVisualMs); } catch (InterruptedException e) {}
                 }
             }
         }).get(); // espera as threads terminarem
+    }
 
-        // termina o pool de threads
-        customPool.shutdown();
+    @Override
+    public void setObservador(IObservador observador) {
+        this.observador = observador;
+    }
+
+    @Override
+    public void setGravador(IGravador gravador) {
+        this.gravador = gravador;
     }
 
-    private void imprimirEstrada(VeiculoPosicao[] estrada, int step) {
-        StringBuilder sb = new StringBuilder();
-        sb.append(String.format("T=%03d [", step));
-        for (VeiculoPosicao v : estrada) {
-            if (v == null) sb.append(".");
-            else sb.append(v.velocidade);
-        }
-        sb.append("]");
-
-        // Limpa o console e imprime
-        System.out.print("\033[H\033[2J");
-        System.out.flush();
-        System.out.println(sb.toString());
+    // fecha o pool que fica vivo entre as execucoes
+    @Override
+    public void encerrar() {
+        pool.encerrar();
+    }
+
+    @Override
+    public byte[] getEstrada() {
+        return SequencialPosicao.paraBytes(veiculosList, parametros.tamEstrada);
     }
-}
\ No newline at end of file
+}
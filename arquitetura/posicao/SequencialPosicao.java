@@ -1,15 +1,30 @@
 package arquitetura.posicao;
 
-import core.Config;
-import core.ISimulacao;
+import core.Aleatorio;
+import core.IGravador;
+import core.IObservador;
+import core.ISimulacaoGravavel;
+import core.ISimulacaoObservavel;
+import core.Observaveis;
+import core.Parametros;
+import model.Ocupacao;
 import model.VeiculoPosicao;
 
-import java.util.*;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 
-public class SequencialPosicao implements ISimulacao {
-    private VeiculoPosicao[] estrada;
+public class SequencialPosicao implements ISimulacaoObservavel, ISimulacaoGravavel {
+    private Ocupacao ocupacao;
     private List<VeiculoPosicao> veiculosList;
-    private Random random;
+    private Parametros parametros;
+
+    // observaveis de cada passo, so somadas quando tem observador
+    private IObservador observador;
+    private final Observaveis.Parcial parcial = new Observaveis.Parcial();
+
+    // carros de cada passo pro gravador, que monta a estrada na thread dele
+    private IGravador gravador;
 
     // nome pra tabela
     @Override
@@ -19,98 +34,151 @@ public class SequencialPosicao implements ISimulacao {
 
     // monta a estrada
     @Override
-    public void inicializar() {
-        this.estrada = new VeiculoPosicao[Config.L];
-        this.veiculosList = new ArrayList<>();
-        this.random = new Random();
-
-        // garante que cada carro tenha uma posicao unica na estrda
-        Set<Integer> posicoes = new HashSet<>();
-        while (posicoes.size() < Config.NUM_VEICULOS) {
-            posicoes.add(random.nextInt(Config.L));
-        }
-
-        // cria os veiculoos
-        for (int pos : posicoes) {
-            VeiculoPosicao v = new VeiculoPosicao(pos, random.nextInt(Config.V_MAX + 1));
-            this.veiculosList.add(v);
-            this.estrada[pos] = v;
-        }
+    public void inicializar(Parametros parametros) {
+        this.parametros = parametros;
+        this.ocupacao = new Ocupacao(parametros.tamEstrada);
+        this.veiculosList = gerarListaInicial(parametros, this.ocupacao);
     }
 
     // roda a simulacao
     @Override
     public void executar() {
-        for (int step = 0; step < Config.STEPS; step++) {
+        // parametros em locais finais, fixos no laco todo
+        final int tamEstrada = parametros.tamEstrada;
+        final int vMax = parametros.vMax;
+        final double prob = parametros.probabilidade;
+        final long semente = parametros.semente;
+        final IObservador obs = observador;
+        final boolean medir = obs != null;
+        final IGravador grav = gravador;
+
+        for (int step = 0; step < parametros.steps; step++) {
+            int parados = 0, engarrafamentos = 0;
+            long somaVelocidades = 0;
+
+            // ninguem ultrapassa, entao a lista segue a ordem do anel e o carro de tras e o anterior da lista
+            int anterior = veiculosList.isEmpty() ? 0 : veiculosList.get(veiculosList.size() - 1).posicao;
 
             // calculo das velocidades
             for (VeiculoPosicao v : veiculosList) {
                 int vel = v.velocidade;
 
                 // fase 1: acelera
-                if (vel < Config.V_MAX) vel++;
+                if (vel < vMax) vel++;
 
                 // calcula a distancia pro proximo carro
-                int dist = 1;
-                while (dist <= Config.V_MAX) {
-                    int andar = (v.posicao + dist) % Config.L;
-                    if (estrada[andar] != null) break;
-                    dist++;
-                }
+                int dist = ocupacao.distancia(v.posicao, vMax);
 
                 // fase 2: desacelera
                 vel = Math.min(vel, dist - 1);
 
                 // fase 3: randomiza
-                if (random.nextDouble() < Config.PROBABILIDADE) {
+                if (Aleatorio.uniforme(semente, step, v.posicao) < prob) {
                     vel = Math.max(vel - 1, 0);
                 }
 
                 // fase 4: define a velocidade
                 v.velocidade = vel;
+
+                // as posicoes ainda sao as do passo anterior, a celula de tras estava vazia
+                // se o carro de tras nao estava encostado
+                // sem if nas contas, parar ou nao e quase aleatorio e o desvio errado custaria mais que a soma
+                if (medir) {
+                    int parado = (vel - 1) >>> 31;
+                    int atras = (anterior + 1 == tamEstrada) ? 0 : anterior + 1;
+                    somaVelocidades += vel;
+                    parados += parado;
+                    engarrafamentos += parado & ((v.posicao != atras) ? 1 : 0);
+                    anterior = v.posicao;
+                }
             }
 
-            // limpa a estrada
-            Arrays.fill(estrada, null);
+            // limpa a estrada so onde estavam os carros
+            ocupacao.limpar(veiculosList);
 
             // move os veiculos e atualiza a estrada
             for (VeiculoPosicao v : veiculosList) {
-                v.andar(Config.L);
-                estrada[v.posicao] = v;
+                v.andar(tamEstrada);
+                ocupacao.marcar(v.posicao);
             }
 
-            if (Config.MODO_VISUAL) {
-                imprimirEstrada(estrada, step);
-                try { Thread.sleep(Config.DELAY_VISUAL_MS); } catch (Exception e) {}
+            if (medir) {
+                parcial.zerar();
+                parcial.carros = veiculosList.size();
+                parcial.somaVelocidades = somaVelocidades;
+                parcial.parados = parados;
+                parcial.engarrafamentos = engarrafamentos;
+                obs.observar(step, parcial.fechar(tamEstrada));
+            }
+            if (grav != null) grav.gravarCarros(step, veiculosList);
+
+            if (parametros.modoVisual) {
+                imprimirEstrada(veiculosList, tamEstrada, step);
+                try { Thread.sleep(parametros.delayVisualMs); } catch (Exception e) {}
             }
         }
     }
 
+    @Override
+    public void setObservador(IObservador observador) {
+        this.observador = observador;
+    }
+
+    @Override
+    public void setGravador(IGravador gravador) {
+        this.gravador = gravador;
+    }
+
     // metodo usado pra inicializacao pra classes paralelas
-    public static List<VeiculoPosicao> gerarListaInicial(VeiculoPosicao[] estradaRef) {
-        List<VeiculoPosicao> lista = new ArrayList<>();
-        Random r = new Random();
-        Set<Integer> posicoes = new HashSet<>();
-        while (posicoes.size() < Config.NUM_VEICULOS) posicoes.add(r.nextInt(Config.L));
-        for (int pos : posicoes) {
-            VeiculoPosicao v = new VeiculoPosicao(pos, r.nextInt(Config.V_MAX + 1));
-            lista.add(v);
-            estradaRef[pos] = v;
-        }
+    public static List<VeiculoPosicao> gerarListaInicial(Parametros p, VeiculoPosicao[] estradaRef) {
+        List<VeiculoPosicao> lista = gerarListaInicial(p);
+        for (VeiculoPosicao v : lista) estradaRef[v.posicao] = v;
+        return lista;
+    }
+
+    // mesma inicializacao, marcando a ocupacao no lugar da estrada de objetos
+    public static List<VeiculoPosicao> gerarListaInicial(Parametros p, Ocupacao ocupacaoRef) {
+        List<VeiculoPosicao> lista = gerarListaInicial(p);
+        for (VeiculoPosicao v : lista) ocupacaoRef.marcar(v.posicao);
         return lista;
     }
 
-    private void imprimirEstrada(VeiculoPosicao[] estrada, int step) {
+    // os carros saem em ordem de posicao, iguais aos da arquitetura memoria com a mesma semente
+    // sozinha serve pra quem so precisa da lista, sem estrada nem ocupacao do tamanho de L
+    public static List<VeiculoPosicao> gerarListaInicial(Parametros p) {
+        List<VeiculoPosicao> lista = new ArrayList<>(p.numVeiculos);
+        Aleatorio.sortearVeiculos(p, (pos, vel) -> lista.add(new VeiculoPosicao(pos, vel)));
+        return lista;
+    }
+
+    @Override
+    public byte[] getEstrada() {
+        return paraBytes(veiculosList, parametros.tamEstrada);
+    }
+
+    // converte a lista de veiculos pra velocidade por celula, -1 nas vazias
+    public static byte[] paraBytes(List<VeiculoPosicao> veiculos, int tamEstrada) {
+        byte[] bytes = new byte[tamEstrada];
+        Arrays.fill(bytes, (byte) -1);
+        for (VeiculoPosicao v : veiculos) bytes[v.posicao] = (byte) v.velocidade;
+        return bytes;
+    }
+
+    // monta a estrada a partir da lista de veiculos e imprime
+    public static void imprimirEstrada(List<VeiculoPosicao> veiculos, int tamEstrada, int step) {
+        char[] celulas = new char[tamEstrada];
+        Arrays.fill(celulas, '.');
+        for (VeiculoPosicao v : veiculos) {
+            celulas[v.posicao] = Character.forDigit(v.velocidade, 36);
+        }
+
         StringBuilder sb = new StringBuilder();
         sb.append(String.format("T=%03d [", step));
-        for (VeiculoPosicao v : estrada) {
-            if (v == null) sb.append(".");
-            else sb.append(v.velocidade);
-        }
+        sb.append(celulas);
         sb.append("]");
 
         System.out.print("\033[H\033[2J");
         System.out.flush();
         System.out.println(sb.toString());
     }
-}
\ No newline at end of file
+}
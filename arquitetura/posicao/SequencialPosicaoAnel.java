@@ -0,0 +1,175 @@
+package arquitetura.posicao;
+
+import core.Aleatorio;
+import core.IGravador;
+import core.IObservador;
+import core.ISimulacaoGravavel;
+import core.ISimulacaoObservavel;
+import core.Observaveis;
+import core.Parametros;
+
+import java.util.Arrays;
+
+public class SequencialPosicaoAnel implements ISimulacaoObservavel, ISimulacaoGravavel {
+    // carros em ordem no anel: o carro i+1 e sempre o proximo a frente do carro i
+    // como ninguem ultrapassa, essa ordem nunca muda e nao precisa de array da estrada
+    private int[] pos;
+    private byte[] vel;
+    private Parametros parametros;
+
+    // observaveis de cada passo, somadas no proprio loop dos carros
+    private IObservador observador;
+    private final Observaveis.Parcial parcial = new Observaveis.Parcial();
+
+    // posicoes e velocidades de cada passo pro gravador, que monta a estrada na thread dele
+    private IGravador gravador;
+
+    // nome pra tabela
+    @Override
+    public String getNome() {
+        return "Sequencial Anel Ordenado (Posicao)";
+    }
+
+    // monta os carros, a inicializacao ja sai em ordem de posicao
+    @Override
+    public void inicializar(Parametros parametros) {
+        this.parametros = parametros;
+        this.pos = new int[parametros.numVeiculos];
+        this.vel = new byte[parametros.numVeiculos];
+
+        int[] n = {0};
+        Aleatorio.sortearVeiculos(parametros, (p, v) -> {
+            pos[n[0]] = p;
+            vel[n[0]] = (byte) v;
+            n[0]++;
+        });
+    }
+
+    // roda a simulacao
+    @Override
+    public void executar() {
+        if (pos.length == 0) return;
+        final IObservador obs = observador;
+        final IGravador grav = gravador;
+
+        for (int step = 0; step < parametros.steps; step++) {
+            // o ultimo carro olha pro primeiro, que vai andar antes dele nesse loop
+            if (obs != null) {
+                parcial.zerar();
+                passo(pos, vel, pos[0], pos[pos.length - 1], parametros, step, parcial);
+                obs.observar(step, parcial.fechar(parametros.tamEstrada));
+            } else {
+                passo(pos, vel, pos[0], parametros, step);
+            }
+            if (grav != null) grav.gravarCarros(step, pos, vel, pos.length);
+
+            if (parametros.modoVisual) {
+                imprimirEstrada(step);
+                try { Thread.sleep(parametros.delayVisualMs); } catch (Exception e) {}
+            }
+        }
+    }
+
+    // anda um passo com um bloco de carros em ordem, proxima e a posicao (antes do passo) do carro
+    // a frente do ultimo do bloco, tambem usado pelos slaves que guardam so um pedaco do anel
+    public static void passo(int[] pos, byte[] vel, int proxima, Parametros parametros, int step) {
+        passo(pos, vel, proxima, 0, parametros, step, null);
+    }
+
+    // mesmo passo somando as observaveis na parcial (se nao for null), anterior e a posicao (antes do passo)
+    // do carro atras do primeiro do bloco, o ultimo do array quando o bloco e o anel inteiro
+    public static void passo(int[] pos, byte[] vel, int proxima, int anterior, Parametros parametros, int step,
+                             Observaveis.Parcial parcial) {
+        // copia os parametros pra variaveis locais fora do loop
+        final int tamEstrada = parametros.tamEstrada;
+        final int vMax = parametros.vMax;
+        final double prob = parametros.probabilidade;
+        final long semente = parametros.semente;
+        final int n = pos.length;
+
+        // somas do bloco em locais, escritas na parcial uma vez no fim
+        // o engarrafamento comeca num carro parado com a celula de tras vazia antes do passo
+        final boolean medir = parcial != null;
+        int parados = 0, engarrafamentos = 0;
+        long somaVelocidades = 0;
+
+        for (int i = 0; i < n; i++) {
+            int p = pos[i];
+            int v = vel[i];
+
+            // fase 1: acelera
+            if (v < vMax) v++;
+
+            // distancia pro carro da frente (sozinho na estrada o carro da a volta inteira)
+            int frente = (i + 1 < n) ? pos[i + 1] : proxima;
+            int dist = frente - p;
+            if (dist <= 0) dist += tamEstrada;
+
+            // fase 2: desacelera
+            v = Math.min(v, dist - 1);
+
+            // fase 3: randomiza
+            if (Aleatorio.uniforme(semente, step, p) < prob) {
+                v = Math.max(v - 1, 0);
+            }
+
+            // sem if nas contas, como no laco da estrada de bytes
+            if (medir) {
+                int parado = (v - 1) >>> 31;
+                somaVelocidades += v;
+                parados += parado;
+                engarrafamentos += parado & ((anterior != (p == 0 ? tamEstrada - 1 : p - 1)) ? 1 : 0);
+                anterior = p;
+            }
+
+            // fase 4: anda
+            vel[i] = (byte) v;
+            p += v;
+            if (p >= tamEstrada) p -= tamEstrada;
+            pos[i] = p;
+        }
+
+        if (medir) {
+            parcial.carros += n;
+            parcial.somaVelocidades += somaVelocidades;
+            parcial.parados += parados;
+            parcial.engarrafamentos += engarrafamentos;
+        }
+    }
+
+    @Override
+    public void setObservador(IObservador observador) {
+        this.observador = observador;
+    }
+
+    @Override
+    public void setGravador(IGravador gravador) {
+        this.gravador = gravador;
+    }
+
+    @Override
+    public byte[] getEstrada() {
+        byte[] bytes = new byte[parametros.tamEstrada];
+        Arrays.fill(bytes, (byte) -1);
+        for (int i = 0; i < pos.length; i++) bytes[pos[i]] = vel[i];
+        return bytes;
+    }
+
+    // so monta a estrada inteira na hora de imprimir
+    private void imprimirEstrada(int step) {
+        char[] celulas = new char[parametros.tamEstrada];
+        Arrays.fill(celulas, '.');
+        for (int i = 0; i < pos.length; i++) {
+            celulas[pos[i]] = Character.forDigit(vel[i], 36);
+        }
+
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("T=%03d [", step));
+        sb.append(celulas);
+        sb.append("]");
+
+        System.out.print("\033[H\033[2J");
+        System.out.flush();
+        System.out.println(sb.toString());
+    }
+}
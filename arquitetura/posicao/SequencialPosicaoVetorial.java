@@ -0,0 +1,167 @@
+package arquitetura.posicao;
+
+import arquitetura.memoria.SequencialMemoriaByte;
+import core.Aleatorio;
+import core.IGravador;
+import core.IObservador;
+import core.ISimulacaoGravavel;
+import core.ISimulacaoObservavel;
+import core.Observaveis;
+import core.Parametros;
+
+import java.util.Arrays;
+
+// carros em ordem no anel em arrays primitivos (pos / vel), processados em blocos de BLOCO carros
+// cada fase e um loop simples sem desvio, do jeito que o jit consegue vetorizar (superword);
+// so o sorteio, que e um hash de 64 bits por carro, fica num loop escalar separado
+// com vetorial = false o mesmo estado anda pelo passo carro a carro do SequencialPosicaoAnel, pra comparar lado a lado
+public class SequencialPosicaoVetorial implements ISimulacaoObservavel, ISimulacaoGravavel {
+    // carros por bloco, os arrays temporarios cabem no cache L1
+    static final int BLOCO = 1024;
+
+    private final boolean vetorial;
+
+    private int[] pos;
+    private byte[] vel;
+    private Parametros parametros;
+
+    // distancia e sorteio de cada carro do bloco
+    private int[] distancia;
+    private int[] sorteio;
+
+    // observaveis de cada passo, somadas nos dois loops antes dos carros andarem
+    private IObservador observador;
+    private final Observaveis.Parcial parcial = new Observaveis.Parcial();
+
+    // posicoes e velocidades de cada passo pro gravador, que monta a estrada na thread dele
+    private IGravador gravador;
+
+    public SequencialPosicaoVetorial(boolean vetorial) {
+        this.vetorial = vetorial;
+    }
+
+    // nome pra tabela
+    @Override
+    public String getNome() {
+        return vetorial ? "Sequencial Vetorial (Posicao)" : "Sequencial Vetorial escalar (Posicao)";
+    }
+
+    // monta os carros, a inicializacao ja sai em ordem de posicao
+    @Override
+    public void inicializar(Parametros parametros) {
+        this.parametros = parametros;
+        this.pos = new int[parametros.numVeiculos];
+        this.vel = new byte[parametros.numVeiculos];
+        this.distancia = new int[BLOCO];
+        this.sorteio = new int[BLOCO];
+
+        int[] n = {0};
+        Aleatorio.sortearVeiculos(parametros, (p, v) -> {
+            pos[n[0]] = p;
+            vel[n[0]] = (byte) v;
+            n[0]++;
+        });
+    }
+
+    // roda a simulacao
+    @Override
+    public void executar() {
+        if (pos.length == 0) return;
+        final IObservador obs = observador;
+        final IGravador grav = gravador;
+
+        for (int step = 0; step < parametros.steps; step++) {
+            parcial.zerar();
+            if (vetorial) passoVetorial(step, obs != null);
+            else SequencialPosicaoAnel.passo(pos, vel, pos[0], pos[pos.length - 1], parametros, step,
+                    (obs != null) ? parcial : null);
+            if (obs != null) obs.observar(step, parcial.fechar(parametros.tamEstrada));
+            if (grav != null) grav.gravarCarros(step, pos, vel, pos.length);
+
+            if (parametros.modoVisual) {
+                SequencialMemoriaByte.imprimirEstrada(getEstrada(), step);
+                try { Thread.sleep(parametros.delayVisualMs); } catch (Exception e) {}
+            }
+        }
+    }
+
+    private void passoVetorial(int step, boolean observar) {
+        // copia os parametros pra variaveis locais fora do loop
+        final int tamEstrada = parametros.tamEstrada;
+        final int vMax = parametros.vMax;
+        final double prob = parametros.probabilidade;
+        final long semente = parametros.semente;
+        final int n = pos.length;
+        final int[] pos = this.pos;
+        final byte[] vel = this.vel;
+        final int[] distancia = this.distancia;
+        final int[] sorteio = this.sorteio;
+
+        // o ultimo carro olha pro primeiro, que anda no primeiro bloco
+        final int posPrimeiro = pos[0];
+
+        // posicao antes do passo do carro de tras do bloco, o do primeiro bloco e o ultimo do anel
+        int anteriorBloco = pos[n - 1];
+
+        for (int a = 0; a < n; a += BLOCO) {
+            final int m = Math.min(BLOCO, n - a);
+
+            // distancia pro carro da frente, o do proximo bloco ainda nao andou
+            for (int j = 0; j < m - 1; j++) distancia[j] = pos[a + j + 1] - pos[a + j];
+            distancia[m - 1] = ((a + m < n) ? pos[a + m] : posPrimeiro) - pos[a + m - 1];
+
+            // da a volta no anel sem desvio: soma L quando a distancia e <= 0
+            for (int j = 0; j < m; j++) {
+                int d = distancia[j];
+                distancia[j] = d + (tamEstrada & ((d - 1) >> 31));
+            }
+
+            // sorteio de cada carro, escalar por causa do hash
+            for (int j = 0; j < m; j++) {
+                sorteio[j] = Aleatorio.uniforme(semente, step, pos[a + j]) < prob ? 1 : 0;
+            }
+
+            // fases 1, 2 e 3: acelera, desacelera e randomiza
+            for (int j = 0; j < m; j++) {
+                int v = Math.min(vel[a + j] + 1, vMax);
+                v = Math.min(v, distancia[j] - 1);
+                vel[a + j] = (byte) Math.max(v - sorteio[j], 0);
+            }
+
+            // observaveis com as velocidades novas e as posicoes ainda de antes do passo
+            if (observar) {
+                int anterior = anteriorBloco;
+                for (int j = 0; j < m; j++) {
+                    int p = pos[a + j];
+                    parcial.adicionar(vel[a + j], anterior != (p == 0 ? tamEstrada - 1 : p - 1));
+                    anterior = p;
+                }
+            }
+            anteriorBloco = pos[a + m - 1];
+
+            // fase 4: anda, tirando L sem desvio quando passa do fim
+            for (int j = 0; j < m; j++) {
+                int p = pos[a + j] + vel[a + j];
+                pos[a + j] = p - (tamEstrada & ~((p - tamEstrada) >> 31));
+            }
+        }
+    }
+
+    @Override
+    public void setObservador(IObservador observador) {
+        this.observador = observador;
+    }
+
+    @Override
+    public void setGravador(IGravador gravador) {
+        this.gravador = gravador;
+    }
+
+    @Override
+    public byte[] getEstrada() {
+        byte[] bytes = new byte[parametros.tamEstrada];
+        Arrays.fill(bytes, (byte) -1);
+        for (int i = 0; i < pos.length; i++) bytes[pos[i]] = vel[i];
+        return bytes;
+    }
+}
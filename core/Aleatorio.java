@@ -0,0 +1,46 @@
+package core;
+
+import java.util.Random;
+
+// gerador aleatorio sem estado, baseado em contador
+// o numero sorteado depende so de (semente, step, celula), entao qualquer implementacao
+// sequencial, paralela ou distribuida tira o mesmo valor pro mesmo carro no mesmo passo
+public final class Aleatorio {
+
+    // constante de ouro do splitmix64
+    private static final long GAMA = 0x9E3779B97F4A7C15L;
+
+    private Aleatorio() {}
+
+    // numero uniforme em [0, 1) pro carro que esta na celula no inicio do passo
+    public static double uniforme(long semente, int step, int celula) {
+        long contador = ((long) step << 32) | (celula & 0xFFFFFFFFL);
+        return (misturar(semente + contador * GAMA) >>> 11) * 0x1.0p-53;
+    }
+
+    // funcao de mistura do splitmix64
+    static long misturar(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    // recebe cada carro sorteado na inicializacao
+    public interface Destino {
+        void veiculo(int posicao, int velocidade);
+    }
+
+    // sorteia numVeiculos posicoes distintas em ordem crescente com a velocidade inicial de cada uma
+    // usa o algoritmo S de knuth: a celula e escolhida com probabilidade (carros que faltam) / (celulas que faltam),
+    // sem guardar conjunto de posicoes, entao funciona pra estradas enormes
+    public static void sortearVeiculos(Parametros p, Destino destino) {
+        Random r = new Random(p.semente);
+        int restantes = p.numVeiculos;
+        for (int pos = 0; pos < p.tamEstrada && restantes > 0; pos++) {
+            if (r.nextInt(p.tamEstrada - pos) < restantes) {
+                destino.veiculo(pos, r.nextInt(p.vMax + 1));
+                restantes--;
+            }
+        }
+    }
+}
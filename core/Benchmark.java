@@ -21,13 +21,34 @@ public class Benchmark {
         System.out.printf("  Threads:     %d\n", Config.NUM_THREADS);
 
         // lista das simulacoes testadas
+        List<ISimulacao> simulacoes = simulacoes();
+
+        // cabecalho ajustado para media
+        System.out.printf("%-35s | %-15s | %-15s\n", "IMPLEMENTAÇÃO", "TEMPO MÉDIO (ms)", "MEMÓRIA PICO (MB)");
+        System.out.println("-------------------------------------------------------------------------");
+
+        // execucoes
+        for (ISimulacao sim : simulacoes) {
+            rodarTeste(sim);
+        }
+
+        System.out.println("-------------------------------------------------------------------------");
+        System.out.println("Benchmark concluído.");
+    }
+
+    // todas as implementacoes de ISimulacao, usada pelos benchmarks
+    public static List<ISimulacao> simulacoes() {
         List<ISimulacao> simulacoes = new ArrayList<>();
 
         // arquitetura posicao
         simulacoes.add(new SequencialPosicao());
         simulacoes.add(new ParaleloPosicaoStream());
+        simulacoes.add(new SequencialPosicaoVetorial(true));
+        simulacoes.add(new SequencialPosicaoVetorial(false));
         simulacoes.add(new ParaleloPosicaoExecutor());
         simulacoes.add(new ParaleloPosicaoCyclicBarrier());
+        simulacoes.add(new ParaleloPosicaoBufferDuplo());
+        simulacoes.add(new SequencialPosicaoAnel());
 
         // arquitetura memoria
         simulacoes.add(new SequencialMemoria());
@@ -35,17 +56,18 @@ public class Benchmark {
         simulacoes.add(new ParaleloMemoriaExecutor());
         simulacoes.add(new ParaleloMemoriaCyclicBarrier());
 
-        // cabecalho ajustado para media
-        System.out.printf("%-35s | %-15s | %-15s\n", "IMPLEMENTAÇÃO", "TEMPO MÉDIO (ms)", "MEMÓRIA PICO (MB)");
-        System.out.println("-------------------------------------------------------------------------");
-
-        // execucoes
-        for (ISimulacao sim : simulacoes) {
-            rodarTeste(sim);
-        }
-
-        System.out.println("-------------------------------------------------------------------------");
-        System.out.println("Benchmark concluído.");
+        // arquitetura memoria com estrada de bytes
+        simulacoes.add(new SequencialMemoriaByte());
+        simulacoes.add(new ParaleloMemoriaByteExecutor());
+        simulacoes.add(new ParaleloMemoriaByteCyclicBarrier());
+        simulacoes.add(new ParaleloMemoriaOnda());
+        simulacoes.add(new ParaleloMemoriaBlocoTemporal());
+
+        // arquitetura memoria com estrada compactada em 4 bits por celula
+        simulacoes.add(new SequencialMemoriaCompacta());
+        simulacoes.add(new SequencialMemoriaSwar());
+        simulacoes.add(new ParaleloMemoriaSwar());
+        return simulacoes;
     }
 
     static void rodarTeste(ISimulacao sim) {
@@ -105,6 +127,9 @@ public class Benchmark {
         } catch (Exception e) {
             System.out.printf("%-35s | FALHOU: %s\n", sim.getNome(), e.getMessage());
             e.printStackTrace();
+        } finally {
+            // o pool ficou vivo entre o warmup e as rodadas, entao as rodadas medem so os passos
+            sim.encerrar();
         }
     }
 
@@ -0,0 +1,65 @@
+package core;
+
+import arquitetura.memoria.ParaleloMemoriaBlocoTemporal;
+import arquitetura.memoria.ParaleloMemoriaByteCyclicBarrier;
+import arquitetura.memoria.SequencialMemoriaByte;
+
+import java.util.List;
+
+// celulas atualizadas por ns do bloqueio temporal contra as versoes que varrem a estrada inteira a cada passo,
+// de estradas que cabem na cache ate estradas muito maiores que ela
+// os passos caem com L pra cada medicao ficar na casa de alguns segundos
+// uso: java -Xmx2g core.BenchmarkBlocoTemporal [L1,L2,...] [threads]
+public class BenchmarkBlocoTemporal {
+
+    // densidade fixa e celulas atualizadas por medicao
+    static final double DENSIDADE = 0.3;
+    static final long CELULAS_POR_MEDICAO = 200_000_000L;
+    static final int MAX_PASSOS = 1000;
+
+    public static void main(String[] args) throws Exception {
+        int[] tamanhos = (args.length > 0) ? BenchmarkPreciso.lerValores(args[0])
+                : new int[]{10_000, 100_000, 1_000_000, 10_000_000, 100_000_000};
+        Config.NUM_THREADS = (args.length > 1) ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+        Config.MODO_VISUAL = false;
+
+        System.out.println("Bloqueio temporal: Threads=" + Config.NUM_THREADS + ", k=" + Config.PASSOS_POR_BLOCO
+                + ", Densidade=" + DENSIDADE);
+        System.out.printf("%-42s | %11s | %6s | %12s | %10s\n", "IMPLEMENTAÇÃO", "L", "PASSOS", "MS", "CEL./NS");
+
+        // aquece o jit com uma estrada pequena, que nao entra na tabela
+        Config.L = 100_000;
+        Config.NUM_VEICULOS = (int) (Config.L * DENSIDADE);
+        Config.STEPS = 200;
+        for (ISimulacao sim : simulacoes()) {
+            sim.inicializar();
+            sim.executar();
+            sim.encerrar();
+        }
+
+        for (int l : tamanhos) {
+            Config.L = l;
+            Config.NUM_VEICULOS = (int) (l * DENSIDADE);
+
+            // multiplo de k, pra todo bloco ter k passos
+            int k = Config.PASSOS_POR_BLOCO;
+            long passos = Math.max(2, CELULAS_POR_MEDICAO / l / k) * k;
+            Config.STEPS = (int) Math.min(MAX_PASSOS, passos);
+
+            for (ISimulacao sim : simulacoes()) {
+                sim.inicializar();
+                long inicio = System.nanoTime();
+                sim.executar();
+                long ns = System.nanoTime() - inicio;
+                sim.encerrar();
+
+                System.out.printf("%-42s | %11d | %6d | %12.1f | %10.3f\n", sim.getNome(), l, Config.STEPS,
+                        ns / 1e6, (double) l * Config.STEPS / ns);
+            }
+        }
+    }
+
+    static List<ISimulacao> simulacoes() {
+        return List.of(new SequencialMemoriaByte(), new ParaleloMemoriaByteCyclicBarrier(), new ParaleloMemoriaBlocoTemporal());
+    }
+}
@@ -0,0 +1,63 @@
+package core;
+
+import java.util.List;
+
+public class BenchmarkDensidade {
+
+    // configuracoes do benchmark
+    static final int RODADAS = 3;
+    static final int TAMANHO_ESTRADA = 100_000;
+    static final int PASSOS = 200;
+
+    // densidades testadas, da mais cheia ate quase vazia
+    static final double[] DENSIDADES = {0.9, 0.7, 0.5, 0.3, 0.2, 0.1, 0.05, 0.01, 0.001};
+
+    public static void main(String[] args) {
+        Config.L = TAMANHO_ESTRADA;
+        Config.STEPS = PASSOS;
+
+        System.out.println("Benchmark por densidade (tempo medio por passo em microssegundos)");
+        System.out.printf("  Estrada (L): %d células | Passos: %d | Threads: %d\n", Config.L, Config.STEPS, Config.NUM_THREADS);
+
+        // lista das simulacoes testadas
+        List<ISimulacao> simulacoes = Benchmark.simulacoes();
+
+        // cabecalho com uma coluna por densidade
+        StringBuilder cabecalho = new StringBuilder(String.format("%-40s", "IMPLEMENTAÇÃO"));
+        for (double d : DENSIDADES) cabecalho.append(String.format(" | %8.2f%%", d * 100));
+        System.out.println(cabecalho);
+        System.out.println("-".repeat(cabecalho.length()));
+
+        for (ISimulacao sim : simulacoes) {
+            StringBuilder linha = new StringBuilder(String.format("%-40s", sim.getNome()));
+            for (double d : DENSIDADES) {
+                Config.NUM_VEICULOS = Math.max(1, (int) (d * Config.L));
+                linha.append(String.format(" | %9.1f", medirPasso(sim)));
+            }
+            System.out.println(linha);
+        }
+    }
+
+    // devolve o tempo medio de um passo em microssegundos
+    static double medirPasso(ISimulacao sim) {
+        try {
+            // warmup do jit
+            sim.inicializar();
+            sim.executar();
+
+            long soma = 0;
+            for (int i = 0; i < RODADAS; i++) {
+                sim.inicializar();
+                long inicio = System.nanoTime();
+                sim.executar();
+                soma += System.nanoTime() - inicio;
+            }
+            return soma / (RODADAS * (double) Config.STEPS) / 1_000.0;
+        } catch (Exception e) {
+            System.out.printf("%-40s | FALHOU: %s\n", sim.getNome(), e.getMessage());
+            return Double.NaN;
+        } finally {
+            sim.encerrar();
+        }
+    }
+}
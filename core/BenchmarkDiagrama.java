@@ -0,0 +1,152 @@
+package core;
+
+import arquitetura.memoria.SequencialMemoriaByte;
+import model.EstradaCompacta;
+import model.VeiculoPosicao;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+
+// custo de gravar o diagrama espaco-tempo: o laco do passo roda sem gravador, com um gravador que so copia
+// e com o GravadorDiagrama, alternando, e cada modo fica com a melhor rodada
+// a copia e o que a thread do passo paga de verdade; a diferenca ate o GravadorDiagrama e a thread que compacta
+// e escreve disputando as mesmas cpus, que some quando sobra um nucleo pra ela
+// o close (o que o gravador ainda tinha pra escrever) e medido a parte
+// uso: java core.BenchmarkDiagrama [L] [passos] [arquivo]
+public class BenchmarkDiagrama {
+
+    // densidade fixa e rodadas de cada modo
+    static final double DENSIDADE = 0.3;
+    static final int RODADAS = 2;
+
+    public static void main(String[] args) throws Exception {
+        Config.L = (args.length > 0) ? Integer.parseInt(args[0]) : 1_000_000;
+        Config.STEPS = (args.length > 1) ? Integer.parseInt(args[1]) : 10_000;
+        Config.NUM_VEICULOS = (int) (Config.L * DENSIDADE);
+        Config.MODO_VISUAL = false;
+        Parametros p = Parametros.atual();
+
+        // aquece o jit nos dois modos com poucos passos, nao entra na tabela
+        Config.STEPS = Math.min(p.steps, 500);
+        Parametros aquecimento = Parametros.atual();
+
+        // sem arquivo escolhido grava num temporario que e apagado no fim
+        boolean temporario = args.length <= 2;
+        Path arquivo = temporario ? Files.createTempFile("diagrama", ".bin") : Paths.get(args[2]);
+        double mb = (GravadorDiagrama.CABECALHO + (double) p.steps * EstradaCompacta.tamanhoEmBytes(p.tamEstrada)) / 1e6;
+
+        System.out.println("Diagrama espaco-tempo: L=" + p.tamEstrada + ", Densidade=" + DENSIDADE + ", Passos=" + p.steps
+                + ", Arquivo=" + arquivo + String.format(" (%.0f MB)", mb));
+
+        ISimulacaoGravavel sim = new SequencialMemoriaByte();
+        try {
+            rodar(sim, aquecimento, null);
+            rodarCopiando(sim, aquecimento);
+            rodar(sim, aquecimento, arquivo);
+
+            double sem = Double.MAX_VALUE, copia = Double.MAX_VALUE, com = Double.MAX_VALUE, close = 0;
+            for (int r = 0; r < RODADAS; r++) {
+                sem = Math.min(sem, rodar(sim, p, null)[0]);
+                copia = Math.min(copia, rodarCopiando(sim, p));
+                double[] tempos = rodar(sim, p, arquivo);
+                if (tempos[0] < com) {
+                    com = tempos[0];
+                    close = tempos[1];
+                }
+            }
+
+            System.out.printf("%-32s | %12s | %10s\n", "MODO", "MS/PASSO", "CUSTO");
+            System.out.printf("%-32s | %12.3f | %10s\n", "Sem gravador", sem / p.steps, "-");
+            System.out.printf("%-32s | %12.3f | %9.1f%%\n", "So copia (thread do passo)", copia / p.steps, 100 * (copia / sem - 1));
+            System.out.printf("%-32s | %12.3f | %9.1f%%\n", "Com GravadorDiagrama", com / p.steps, 100 * (com / sem - 1));
+            System.out.printf("Close: %.1f ms, %.0f MB/s do inicio do executar ate o fim do close\n", close,
+                    mb / ((com + close) / 1000));
+        } finally {
+            sim.encerrar();
+            if (temporario) Files.deleteIfExists(arquivo);
+        }
+    }
+
+    // ms do executar e ms do close do gravador (0 sem gravador)
+    static double[] rodar(ISimulacaoGravavel sim, Parametros p, Path arquivo) throws Exception {
+        GravadorDiagrama gravador = (arquivo != null) ? new GravadorDiagrama(arquivo, p) : null;
+        sim.setGravador(gravador);
+        sim.inicializar(p);
+
+        long inicio = System.nanoTime();
+        sim.executar();
+        double ms = (System.nanoTime() - inicio) / 1e6;
+
+        if (gravador == null) return new double[]{ms, 0};
+        sim.setGravador(null);
+        inicio = System.nanoTime();
+        gravador.close();
+        return new double[]{ms, (System.nanoTime() - inicio) / 1e6};
+    }
+
+    // ms do executar com o gravador que so copia
+    static double rodarCopiando(ISimulacaoGravavel sim, Parametros p) throws Exception {
+        sim.setGravador(new SoCopia());
+        sim.inicializar(p);
+
+        long inicio = System.nanoTime();
+        sim.executar();
+        double ms = (System.nanoTime() - inicio) / 1e6;
+
+        sim.setGravador(null);
+        return ms;
+    }
+
+    // faz na thread do passo so a copia que o GravadorDiagrama faz, pra um de dois buffers alternados,
+    // sem fila, sem compactar e sem arquivo
+    static class SoCopia implements IGravador {
+        private final byte[][] estradas = new byte[2][];
+        private final long[][] palavras = new long[2][];
+        private final int[][] pos = new int[2][];
+        private final byte[][] vel = new byte[2][];
+        private int atual;
+
+        @Override
+        public void gravar(int step, byte[] estrada) {
+            atual ^= 1;
+            if (estradas[atual] == null) estradas[atual] = new byte[estrada.length];
+            System.arraycopy(estrada, 0, estradas[atual], 0, estrada.length);
+        }
+
+        @Override
+        public void gravarPalavras(int step, long[] palavras) {
+            atual ^= 1;
+            if (this.palavras[atual] == null) this.palavras[atual] = new long[palavras.length];
+            System.arraycopy(palavras, 0, this.palavras[atual], 0, palavras.length);
+        }
+
+        @Override
+        public void gravarCarros(int step, int[] pos, byte[] vel, int n) {
+            reservar(n);
+            System.arraycopy(pos, 0, this.pos[atual], 0, n);
+            System.arraycopy(vel, 0, this.vel[atual], 0, n);
+        }
+
+        @Override
+        public void gravarCarros(int step, List<VeiculoPosicao> carros) {
+            int n = carros.size();
+            reservar(n);
+            for (int k = 0; k < n; k++) {
+                VeiculoPosicao v = carros.get(k);
+                pos[atual][k] = v.posicao;
+                vel[atual][k] = (byte) v.velocidade;
+            }
+        }
+
+        // troca de buffer e garante espaco pra n carros
+        private void reservar(int n) {
+            atual ^= 1;
+            if (pos[atual] == null || pos[atual].length < n) {
+                pos[atual] = new int[n];
+                vel[atual] = new byte[n];
+            }
+        }
+    }
+}
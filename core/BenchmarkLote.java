@@ -0,0 +1,110 @@
+package core;
+
+import java.io.File;
+import java.rmi.registry.LocateRegistry;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+// procura o melhor numero de passos por troca (k) dos masters com halo
+// um k maior faz k vezes menos idas e voltas, mas cada slave recalcula k * V_MAX celulas a mais de cada lado
+// os slaves sobem cada um na sua jvm com o Config padrao, como numa rodada de verdade: so o master muda o k
+// com "mesmo" no fim eles rodam em threads do proprio processo, sem a serializacao e o agendamento entre processos
+// uso: java core.BenchmarkLote [slaves] [k1,k2,...] [mesmo]
+public class BenchmarkLote {
+
+    interface Transporte {
+        // conecta, roda Config.STEPS passos e fecha, devolvendo o tempo so da execucao em ns
+        long rodar(int slaves) throws Exception;
+    }
+
+    public static void main(String[] args) throws Exception {
+        int slaves = (args.length > 0) ? Integer.parseInt(args[0]) : 4;
+        int[] ks = (args.length > 1) ? BenchmarkPreciso.lerValores(args[1]) : new int[]{1, 2, 4, 8, 16, 32, 64};
+        boolean mesmoProcesso = args.length > 2 && args[2].equals("mesmo");
+        Config.MODO_VISUAL = false;
+
+        // sobe os slaves uma vez so, eles aceitam uma conexao depois da outra
+        // o registro rmi fica no master e os slaves de outra jvm se registram nele pelo localhost
+        LocateRegistry.createRegistry(1099);
+        List<Process> processos = new ArrayList<>();
+        if (mesmoProcesso) {
+            for (int i = 1; i <= slaves; i++) Validacao.iniciarEmThread(distribuido.memoria.socket.SlaveHalo::main, String.valueOf(i));
+            for (int i = 1; i <= slaves; i++) distribuido.memoria.rmi.SlaveParticao.main(new String[]{"Particao" + i});
+            Thread.sleep(500);
+        } else {
+            for (int i = 1; i <= slaves; i++) {
+                processos.add(iniciarJvm("distribuido.memoria.socket.SlaveHalo", String.valueOf(i)));
+                processos.add(iniciarJvm("distribuido.memoria.rmi.SlaveParticao", "Particao" + i));
+            }
+            // sem retentativa na conexao do master, entao espera as jvms subirem
+            Thread.sleep(3000);
+        }
+
+        System.out.println("Passos por troca: L=" + Config.L + ", Carros=" + Config.NUM_VEICULOS
+                + ", Passos=" + Config.STEPS + ", Slaves=" + slaves + (mesmoProcesso ? " no mesmo processo" : " em jvms proprias")
+                + ", k=" + Arrays.toString(ks));
+
+        medir("Socket Halo (Memoria)", slaves, ks, n -> {
+            distribuido.memoria.socket.MasterHalo master = new distribuido.memoria.socket.MasterHalo(n);
+            master.conectar();
+            long inicio = System.nanoTime();
+            master.executar();
+            long tempo = System.nanoTime() - inicio;
+            master.fechar();
+            return tempo;
+        });
+
+        medir("RMI Particao (Memoria)", slaves, ks, n -> {
+            distribuido.memoria.rmi.MasterParticao master = new distribuido.memoria.rmi.MasterParticao(n);
+            master.conectar();
+            long inicio = System.nanoTime();
+            master.executar();
+            long tempo = System.nanoTime() - inicio;
+            master.encerrar();
+            return tempo;
+        });
+
+        for (Process processo : processos) processo.destroy();
+        System.exit(0);
+    }
+
+    // sobe uma classe com main numa jvm nova com o mesmo classpath, os erros dela aparecem aqui
+    static Process iniciarJvm(String classe, String arg) throws Exception {
+        String java = System.getProperty("java.home") + File.separator + "bin" + File.separator + "java";
+        ProcessBuilder builder = new ProcessBuilder(java, "-cp", System.getProperty("java.class.path"), classe, arg);
+        builder.redirectOutput(ProcessBuilder.Redirect.DISCARD);
+        builder.redirectError(ProcessBuilder.Redirect.INHERIT);
+        return builder.start();
+    }
+
+    static void medir(String nome, int slaves, int[] ks, Transporte transporte) throws Exception {
+        System.out.println();
+        System.out.println(nome);
+        System.out.printf("%6s | %8s | %12s | %10s\n", "K", "HALO", "US/PASSO", "TROCAS");
+
+        int melhorK = -1;
+        double melhor = Double.MAX_VALUE;
+        for (int k : ks) {
+            // o halo precisa caber no segmento do vizinho
+            if (Config.L / slaves < k * Config.V_MAX) {
+                System.out.printf("%6d | %8d | %12s | %10s\n", k, k * Config.V_MAX, "halo > segmento", "-");
+                continue;
+            }
+
+            Config.PASSOS_POR_TROCA = k;
+            transporte.rodar(slaves); // aquecimento
+            double usPorPasso = transporte.rodar(slaves) / 1e3 / Config.STEPS;
+
+            System.out.printf("%6d | %8d | %12.2f | %10d\n", k, k * Config.V_MAX, usPorPasso,
+                    (Config.STEPS + k - 1) / k);
+            if (usPorPasso < melhor) {
+                melhor = usPorPasso;
+                melhorK = k;
+            }
+        }
+        Config.PASSOS_POR_TROCA = 1;
+
+        System.out.printf("Melhor k: %d (%.2f us/passo)\n", melhorK, melhor);
+    }
+}
@@ -0,0 +1,97 @@
+package core;
+
+import arquitetura.memoria.ParaleloMemoriaBlocoTemporal;
+import arquitetura.memoria.ParaleloMemoriaByteCyclicBarrier;
+import arquitetura.memoria.ParaleloMemoriaByteExecutor;
+import arquitetura.memoria.SequencialMemoriaByte;
+import arquitetura.memoria.SequencialMemoriaSwar;
+import arquitetura.posicao.ParaleloPosicaoBufferDuplo;
+import arquitetura.posicao.SequencialPosicao;
+import arquitetura.posicao.SequencialPosicaoAnel;
+
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// custo de medir fluxo, velocidade media, parados e engarrafamentos a cada passo dentro do laco do passo:
+// cada motor roda sem observador e com um observador que so soma o fluxo
+// cada modo roda numa jvm separada, senao o jit compila o laco ja com os dois caminhos e a conta fica injusta
+// uso: java core.BenchmarkObservaveis [L] [threads]
+public class BenchmarkObservaveis {
+
+    // densidade fixa e passos de cada rodada
+    static final double DENSIDADE = 0.3;
+    static final int PASSOS = 500;
+
+    // o observador guarda alguma coisa, pra ninguem jogar as observaveis fora
+    static double somaFluxo;
+
+    public static void main(String[] args) throws Exception {
+        String l = (args.length > 0) ? args[0] : "1000000";
+        String threads = (args.length > 1) ? args[1] : String.valueOf(Runtime.getRuntime().availableProcessors());
+
+        // processo filho: mede um modo so e devolve nome;ns por linha
+        if (args.length > 2) {
+            medir(Integer.parseInt(l), Integer.parseInt(threads), args[2].equals("com"));
+            return;
+        }
+
+        System.out.println("Observaveis por passo: L=" + l + ", Densidade=" + DENSIDADE + ", Threads=" + threads
+                + ", Passos=" + PASSOS);
+        Map<String, Double> sem = rodarFilho(l, threads, "sem");
+        Map<String, Double> com = rodarFilho(l, threads, "com");
+
+        System.out.printf("%-42s | %12s | %12s | %8s\n", "IMPLEMENTAÇÃO", "SEM (NS/P)", "COM (NS/P)", "CUSTO");
+        for (Map.Entry<String, Double> e : sem.entrySet()) {
+            Double nsCom = com.get(e.getKey());
+            if (nsCom == null) continue;
+            System.out.printf("%-42s | %12.0f | %12.0f | %7.1f%%\n", e.getKey(), e.getValue(), nsCom,
+                    100 * (nsCom / e.getValue() - 1));
+        }
+    }
+
+    // roda esta mesma classe em outra jvm com o mesmo classpath
+    static Map<String, Double> rodarFilho(String l, String threads, String modo) throws Exception {
+        String java = ProcessHandle.current().info().command().orElse("java");
+        List<String> comando = new ArrayList<>(List.of(java, "-cp", System.getProperty("java.class.path"),
+                BenchmarkObservaveis.class.getName(), l, threads, modo));
+        Process processo = new ProcessBuilder(comando).redirectErrorStream(true).start();
+
+        Map<String, Double> resultados = new LinkedHashMap<>();
+        try (BufferedReader in = new BufferedReader(new InputStreamReader(processo.getInputStream()))) {
+            String linha;
+            while ((linha = in.readLine()) != null) {
+                String[] partes = linha.split(";");
+                if (partes.length == 2) resultados.put(partes[0], Double.parseDouble(partes[1]));
+                else System.out.println(linha);
+            }
+        }
+        processo.waitFor();
+        return resultados;
+    }
+
+    static void medir(int l, int threads, boolean comObservador) {
+        Config.L = l;
+        Config.NUM_THREADS = threads;
+        Config.NUM_VEICULOS = (int) (l * DENSIDADE);
+        Config.STEPS = PASSOS;
+        Config.MODO_VISUAL = false;
+
+        for (ISimulacaoObservavel sim : simulacoes()) {
+            if (comObservador) sim.setObservador((step, o) -> somaFluxo += o.fluxo());
+            BenchmarkPreciso.Resultado r = BenchmarkPreciso.medir(sim);
+            if (r != null) System.out.println(r.nome + ";" + r.nsPorPasso);
+        }
+    }
+
+    // um motor de cada jeito de somar: laco de bytes, threads juntando na barreira ou no invokeAll,
+    // palavras swar, passos do bloco temporal e anel ordenado
+    static List<ISimulacaoObservavel> simulacoes() {
+        return List.of(new SequencialMemoriaByte(), new ParaleloMemoriaByteExecutor(),
+                new ParaleloMemoriaByteCyclicBarrier(), new SequencialMemoriaSwar(), new ParaleloMemoriaBlocoTemporal(),
+                new SequencialPosicao(), new ParaleloPosicaoBufferDuplo(), new SequencialPosicaoAnel());
+    }
+}
@@ -0,0 +1,38 @@
+package core;
+
+import arquitetura.memoria.ParaleloMemoriaByteCyclicBarrier;
+import arquitetura.memoria.ParaleloMemoriaCyclicBarrier;
+import arquitetura.memoria.ParaleloMemoriaOnda;
+import arquitetura.posicao.ParaleloPosicaoCyclicBarrier;
+
+import java.util.List;
+
+// frente de onda, com cada thread esperando so os dois vizinhos, contra as versoes com barreira global
+// uso: java core.BenchmarkOnda [threads1,threads2,...] [L]
+public class BenchmarkOnda {
+
+    public static void main(String[] args) {
+        int[] threads = (args.length > 0) ? BenchmarkPreciso.lerValores(args[0]) : new int[]{2, 4, 8, 16, 32, 64};
+        if (args.length > 1) {
+            double densidade = (double) Config.NUM_VEICULOS / Config.L;
+            Config.L = Integer.parseInt(args[1]);
+            Config.NUM_VEICULOS = (int) (Config.L * densidade);
+        }
+        Config.MODO_VISUAL = false;
+
+        System.out.println("Frente de onda x barreira: L=" + Config.L + ", Carros=" + Config.NUM_VEICULOS
+                + ", Passos=" + Config.STEPS + ", Processadores=" + Runtime.getRuntime().availableProcessors());
+        System.out.printf("%-42s | %3s | %12s | %10s\n", "IMPLEMENTAÇÃO", "THR", "NS/PASSO", "± DESVIO");
+
+        for (int t : threads) {
+            Config.NUM_THREADS = t;
+            List<ISimulacao> simulacoes = List.of(new ParaleloMemoriaCyclicBarrier(), new ParaleloMemoriaByteCyclicBarrier(),
+                    new ParaleloPosicaoCyclicBarrier(), new ParaleloMemoriaOnda());
+            for (ISimulacao sim : simulacoes) {
+                BenchmarkPreciso.Resultado r = BenchmarkPreciso.medir(sim);
+                if (r == null) continue;
+                System.out.printf("%-42s | %3d | %12.1f | %10.1f\n", r.nome, t, r.nsPorPasso, r.desvioNsPorPasso);
+            }
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package core;
+
+import arquitetura.memoria.SequencialMemoriaByte;
+
+import java.util.Arrays;
+
+// custo do passo da estrada de bytes lendo os parametros de tres jeitos, num nucleo so:
+// dos campos estaticos mutaveis do Config dentro do laco (como os motores faziam antes),
+// dos campos finais do Parametros dentro do laco e de variaveis locais finais copiadas antes do laco
+// o jit nao confia nos campos finais de instancia, entao so a copia pra local vira constante do laco
+// uso: java core.BenchmarkParametros [L] [passos]
+public class BenchmarkParametros {
+
+    // densidade fixa, rodadas descartadas pro jit e rodadas medidas
+    static final double DENSIDADE = 0.3;
+    static final int AQUECIMENTOS = 5;
+    static final int MEDICOES = 10;
+
+    interface Kernel {
+        void passo(byte[] atual, byte[] proxima, Parametros parametros, int step);
+    }
+
+    public static void main(String[] args) {
+        int l = (args.length > 0) ? Integer.parseInt(args[0]) : 1_000_000;
+        int passos = (args.length > 1) ? Integer.parseInt(args[1]) : 100;
+        Config.L = l;
+        Config.NUM_VEICULOS = (int) (l * DENSIDADE);
+        Config.MODO_VISUAL = false;
+        Parametros parametros = Parametros.atual();
+
+        System.out.println("Leitura dos parametros no passo: " + parametros + ", Passos por rodada=" + passos);
+        System.out.printf("%-36s | %12s | %10s\n", "KERNEL", "NS/PASSO", "CEL./NS");
+
+        // a estrada final dos tres tem que ser a mesma
+        byte[] referencia = null;
+        String[] nomes = {"Config estatico no laco", "Parametros final no laco", "Parametros em locais finais"};
+        Kernel[] kernels = {BenchmarkParametros::passoConfig, BenchmarkParametros::passoCampos,
+                BenchmarkParametros::passoLocais};
+
+        for (int k = 0; k < kernels.length; k++) {
+            byte[] estrada = new byte[l];
+            long melhor = Long.MAX_VALUE;
+            for (int r = 0; r < AQUECIMENTOS + MEDICOES; r++) {
+                SequencialMemoriaByte.inicializarEstrada(parametros, estrada);
+                long inicio = System.nanoTime();
+                estrada = rodar(kernels[k], estrada, parametros, passos);
+                long ns = System.nanoTime() - inicio;
+                if (r >= AQUECIMENTOS) melhor = Math.min(melhor, ns);
+            }
+
+            if (referencia == null) referencia = estrada;
+            else if (!Arrays.equals(referencia, estrada)) throw new IllegalStateException(nomes[k] + " divergiu");
+
+            double nsPorPasso = (double) melhor / passos;
+            System.out.printf("%-36s | %12.0f | %10.3f\n", nomes[k], nsPorPasso, l / nsPorPasso);
+        }
+    }
+
+    // roda os passos trocando as duas estradas e devolve a final
+    static byte[] rodar(Kernel kernel, byte[] estrada, Parametros parametros, int passos) {
+        byte[] atual = estrada;
+        byte[] proxima = new byte[estrada.length];
+        for (int step = 0; step < passos; step++) {
+            Arrays.fill(proxima, SequencialMemoriaByte.VAZIO);
+            kernel.passo(atual, proxima, parametros, step);
+            byte[] temp = atual;
+            atual = proxima;
+            proxima = temp;
+        }
+        return atual;
+    }
+
+    // jeito antigo: le os estaticos do Config, que qualquer thread pode mudar, a cada celula
+    static void passoConfig(byte[] atual, byte[] proxima, Parametros parametros, int step) {
+        for (int i = 0; i < Config.L; i++) {
+            int v = atual[i];
+            if (v == SequencialMemoriaByte.VAZIO) continue;
+
+            if (v < Config.V_MAX) v++;
+            int dist = 0;
+            for (int k = 1; k <= Math.min(Config.V_MAX + 1, Config.L - 1); k++) {
+                dist++;
+                if (atual[(i + k) % Config.L] != SequencialMemoriaByte.VAZIO) break;
+            }
+            v = Math.min(v, dist - 1);
+            if (Aleatorio.uniforme(Config.SEMENTE, step, i) < Config.PROBABILIDADE && v > 0) v--;
+            proxima[(i + v) % Config.L] = (byte) v;
+        }
+    }
+
+    // campos finais do objeto lidos a cada celula
+    static void passoCampos(byte[] atual, byte[] proxima, Parametros parametros, int step) {
+        for (int i = 0; i < parametros.tamEstrada; i++) {
+            int v = atual[i];
+            if (v == SequencialMemoriaByte.VAZIO) continue;
+
+            if (v < parametros.vMax) v++;
+            int dist = 0;
+            for (int k = 1; k <= Math.min(parametros.vMax + 1, parametros.tamEstrada - 1); k++) {
+                dist++;
+                if (atual[(i + k) % parametros.tamEstrada] != SequencialMemoriaByte.VAZIO) break;
+            }
+            v = Math.min(v, dist - 1);
+            if (Aleatorio.uniforme(parametros.semente, step, i) < parametros.probabilidade && v > 0) v--;
+            proxima[(i + v) % parametros.tamEstrada] = (byte) v;
+        }
+    }
+
+    // jeito dos motores agora: copia pra locais finais antes do laco
+    static void passoLocais(byte[] atual, byte[] proxima, Parametros parametros, int step) {
+        final int tamEstrada = parametros.tamEstrada;
+        final int vMax = parametros.vMax;
+        final double prob = parametros.probabilidade;
+        final long semente = parametros.semente;
+        final int limite = Math.min(vMax + 1, tamEstrada - 1);
+
+        for (int i = 0; i < tamEstrada; i++) {
+            int v = atual[i];
+            if (v == SequencialMemoriaByte.VAZIO) continue;
+
+            if (v < vMax) v++;
+            int dist = 0;
+            for (int k = 1; k <= limite; k++) {
+                dist++;
+                if (atual[(i + k) % tamEstrada] != SequencialMemoriaByte.VAZIO) break;
+            }
+            v = Math.min(v, dist - 1);
+            if (Aleatorio.uniforme(semente, step, i) < prob && v > 0) v--;
+            proxima[(i + v) % tamEstrada] = (byte) v;
+        }
+    }
+}
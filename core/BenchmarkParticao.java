@@ -0,0 +1,52 @@
+package core;
+
+import arquitetura.memoria.Particionamento;
+import arquitetura.memoria.ParaleloMemoriaCyclicBarrier;
+import arquitetura.memoria.ParaleloMemoriaExecutor;
+
+// tempo ocupado de cada worker dos motores paralelos da memoria com as faixas fixas e com as faixas refeitas pela densidade
+// com o transito congestionado os carros se juntam em engarrafamentos e as faixas fixas ficam com pesos diferentes
+// uso: java core.BenchmarkParticao [densidade] [threads] [rebalancear a cada]
+public class BenchmarkParticao {
+
+    public static void main(String[] args) throws Exception {
+        double densidade = (args.length > 0) ? Double.parseDouble(args[0]) : 0.3;
+        Config.NUM_THREADS = (args.length > 1) ? Integer.parseInt(args[1]) : 4;
+        int rebalancear = (args.length > 2) ? Integer.parseInt(args[2]) : Config.REBALANCEAR_A_CADA;
+        Config.NUM_VEICULOS = (int) (Config.L * densidade);
+        Config.MODO_VISUAL = false;
+
+        System.out.println("Particionamento: L=" + Config.L + ", Carros=" + Config.NUM_VEICULOS
+                + ", Threads=" + Config.NUM_THREADS + ", Passos=" + Config.STEPS);
+
+        for (int n : new int[]{0, rebalancear}) {
+            Config.REBALANCEAR_A_CADA = n;
+            String titulo = (n == 0) ? "faixas fixas" : "rebalanceando a cada " + n + " passos";
+
+            ParaleloMemoriaExecutor executor = new ParaleloMemoriaExecutor();
+            medir(executor, titulo);
+            imprimir(executor, executor.getParticionamento());
+
+            ParaleloMemoriaCyclicBarrier barreira = new ParaleloMemoriaCyclicBarrier();
+            medir(barreira, titulo);
+            imprimir(barreira, barreira.getParticionamento());
+        }
+    }
+
+    // aquece com uma rodada inteira e mede a segunda, que comeca da estrada inicial de novo
+    static void medir(ISimulacao sim, String titulo) throws Exception {
+        sim.inicializar();
+        sim.executar();
+        sim.inicializar();
+
+        long inicio = System.nanoTime();
+        sim.executar();
+        System.out.println();
+        System.out.printf("%s, %s: %.1f ms\n", sim.getNome(), titulo, (System.nanoTime() - inicio) / 1e6);
+        sim.encerrar();
+    }
+
+    static void imprimir(ISimulacao sim, Particionamento particao) {
+        System.out.print(particao.relatorio(sim.getEstrada()));
+    }
+}
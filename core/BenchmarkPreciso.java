@@ -0,0 +1,191 @@
+package core;
+
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+// benchmark de todas as ISimulacao com aquecimento, precisao de nanossegundos e medida de alocacao por thread
+// uso: java core.BenchmarkPreciso L=20000,100000 NUM_VEICULOS=6000 NUM_THREADS=1,8 STEPS=1000 saida=resultado.json
+public class BenchmarkPreciso {
+
+    // configuracoes do benchmark
+    static final int AQUECIMENTOS = 3;  // rodadas descartadas pro jit compilar
+    static final int MEDICOES = 5;      // rodadas medidas
+
+    public static void main(String[] args) throws IOException {
+        // parametros, cada um pode ter varios valores separados por virgula
+        int[] tamanhos = {Config.L};
+        int[] veiculos = {Config.NUM_VEICULOS};
+        int[] threads = {Config.NUM_THREADS};
+        int[] passos = {Config.STEPS};
+        String saida = "benchmark.json";
+
+        for (String arg : args) {
+            String[] chaveValor = arg.split("=", 2);
+            switch (chaveValor[0]) {
+                case "L": tamanhos = lerValores(chaveValor[1]); break;
+                case "NUM_VEICULOS": veiculos = lerValores(chaveValor[1]); break;
+                case "NUM_THREADS": threads = lerValores(chaveValor[1]); break;
+                case "STEPS": passos = lerValores(chaveValor[1]); break;
+                case "saida": saida = chaveValor[1]; break;
+                default: throw new IllegalArgumentException("Parametro desconhecido: " + chaveValor[0]);
+            }
+        }
+
+        System.out.println("Benchmark preciso (" + AQUECIMENTOS + " aquecimentos, " + MEDICOES + " medicoes)");
+        System.out.printf("%-42s | %8s | %6s | %3s | %6s | %12s | %10s | %14s | %12s\n",
+                "IMPLEMENTAÇÃO", "L", "CARROS", "THR", "PASSOS", "NS/PASSO", "± DESVIO", "ATUALIZ./S", "BYTES/PASSO");
+
+        List<Resultado> resultados = new ArrayList<>();
+        for (int l : tamanhos) {
+            for (int n : veiculos) {
+                // nao cabe mais carro que celula
+                if (n > l) continue;
+                for (int t : threads) {
+                    for (int s : passos) {
+                        Config.L = l;
+                        Config.NUM_VEICULOS = n;
+                        Config.NUM_THREADS = t;
+                        Config.STEPS = s;
+
+                        for (ISimulacao sim : Benchmark.simulacoes()) {
+                            Resultado r = medir(sim);
+                            if (r == null) continue;
+                            resultados.add(r);
+                            System.out.printf("%-42s | %8d | %6d | %3d | %6d | %12.1f | %10.1f | %14.0f | %12.0f\n",
+                                    r.nome, r.l, r.veiculos, r.threads, r.passos,
+                                    r.nsPorPasso, r.desvioNsPorPasso, r.atualizacoesPorSegundo, r.bytesPorPasso);
+                        }
+                    }
+                }
+            }
+        }
+
+        escreverJson(resultados, saida);
+        System.out.println("Resultados escritos em " + saida);
+    }
+
+    // roda uma simulacao com os valores atuais do Config
+    static Resultado medir(ISimulacao sim) {
+        com.sun.management.ThreadMXBean threadBean =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+        try {
+            // aquecimento do jit, nao entra na conta
+            for (int i = 0; i < AQUECIMENTOS; i++) {
+                sim.inicializar();
+                sim.executar();
+            }
+
+            double[] nsPorPasso = new double[MEDICOES];
+            long bytesTotal = 0;
+            long gcColetas = 0;
+            long gcTempoMs = 0;
+
+            for (int i = 0; i < MEDICOES; i++) {
+                // a montagem da estrada fica fora da medicao
+                sim.inicializar();
+
+                // soma a alocacao de todas as threads, inclusive as do pool que ja morreram
+                long alocAntes = threadBean.getTotalThreadAllocatedBytes();
+                long[] gcAntes = estatisticasGc();
+                long inicio = System.nanoTime();
+
+                sim.executar();
+
+                long fim = System.nanoTime();
+                long[] gcDepois = estatisticasGc();
+                long alocDepois = threadBean.getTotalThreadAllocatedBytes();
+
+                nsPorPasso[i] = (double) (fim - inicio) / Config.STEPS;
+                bytesTotal += Math.max(0, alocDepois - alocAntes);
+                gcColetas += gcDepois[0] - gcAntes[0];
+                gcTempoMs += gcDepois[1] - gcAntes[1];
+            }
+
+            Resultado r = new Resultado();
+            r.nome = sim.getNome();
+            r.l = Config.L;
+            r.veiculos = Config.NUM_VEICULOS;
+            r.threads = Config.NUM_THREADS;
+            r.passos = Config.STEPS;
+            r.nsPorPasso = Arrays.stream(nsPorPasso).average().orElse(0);
+            r.desvioNsPorPasso = desvio(nsPorPasso, r.nsPorPasso);
+            r.atualizacoesPorSegundo = Config.NUM_VEICULOS * 1e9 / r.nsPorPasso;
+            r.celulasPorNs = Config.L / r.nsPorPasso;
+            r.bytesPorPasso = (double) bytesTotal / (MEDICOES * (double) Config.STEPS);
+            r.mbAlocadosPorSegundo = r.bytesPorPasso * (1e9 / r.nsPorPasso) / (1024 * 1024);
+            r.gcColetas = gcColetas;
+            r.gcTempoMs = gcTempoMs;
+            return r;
+
+        } catch (Exception e) {
+            System.out.printf("%-42s | FALHOU: %s\n", sim.getNome(), e.getMessage());
+            return null;
+        } finally {
+            // o pool ficou vivo entre o aquecimento e as medicoes, entao as medicoes pegam so os passos
+            sim.encerrar();
+        }
+    }
+
+    // quantidade de coletas e tempo total de gc desde o inicio da jvm
+    static long[] estatisticasGc() {
+        long coletas = 0, tempo = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            coletas += Math.max(0, gc.getCollectionCount());
+            tempo += Math.max(0, gc.getCollectionTime());
+        }
+        return new long[]{coletas, tempo};
+    }
+
+    static double desvio(double[] valores, double media) {
+        double soma = 0;
+        for (double v : valores) soma += (v - media) * (v - media);
+        return Math.sqrt(soma / Math.max(1, valores.length - 1));
+    }
+
+    static int[] lerValores(String lista) {
+        return Arrays.stream(lista.split(",")).mapToInt(s -> Integer.parseInt(s.trim())).toArray();
+    }
+
+    // grava os resultados em json pra comparar execucoes diferentes
+    static void escreverJson(List<Resultado> resultados, String arquivo) throws IOException {
+        try (PrintWriter out = new PrintWriter(new FileWriter(arquivo))) {
+            out.println("{");
+            out.printf(Locale.ROOT, "  \"java\": \"%s\",\n", System.getProperty("java.version"));
+            out.printf(Locale.ROOT, "  \"processadores\": %d,\n", Runtime.getRuntime().availableProcessors());
+            out.printf(Locale.ROOT, "  \"aquecimentos\": %d,\n", AQUECIMENTOS);
+            out.printf(Locale.ROOT, "  \"medicoes\": %d,\n", MEDICOES);
+            out.println("  \"resultados\": [");
+            for (int i = 0; i < resultados.size(); i++) {
+                Resultado r = resultados.get(i);
+                out.printf(Locale.ROOT,
+                        "    {\"nome\": \"%s\", \"L\": %d, \"NUM_VEICULOS\": %d, \"NUM_THREADS\": %d, \"STEPS\": %d, "
+                                + "\"nsPorPasso\": %.3f, \"desvioNsPorPasso\": %.3f, \"atualizacoesPorSegundo\": %.1f, "
+                                + "\"celulasPorNs\": %.6f, \"bytesAlocadosPorPasso\": %.1f, \"mbAlocadosPorSegundo\": %.3f, "
+                                + "\"gcColetas\": %d, \"gcTempoMs\": %d}%s\n",
+                        r.nome.replace("\"", "\\\""), r.l, r.veiculos, r.threads, r.passos,
+                        r.nsPorPasso, r.desvioNsPorPasso, r.atualizacoesPorSegundo,
+                        r.celulasPorNs, r.bytesPorPasso, r.mbAlocadosPorSegundo,
+                        r.gcColetas, r.gcTempoMs, i < resultados.size() - 1 ? "," : "");
+            }
+            out.println("  ]");
+            out.println("}");
+        }
+    }
+
+    // uma linha do resultado
+    static class Resultado {
+        String nome;
+        int l, veiculos, threads, passos;
+        double nsPorPasso, desvioNsPorPasso, atualizacoesPorSegundo, celulasPorNs;
+        double bytesPorPasso, mbAlocadosPorSegundo;
+        long gcColetas, gcTempoMs;
+    }
+}
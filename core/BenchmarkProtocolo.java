@@ -0,0 +1,202 @@
+package core;
+
+import arquitetura.memoria.SequencialMemoria;
+import arquitetura.posicao.SequencialPosicao;
+import model.EstradaCompacta;
+import model.VeiculoMemoria;
+import model.VeiculoPosicao;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+// compara, por slave e por passo, a mensagem dos sockets com serializacao java (formato antigo)
+// e com o protocolo binario, e depois roda os masters de socket com slaves locais
+// uso: java core.BenchmarkProtocolo [slaves]
+public class BenchmarkProtocolo {
+
+    // configuracoes do benchmark
+    static final int AQUECIMENTOS = 200;
+    static final int MEDICOES = 500;
+
+    public static void main(String[] args) throws Exception {
+        int slaves = (args.length > 0) ? Integer.parseInt(args[0]) : 2;
+        Config.MODO_VISUAL = false;
+
+        VeiculoMemoria[] estradaMemoria = new VeiculoMemoria[Config.L];
+        SequencialMemoria.inicializarEstrada(Parametros.atual(), estradaMemoria);
+        VeiculoPosicao[] estradaPosicao = new VeiculoPosicao[Config.L];
+        List<VeiculoPosicao> lista = SequencialPosicao.gerarListaInicial(Parametros.atual(), estradaPosicao);
+
+        // primeiro segmento / bloco, do mesmo tamanho que os masters usam
+        int segmento = (int) Math.ceil((double) Config.L / slaves);
+        int bloco = (int) Math.ceil((double) lista.size() / slaves);
+        List<VeiculoPosicao> subLista = new ArrayList<>(lista.subList(0, Math.min(bloco, lista.size())));
+
+        System.out.println("Protocolo dos sockets: L=" + Config.L + ", Carros=" + Config.NUM_VEICULOS + ", Slaves=" + slaves);
+        System.out.println("Estrada inteira compactada (4 bits por celula): " + EstradaCompacta.tamanhoEmBytes(Config.L) + " bytes");
+        System.out.printf("%-32s | %12s | %12s\n", "MENSAGEM (IDA + VOLTA)", "BYTES", "NS");
+
+        medir("Memoria - serializacao java", () -> memoriaJava(estradaMemoria, segmento));
+        medir("Memoria - binario", () -> memoriaBinario(estradaMemoria, segmento));
+        medir("Posicao - serializacao java", () -> posicaoJava(estradaPosicao, subLista));
+        medir("Posicao - binario", () -> posicaoBinario(subLista));
+
+        // ponta a ponta com os slaves no proprio processo
+        System.out.println();
+        System.out.printf("%-32s | %12s\n", "MASTER", "MS/PASSO");
+
+        for (int i = 1; i <= slaves; i++) Validacao.iniciarEmThread(distribuido.memoria.socket.Slave::main, String.valueOf(i));
+        for (int i = 1; i <= slaves; i++) Validacao.iniciarEmThread(distribuido.posicao.socket.Slave::main, String.valueOf(i));
+        Thread.sleep(500);
+
+        distribuido.memoria.socket.Master memoria = new distribuido.memoria.socket.Master(slaves);
+        memoria.conectar();
+        memoria.executar(); // warmup
+        long inicio = System.nanoTime();
+        memoria.executar();
+        System.out.printf("%-32s | %12.3f\n", "Socket (Memoria)", (System.nanoTime() - inicio) / 1e6 / Config.STEPS);
+        memoria.fechar();
+
+        distribuido.posicao.socket.Master posicao = new distribuido.posicao.socket.Master(slaves);
+        posicao.conectar();
+        posicao.executar(); // warmup
+        inicio = System.nanoTime();
+        posicao.executar();
+        System.out.printf("%-32s | %12.3f\n", "Socket (Posicao)", (System.nanoTime() - inicio) / 1e6 / Config.STEPS);
+        posicao.fechar();
+
+        System.exit(0);
+    }
+
+    interface Mensagem {
+        // codifica e decodifica a ida e a volta, devolvendo o total de bytes
+        int trocar() throws Exception;
+    }
+
+    static void medir(String nome, Mensagem mensagem) throws Exception {
+        int bytes = 0;
+        for (int i = 0; i < AQUECIMENTOS; i++) bytes = mensagem.trocar();
+
+        long inicio = System.nanoTime();
+        for (int i = 0; i < MEDICOES; i++) mensagem.trocar();
+        double ns = (double) (System.nanoTime() - inicio) / MEDICOES;
+
+        System.out.printf("%-32s | %12d | %12.0f\n", nome, bytes, ns);
+    }
+
+    // formato antigo: a copia da estrada inteira vai pro slave e um array do tamanho da estrada volta
+    static int memoriaJava(VeiculoMemoria[] estrada, int segmento) throws Exception {
+        ByteArrayOutputStream ida = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(ida)) {
+            out.writeInt(0);
+            out.writeInt(segmento);
+            out.writeLong(Config.SEMENTE);
+            out.writeInt(0);
+            out.writeObject(Arrays.copyOf(estrada, Config.L));
+        }
+        VeiculoMemoria[] recebida;
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(ida.toByteArray()))) {
+            in.readInt(); in.readInt(); in.readLong(); in.readInt();
+            recebida = (VeiculoMemoria[]) in.readObject();
+        }
+
+        VeiculoMemoria[] resposta = new VeiculoMemoria[Config.L];
+        System.arraycopy(recebida, 0, resposta, 0, segmento);
+        ByteArrayOutputStream volta = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(volta)) {
+            out.writeObject(resposta);
+        }
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(volta.toByteArray()))) {
+            in.readObject();
+        }
+        return ida.size() + volta.size();
+    }
+
+    // protocolo binario: o segmento mais V_MAX celulas vai compactado com 4 bits por celula
+    // e volta uma velocidade por carro
+    static int memoriaBinario(VeiculoMemoria[] estrada, int segmento) {
+        int janela = segmento + Config.V_MAX;
+        int bytesJanela = EstradaCompacta.tamanhoEmBytes(janela);
+        ByteBuffer ida = ByteBuffer.allocate(4 + 36 + bytesJanela);
+        ida.putInt(36 + bytesJanela).putInt(0).putInt(segmento).putInt(Config.L).putInt(Config.V_MAX)
+                .putDouble(Config.PROBABILIDADE).putLong(Config.SEMENTE).putInt(0);
+        long palavra = 0;
+        for (int d = 0; d < janela; d++) {
+            VeiculoMemoria v = estrada[d % Config.L];
+            if (v != null) palavra |= EstradaCompacta.nibble(v.velocidade, d);
+            if ((d & 15) == 15) {
+                ida.putLong(palavra);
+                palavra = 0;
+            }
+        }
+        if ((janela & 15) != 0) ida.putLong(palavra);
+
+        ida.flip();
+        ida.position(4 + 36);
+        long[] palavras = new long[bytesJanela / Long.BYTES];
+        for (int w = 0; w < palavras.length; w++) palavras[w] = ida.getLong();
+        ByteBuffer volta = ByteBuffer.allocate(4 + janela);
+        volta.putInt(0);
+        for (int d = 0; d < segmento; d++) {
+            int v = EstradaCompacta.get(palavras, d);
+            if (v >= 0) volta.put((byte) v);
+        }
+        volta.flip();
+        volta.position(4);
+        while (volta.hasRemaining()) volta.get();
+        return ida.limit() + volta.limit();
+    }
+
+    // formato antigo: a copia da estrada e a sublista vao pro slave e a sublista volta
+    @SuppressWarnings("unchecked")
+    static int posicaoJava(VeiculoPosicao[] estrada, List<VeiculoPosicao> subLista) throws Exception {
+        ByteArrayOutputStream ida = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(ida)) {
+            out.writeLong(Config.SEMENTE);
+            out.writeInt(0);
+            out.writeObject(Arrays.copyOf(estrada, Config.L));
+            out.writeObject(new ArrayList<>(subLista));
+        }
+        List<VeiculoPosicao> recebida;
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(ida.toByteArray()))) {
+            in.readLong(); in.readInt();
+            in.readObject();
+            recebida = (List<VeiculoPosicao>) in.readObject();
+        }
+
+        ByteArrayOutputStream volta = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(volta)) {
+            out.writeObject(recebida);
+        }
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(volta.toByteArray()))) {
+            in.readObject();
+        }
+        return ida.size() + volta.size();
+    }
+
+    // protocolo binario: posicoes e velocidades do bloco vao e volta uma velocidade por carro
+    static int posicaoBinario(List<VeiculoPosicao> subLista) {
+        int n = subLista.size();
+        ByteBuffer ida = ByteBuffer.allocate(4 + 36 + 5 * n);
+        ida.putInt(36 + 5 * n).putInt(Config.L).putInt(Config.V_MAX).putDouble(Config.PROBABILIDADE)
+                .putLong(Config.SEMENTE).putInt(0).putInt(n).putInt(0);
+        for (VeiculoPosicao v : subLista) ida.putInt(v.posicao);
+        for (VeiculoPosicao v : subLista) ida.put((byte) v.velocidade);
+
+        ida.flip();
+        ida.position(4 + 36);
+        ByteBuffer volta = ByteBuffer.allocate(4 + n);
+        volta.putInt(n);
+        for (int k = 0; k < n; k++) {
+            ida.getInt(4 + 36 + 4 * k);
+            volta.put(ida.get(4 + 36 + 4 * n + k));
+        }
+        volta.flip();
+        volta.position(4);
+        while (volta.hasRemaining()) volta.get();
+        return ida.limit() + volta.limit();
+    }
+}
@@ -0,0 +1,35 @@
+package core;
+
+import arquitetura.memoria.*;
+
+import java.util.List;
+
+// atualizacoes de celula por nanossegundo num nucleo so: motor swar contra os motores celula a celula
+// uso: java core.BenchmarkSwar [L1,L2,...]
+public class BenchmarkSwar {
+
+    // densidade fixa e passos suficientes pra medicao passar de alguns ms
+    static final double DENSIDADE = 0.3;
+    static final int PASSOS = 200;
+
+    public static void main(String[] args) {
+        int[] tamanhos = (args.length > 0) ? BenchmarkPreciso.lerValores(args[0]) : new int[]{20000, 1_000_000};
+        Config.NUM_THREADS = 1;
+        Config.STEPS = PASSOS;
+        Config.MODO_VISUAL = false;
+
+        System.out.printf("%-40s | %9s | %12s | %10s\n", "IMPLEMENTAÇÃO", "L", "NS/PASSO", "CEL./NS");
+        for (int l : tamanhos) {
+            Config.L = l;
+            Config.NUM_VEICULOS = (int) (l * DENSIDADE);
+
+            List<ISimulacao> simulacoes = List.of(new SequencialMemoria(), new SequencialMemoriaByte(),
+                    new SequencialMemoriaCompacta(), new SequencialMemoriaSwar());
+            for (ISimulacao sim : simulacoes) {
+                BenchmarkPreciso.Resultado r = BenchmarkPreciso.medir(sim);
+                if (r == null) continue;
+                System.out.printf("%-40s | %9d | %12.0f | %10.3f\n", r.nome, r.l, r.nsPorPasso, r.celulasPorNs);
+            }
+        }
+    }
+}
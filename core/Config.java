@@ -1,16 +1,28 @@
 package core;
 
 public class Config {
-    // parametros do projeto inteiro
+    // parametros do projeto inteiro, cada execucao recebe uma copia fixa deles pelo Parametros.atual()
     public static int L = 20000;
     public static int NUM_VEICULOS = 6000;
     public static int V_MAX = 5;
     public static double PROBABILIDADE = 0.3;
     public static int STEPS = 1000;
 
+    // semente da inicializacao e do sorteio de cada passo, mesma semente da a mesma simulacao
+    public static long SEMENTE = 42;
+
     // numero de threads
     public static int NUM_THREADS = 8;
 
+    // a cada quantos passos as divisoes da estrada da memoria sao refeitas pela densidade de carros (0 deixa fixas)
+    public static int REBALANCEAR_A_CADA = 100;
+
+    // passos que os slaves com halo andam sozinhos entre uma troca e outra (o halo fica com k * V_MAX celulas)
+    public static int PASSOS_POR_TROCA = 1;
+
+    // passos que cada ladrilho do bloqueio temporal anda sozinho entre uma sincronizacao e outra (halo de k * V_MAX)
+    public static int PASSOS_POR_BLOCO = 16;
+
     // para a visualizacao
     public static boolean MODO_VISUAL = false;
     public static int DELAY_VISUAL_MS = 200;
@@ -0,0 +1,147 @@
+package core;
+
+import arquitetura.memoria.ParaleloMemoriaByteCyclicBarrier;
+import arquitetura.memoria.SequencialMemoriaByte;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.function.Supplier;
+import java.util.function.ToDoubleFunction;
+
+// roda muitas replicas independentes da mesma estrada, cada uma com a sua semente
+// cada replica inteira roda numa thread so com o motor sequencial, entao nao existe barreira nenhuma,
+// e as threads do ForkJoinPool pegam a proxima replica da fila (ou roubam da fila de outra) quando terminam a sua
+// com estradas pequenas isso escala quase linear com os nucleos, ao contrario de dividir uma estrada so entre as threads
+// cada replica devolve a media no tempo dos passos depois do transiente, e as estatisticas sao entre essas medias
+// uso: java core.Ensemble [replicas] [threads] [L] [carros] [transiente] [medicao]
+public class Ensemble {
+    private final Supplier<ISimulacaoObservavel> motor;
+    private final PoolThreads<ForkJoinPool> pool = PoolThreads.forkJoin();
+
+    // motor sequencial da estrada de bytes
+    public Ensemble() {
+        this(SequencialMemoriaByte::new);
+    }
+
+    // cada replica usa uma instancia nova do motor, que recebe os parametros com uma thread so
+    public Ensemble(Supplier<ISimulacaoObservavel> motor) {
+        this.motor = motor;
+    }
+
+    // roda as replicas com as sementes base.semente, base.semente + 1, ... em base.numThreads threads
+    // e devolve a media de cada uma nos base.steps - transiente ultimos passos, na ordem das replicas
+    public MediaObservaveis[] rodar(Parametros base, int replicas, int transiente) throws Exception {
+        if (transiente < 0 || transiente >= base.steps) {
+            throw new IllegalArgumentException("Transiente de " + transiente + " passos, a replica tem " + base.steps);
+        }
+        Parametros umaThread = base.comThreads(1);
+        List<Callable<MediaObservaveis>> tarefas = new ArrayList<>(replicas);
+        for (int r = 0; r < replicas; r++) {
+            Parametros p = umaThread.comSemente(base.semente + r);
+            tarefas.add(() -> rodarReplica(p, transiente));
+        }
+
+        List<Future<MediaObservaveis>> futures = pool.obter(base.numThreads).invokeAll(tarefas);
+        MediaObservaveis[] resultados = new MediaObservaveis[replicas];
+        for (int r = 0; r < replicas; r++) resultados[r] = futures.get(r).get();
+        return resultados;
+    }
+
+    private MediaObservaveis rodarReplica(Parametros parametros, int transiente) throws Exception {
+        ISimulacaoObservavel sim = motor.get();
+        MediaObservaveis media = new MediaObservaveis(transiente);
+        try {
+            sim.setObservador(media);
+            sim.inicializar(parametros);
+            sim.executar();
+            return media;
+        } finally {
+            sim.encerrar();
+        }
+    }
+
+    // fecha o pool que fica vivo entre as chamadas de rodar
+    public void encerrar() {
+        pool.encerrar();
+    }
+
+    // media e desvio padrao de uma grandeza entre as medias das replicas
+    public static double[] mediaDesvio(MediaObservaveis[] resultados, ToDoubleFunction<MediaObservaveis> grandeza) {
+        double soma = 0, somaQuadrados = 0;
+        for (MediaObservaveis o : resultados) {
+            double x = grandeza.applyAsDouble(o);
+            soma += x;
+            somaQuadrados += x * x;
+        }
+        int n = resultados.length;
+        double media = soma / n;
+        double variancia = (n > 1) ? (somaQuadrados - n * media * media) / (n - 1) : 0;
+        return new double[]{media, Math.sqrt(Math.max(0, variancia))};
+    }
+
+    public static void main(String[] args) throws Exception {
+        int replicas = (args.length > 0) ? Integer.parseInt(args[0]) : 400;
+        int maxThreads = (args.length > 1) ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+        Config.L = (args.length > 2) ? Integer.parseInt(args[2]) : 50;
+        Config.NUM_VEICULOS = (args.length > 3) ? Integer.parseInt(args[3]) : 16;
+        int transiente = (args.length > 4) ? Integer.parseInt(args[4]) : 500;
+        int medicao = (args.length > 5) ? Integer.parseInt(args[5]) : 500;
+        Config.STEPS = transiente + medicao;
+        Config.MODO_VISUAL = false;
+        Parametros base = Parametros.atual().comThreads(maxThreads);
+
+        System.out.println("Ensemble: " + replicas + " replicas de [" + base + "], Transiente=" + transiente
+                + ", Medicao=" + medicao);
+
+        // aquece o jit, nao entra na tabela
+        Ensemble ensemble = new Ensemble();
+        ensemble.rodar(base, replicas, transiente);
+
+        System.out.printf("%-54s | %3s | %10s | %12s | %8s\n", "EXECUCAO", "THR", "MS", "REPLICAS/S", "GANHO");
+        // 1, 2, 4, ... threads e o maximo pedido
+        List<Integer> threads = new ArrayList<>();
+        for (int t = 1; t < maxThreads; t *= 2) threads.add(t);
+        threads.add(maxThreads);
+
+        double base1 = 0;
+        MediaObservaveis[] resultados = null;
+        for (int t : threads) {
+            long inicio = System.nanoTime();
+            resultados = ensemble.rodar(base.comThreads(t), replicas, transiente);
+            double ms = (System.nanoTime() - inicio) / 1e6;
+            if (t == 1) base1 = ms;
+            System.out.printf("%-54s | %3d | %10.1f | %12.0f | %7.2fx\n", "Ensemble (replica inteira por thread)", t, ms,
+                    replicas / ms * 1000, base1 / ms);
+        }
+        ensemble.encerrar();
+
+        // o jeito antigo: uma replica por vez, com a estrada dividida entre as threads, medindo igual
+        ISimulacaoObservavel dividida = new ParaleloMemoriaByteCyclicBarrier();
+        for (int r = 0; r < Math.min(replicas, 10); r++) {
+            dividida.setObservador(new MediaObservaveis(transiente));
+            dividida.inicializar(base.comSemente(base.semente + r));
+            dividida.executar();
+        }
+        long inicio = System.nanoTime();
+        for (int r = 0; r < replicas; r++) {
+            dividida.setObservador(new MediaObservaveis(transiente));
+            dividida.inicializar(base.comSemente(base.semente + r));
+            dividida.executar();
+        }
+        double ms = (System.nanoTime() - inicio) / 1e6;
+        dividida.encerrar();
+        System.out.printf("%-54s | %3d | %10.1f | %12.0f | %7.2fx\n", "Uma por vez (" + dividida.getNome() + ")",
+                maxThreads, ms, replicas / ms * 1000, base1 / ms);
+
+        // estatistica entre as medias das replicas depois do transiente
+        double[] fluxo = mediaDesvio(resultados, MediaObservaveis::fluxo);
+        double[] velocidade = mediaDesvio(resultados, MediaObservaveis::velocidadeMedia);
+        System.out.println();
+        System.out.printf("Densidade: %.3f\n", resultados[0].densidade());
+        System.out.printf("Fluxo: %.4f +- %.4f\n", fluxo[0], fluxo[1]);
+        System.out.printf("Velocidade media: %.4f +- %.4f\n", velocidade[0], velocidade[1]);
+    }
+}
@@ -0,0 +1,300 @@
+package core;
+
+import model.EstradaCompacta;
+import model.VeiculoPosicao;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+// grava o diagrama espaco-tempo (a estrada do fim de cada passo, uma linha por passo) num arquivo mapeado na memoria
+// formato: cabecalho de 32 bytes (MAGICO, VERSAO, L, steps, semente, V_MAX e 4 bytes zerados) e depois steps linhas,
+// cada linha e a estrada compactada em 4 bits por celula, as palavras da EstradaCompacta (L/16 longs big endian)
+// a troca e por dois buffers: a thread da simulacao so copia o estado do passo pra um buffer livre e volta a calcular,
+// enquanto a thread do gravador monta a linha compactada e escreve no arquivo; a simulacao so espera se o disco
+// ficar pra tras. cada motor copia o que ja tem: a estrada de bytes, as palavras compactadas ou so os carros
+// uso: try (GravadorDiagrama g = new GravadorDiagrama(arquivo, p)) { sim.setGravador(g); sim.inicializar(p); sim.executar(); }
+public class GravadorDiagrama implements IGravador, Closeable {
+    public static final int MAGICO = 0x4E615363;
+    public static final int VERSAO = 1;
+    public static final int CABECALHO = 32;
+
+    // cada mapeamento cobre ate 64 MB de linhas inteiras, depois o gravador mapeia o proximo pedaco do arquivo
+    // (um MappedByteBuffer so chega a 2 GB, e 10^4 passos de 10^6 celulas ja dao 5 GB)
+    static final long JANELA = 64L << 20;
+
+    private final Path arquivo;
+    private final Parametros parametros;
+    private final int bytesPorLinha;
+    private final FileChannel canal;
+
+    // os dois buffers da troca: a simulacao pega um livre, copia a estrada e passa cheio pro gravador
+    private final BlockingQueue<Linha> livres = new ArrayBlockingQueue<>(2);
+    private final BlockingQueue<Linha> cheias = new ArrayBlockingQueue<>(2);
+    private final Thread escritor;
+    private boolean fechado;
+
+    // primeiro erro da thread do gravador, devolvido pra simulacao no proximo gravar ou no close
+    private volatile IOException erro;
+
+    // so a thread do gravador mexe daqui pra baixo
+    private final EstradaCompacta compacta;
+    private MappedByteBuffer janela;
+    private int primeiraDaJanela;
+    private int linhasNaJanela;
+    private volatile int linhasGravadas;
+
+    // formato do que foi copiado pra linha
+    private static final int ESTRADA = 0;
+    private static final int PALAVRAS = 1;
+    private static final int CARROS = 2;
+
+    // estado copiado de um passo, cada buffer so e alocado na primeira vez que o motor usa aquele formato
+    private static final class Linha {
+        int tipo;
+        int step;
+        byte[] estrada;
+        long[] palavras;
+        int[] pos;
+        byte[] vel;
+        int carros;
+
+        // garante espaco pra n carros
+        void reservarCarros(int n) {
+            if (pos == null || pos.length < n) {
+                pos = new int[n];
+                vel = new byte[n];
+            }
+            carros = n;
+        }
+    }
+
+    // linha que avisa a thread do gravador que acabou
+    private static final Linha FIM = new Linha();
+
+    // cabecalho de um diagrama gravado
+    public static final class Cabecalho {
+        public final int tamEstrada;
+        public final int steps;
+        public final long semente;
+        public final int vMax;
+
+        Cabecalho(int tamEstrada, int steps, long semente, int vMax) {
+            this.tamEstrada = tamEstrada;
+            this.steps = steps;
+            this.semente = semente;
+            this.vMax = vMax;
+        }
+    }
+
+    // cria (ou sobrescreve) o arquivo com o cabecalho e sobe a thread do gravador
+    public GravadorDiagrama(Path arquivo, Parametros parametros) throws IOException {
+        if (parametros.vMax > EstradaCompacta.VELOCIDADE_MAX) {
+            throw new IllegalArgumentException("V_MAX=" + parametros.vMax + " nao cabe em 4 bits por celula");
+        }
+        this.arquivo = arquivo;
+        this.parametros = parametros;
+        this.bytesPorLinha = EstradaCompacta.tamanhoEmBytes(parametros.tamEstrada);
+        this.compacta = new EstradaCompacta(parametros.tamEstrada);
+        this.canal = FileChannel.open(arquivo, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+
+        ByteBuffer cabecalho = ByteBuffer.allocate(CABECALHO);
+        cabecalho.putInt(MAGICO).putInt(VERSAO).putInt(parametros.tamEstrada).putInt(parametros.steps)
+                .putLong(parametros.semente).putInt(parametros.vMax).putInt(0);
+        cabecalho.flip();
+        while (cabecalho.hasRemaining()) canal.write(cabecalho, cabecalho.position());
+
+        for (int i = 0; i < 2; i++) livres.add(new Linha());
+
+        // daemon, pra quem esquecer o close nao segurar a jvm aberta
+        this.escritor = new Thread(this::escrever, "GravadorDiagrama");
+        this.escritor.setDaemon(true);
+        this.escritor.start();
+    }
+
+    // chamados pelo motor no fim de cada passo: copiam o estado e devolvem, o arquivo fica com a outra thread
+    @Override
+    public void gravar(int step, byte[] estrada) {
+        Linha linha = livre(step);
+        if (linha.estrada == null) linha.estrada = new byte[parametros.tamEstrada];
+        System.arraycopy(estrada, 0, linha.estrada, 0, parametros.tamEstrada);
+        entregar(linha, ESTRADA);
+    }
+
+    @Override
+    public void gravarPalavras(int step, long[] palavras) {
+        Linha linha = livre(step);
+        if (linha.palavras == null) linha.palavras = new long[EstradaCompacta.numPalavras(parametros.tamEstrada)];
+        System.arraycopy(palavras, 0, linha.palavras, 0, linha.palavras.length);
+        entregar(linha, PALAVRAS);
+    }
+
+    @Override
+    public void gravarCarros(int step, int[] pos, byte[] vel, int n) {
+        Linha linha = livre(step);
+        linha.reservarCarros(n);
+        System.arraycopy(pos, 0, linha.pos, 0, n);
+        System.arraycopy(vel, 0, linha.vel, 0, n);
+        entregar(linha, CARROS);
+    }
+
+    @Override
+    public void gravarCarros(int step, List<VeiculoPosicao> carros) {
+        Linha linha = livre(step);
+        int n = carros.size();
+        linha.reservarCarros(n);
+        for (int k = 0; k < n; k++) {
+            VeiculoPosicao v = carros.get(k);
+            linha.pos[k] = v.posicao;
+            linha.vel[k] = (byte) v.velocidade;
+        }
+        entregar(linha, CARROS);
+    }
+
+    // pega um buffer livre, esperando o gravador se os dois estiverem cheios
+    private Linha livre(int step) {
+        if (erro != null) throw new UncheckedIOException(erro);
+        try {
+            Linha linha = livres.take();
+            linha.step = step;
+            return linha;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("gravacao interrompida no passo " + step, e);
+        }
+    }
+
+    private void entregar(Linha linha, int tipo) {
+        linha.tipo = tipo;
+        try {
+            cheias.put(linha);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("gravacao interrompida no passo " + linha.step, e);
+        }
+    }
+
+    // laco da thread do gravador, depois de um erro so devolve os buffers pra simulacao nao travar
+    private void escrever() {
+        try {
+            while (true) {
+                Linha linha = cheias.take();
+                if (linha == FIM) break;
+                try {
+                    if (erro == null) escreverLinha(linha);
+                } catch (IOException e) {
+                    erro = e;
+                } catch (RuntimeException e) {
+                    erro = new IOException(e);
+                }
+                livres.put(linha);
+            }
+        } catch (InterruptedException e) {
+            // ninguem interrompe essa thread, o close manda o FIM
+        }
+    }
+
+    private void escreverLinha(Linha linha) throws IOException {
+        int step = linha.step;
+        if (step < 0 || step >= parametros.steps) {
+            throw new IOException("passo " + step + " fora do diagrama de " + parametros.steps + " passos");
+        }
+        if (janela == null || step < primeiraDaJanela || step >= primeiraDaJanela + linhasNaJanela) mapear(step);
+
+        switch (linha.tipo) {
+            case ESTRADA:
+                compacta.compactar(linha.estrada);
+                break;
+            case PALAVRAS:
+                System.arraycopy(linha.palavras, 0, compacta.getPalavras(), 0, linha.palavras.length);
+                break;
+            default:
+                compacta.limpar();
+                long[] palavras = compacta.getPalavras();
+                for (int k = 0; k < linha.carros; k++) EstradaCompacta.ocupar(palavras, linha.pos[k], linha.vel[k]);
+                break;
+        }
+        janela.position((step - primeiraDaJanela) * bytesPorLinha);
+        compacta.escrever(janela);
+        linhasGravadas++;
+    }
+
+    // mapeia o pedaco do arquivo que comeca na linha do passo, o mapeamento anterior e solto pro gc
+    private void mapear(int step) throws IOException {
+        int linhasPorJanela = (int) Math.max(1, JANELA / bytesPorLinha);
+        primeiraDaJanela = step;
+        linhasNaJanela = Math.min(linhasPorJanela, parametros.steps - step);
+        janela = canal.map(FileChannel.MapMode.READ_WRITE, posicao(step, bytesPorLinha),
+                (long) linhasNaJanela * bytesPorLinha);
+    }
+
+    // espera a thread do gravador escrever o que falta e fecha o arquivo
+    // nao forca o disco: as paginas ja estao no cache do sistema e quem ler o arquivo depois ve tudo
+    @Override
+    public void close() throws IOException {
+        if (fechado) return;
+        fechado = true;
+        try {
+            cheias.put(FIM);
+            escritor.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            janela = null;
+            canal.close();
+        }
+        if (erro != null) throw erro;
+    }
+
+    public Path getArquivo() {
+        return arquivo;
+    }
+
+    // linhas que ja estao no arquivo
+    public int getLinhasGravadas() {
+        return linhasGravadas;
+    }
+
+    // posicao no arquivo da linha de um passo
+    static long posicao(int step, int bytesPorLinha) {
+        return CABECALHO + (long) step * bytesPorLinha;
+    }
+
+    public static Cabecalho lerCabecalho(FileChannel canal) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(CABECALHO);
+        while (buffer.hasRemaining()) {
+            if (canal.read(buffer, buffer.position()) < 0) throw new IOException("cabecalho incompleto");
+        }
+        buffer.flip();
+        if (buffer.getInt() != MAGICO) throw new IOException("arquivo nao e um diagrama espaco-tempo");
+        int versao = buffer.getInt();
+        if (versao != VERSAO) throw new IOException("versao " + versao + " do diagrama, esperada " + VERSAO);
+        int tamEstrada = buffer.getInt();
+        int steps = buffer.getInt();
+        long semente = buffer.getLong();
+        int vMax = buffer.getInt();
+        return new Cabecalho(tamEstrada, steps, semente, vMax);
+    }
+
+    // le a estrada do fim de um passo de um diagrama gravado, -1 nas vazias
+    public static byte[] lerLinha(Path arquivo, int step) throws IOException {
+        try (FileChannel canal = FileChannel.open(arquivo, StandardOpenOption.READ)) {
+            Cabecalho cabecalho = lerCabecalho(canal);
+            if (step < 0 || step >= cabecalho.steps) {
+                throw new IllegalArgumentException("passo " + step + " fora do diagrama de " + cabecalho.steps + " passos");
+            }
+            int bytesPorLinha = EstradaCompacta.tamanhoEmBytes(cabecalho.tamEstrada);
+            ByteBuffer linha = canal.map(FileChannel.MapMode.READ_ONLY, posicao(step, bytesPorLinha), bytesPorLinha);
+            return EstradaCompacta.ler(linha, cabecalho.tamEstrada).paraBytes();
+        }
+    }
+}
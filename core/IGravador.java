@@ -0,0 +1,21 @@
+package core;
+
+import model.VeiculoPosicao;
+
+import java.util.List;
+
+// recebe a estrada inteira logo depois de cada passo, no formato que o motor ja tem na mao
+// o que o motor passa e dele e muda no proximo passo, entao quem quiser guardar tem que copiar antes de voltar
+// nos motores paralelos e chamado por uma thread so, com as outras esperando, entao tem que ser rapido
+public interface IGravador {
+    // velocidade de cada celula, -1 nas vazias
+    void gravar(int step, byte[] estrada);
+
+    // palavras da EstradaCompacta, 4 bits por celula
+    void gravarPalavras(int step, long[] palavras);
+
+    // so os carros: posicao e velocidade dos n primeiros, em qualquer ordem
+    void gravarCarros(int step, int[] pos, byte[] vel, int n);
+
+    void gravarCarros(int step, List<VeiculoPosicao> carros);
+}
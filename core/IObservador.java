@@ -0,0 +1,7 @@
+package core;
+
+// recebe as observaveis da estrada logo depois de cada passo
+// nos motores paralelos e chamado por uma thread so, no ponto em que as somas parciais das threads sao juntadas
+public interface IObservador {
+    void observar(int step, Observaveis observaveis);
+}
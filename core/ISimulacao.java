@@ -1,12 +1,24 @@
 package core;
 
 public interface ISimulacao {
-    // monta a estrada
-    void inicializar();
+    // monta a estrada com os parametros fixos dessa execucao, que o motor guarda ate o proximo inicializar
+    void inicializar(Parametros parametros);
+
+    // monta a estrada com o que esta no Config agora
+    default void inicializar() {
+        inicializar(Parametros.atual());
+    }
 
     // executa a simulacao de trafego
     void executar() throws Exception;
 
     // nome da classe pro benchmark
     String getNome();
+
+    // velocidade de cada celula no fim da simulacao, -1 nas vazias (pra comparar implementacoes)
+    byte[] getEstrada();
+
+    // libera o que fica vivo entre as execucoes, como o pool de threads
+    // pode chamar inicializar e executar quantas vezes quiser antes, cada inicializar monta uma estrada nova
+    default void encerrar() {}
 }
\ No newline at end of file
@@ -0,0 +1,9 @@
+package core;
+
+// simulacao que entrega a estrada de cada passo pra um gravador
+// fica fora do ISimulacao porque a frente de onda nunca tem a estrada inteira num passo so: cada segmento pode estar
+// um passo na frente do vizinho e os dois buffers ja foram sobrescritos quando o ultimo segmento chega no passo
+public interface ISimulacaoGravavel extends ISimulacao {
+    // liga o gravador da estrada de cada passo (null desliga), vale a partir do proximo executar
+    void setGravador(IGravador gravador);
+}
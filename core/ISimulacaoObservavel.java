@@ -0,0 +1,10 @@
+package core;
+
+// simulacao que soma as observaveis dentro do laco do passo e entrega cada passo pra um observador
+// fica fora do ISimulacao porque so da pra entregar um passo quando existe um ponto em que ele terminou na estrada
+// inteira (fim do laco, acao da barreira, volta do invokeAll): a frente de onda nao tem esse ponto, cada segmento
+// pode estar um passo na frente do vizinho ate o fim do executar
+public interface ISimulacaoObservavel extends ISimulacao {
+    // liga o observador das observaveis de cada passo (null desliga), vale a partir do proximo executar
+    void setObservador(IObservador observador);
+}
@@ -0,0 +1,64 @@
+package core;
+
+// media no tempo das observaveis de uma simulacao: recebe cada passo e so soma os que vem depois do transiente
+// uma estrada de um passo so e ruidosa demais com L pequeno, a media de muitos passos e o que entra nas estatisticas
+// cada simulacao precisa da sua, os passos chegam de uma thread por vez
+public final class MediaObservaveis implements IObservador {
+    private final int transiente;
+
+    private int tamEstrada;
+    private int passos;
+    private long carros;
+    private long somaVelocidades;
+    private long parados;
+    private long engarrafamentos;
+
+    // os passos com step menor que o transiente nao entram na media
+    public MediaObservaveis(int transiente) {
+        this.transiente = transiente;
+    }
+
+    @Override
+    public void observar(int step, Observaveis observaveis) {
+        if (step < transiente) return;
+        tamEstrada = observaveis.tamEstrada;
+        passos++;
+        carros += observaveis.carros;
+        somaVelocidades += observaveis.somaVelocidades;
+        parados += observaveis.parados;
+        engarrafamentos += observaveis.engarrafamentos;
+    }
+
+    // passos que entraram na media
+    public int getPassos() {
+        return passos;
+    }
+
+    // carros que passam por uma celula a cada passo, na media dos passos
+    public double fluxo() {
+        return passos == 0 ? 0 : (double) somaVelocidades / ((double) passos * tamEstrada);
+    }
+
+    // celulas por passo de um carro, na media de todos os carros de todos os passos
+    public double velocidadeMedia() {
+        return carros == 0 ? 0 : (double) somaVelocidades / carros;
+    }
+
+    public double densidade() {
+        return passos == 0 ? 0 : (double) carros / ((double) passos * tamEstrada);
+    }
+
+    // carros parados e engarrafamentos por passo
+    public double parados() {
+        return passos == 0 ? 0 : (double) parados / passos;
+    }
+
+    public double engarrafamentos() {
+        return passos == 0 ? 0 : (double) engarrafamentos / passos;
+    }
+
+    @Override
+    public String toString() {
+        return "Passos=" + passos + ", Fluxo=" + fluxo() + ", Parados=" + parados() + ", Engarrafamentos=" + engarrafamentos();
+    }
+}
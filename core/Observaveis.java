@@ -0,0 +1,116 @@
+package core;
+
+import java.io.Serializable;
+
+// grandezas de uma estrada que entram nas estatisticas: fluxo, velocidade media, carros parados e engarrafamentos
+public final class Observaveis implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    public final int tamEstrada;
+    public final int carros;
+    public final long somaVelocidades;
+
+    // carros com velocidade 0 e grupos de carros parados encostados um no outro
+    public final int parados;
+    public final int engarrafamentos;
+
+    public Observaveis(int tamEstrada, int carros, long somaVelocidades, int parados, int engarrafamentos) {
+        this.tamEstrada = tamEstrada;
+        this.carros = carros;
+        this.somaVelocidades = somaVelocidades;
+        this.parados = parados;
+        this.engarrafamentos = engarrafamentos;
+    }
+
+    // le a estrada de bytes (-1 nas vazias) numa passada so
+    // um engarrafamento comeca em cada carro parado que nao tem outro carro parado logo atras
+    public static Observaveis de(byte[] estrada) {
+        Parcial parcial = new Parcial();
+        int tamEstrada = estrada.length;
+        for (int i = 0; i < tamEstrada; i++) {
+            int v = estrada[i];
+            if (v < 0) continue;
+            parcial.carros++;
+            parcial.somaVelocidades += v;
+            if (v == 0) {
+                parcial.parados++;
+                if (estrada[i == 0 ? tamEstrada - 1 : i - 1] != 0) parcial.engarrafamentos++;
+            }
+        }
+        return parcial.fechar(tamEstrada);
+    }
+
+    // carros que passam por uma celula a cada passo, igual a densidade vezes a velocidade media
+    public double fluxo() {
+        return (double) somaVelocidades / tamEstrada;
+    }
+
+    // celulas por passo de um carro, em media
+    public double velocidadeMedia() {
+        return carros == 0 ? 0 : (double) somaVelocidades / carros;
+    }
+
+    public double densidade() {
+        return (double) carros / tamEstrada;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (!(o instanceof Observaveis)) return false;
+        Observaveis outra = (Observaveis) o;
+        return tamEstrada == outra.tamEstrada && carros == outra.carros && somaVelocidades == outra.somaVelocidades
+                && parados == outra.parados && engarrafamentos == outra.engarrafamentos;
+    }
+
+    @Override
+    public int hashCode() {
+        return (int) (31 * (31 * (31 * carros + somaVelocidades) + parados) + engarrafamentos);
+    }
+
+    @Override
+    public String toString() {
+        return "Carros=" + carros + ", Fluxo=" + fluxo() + ", Parados=" + parados + ", Engarrafamentos=" + engarrafamentos;
+    }
+
+    // somas de um trecho da estrada num passo, cada thread acumula a sua e elas sao juntadas no fim do passo
+    // no laco do passo um carro que termina parado abre um engarrafamento se a celula atras dele estava vazia:
+    // um carro logo atras de outro tem distancia 1 e para junto, e quem vem de mais longe chega andando
+    public static final class Parcial implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        public int carros;
+        public long somaVelocidades;
+        public int parados;
+        public int engarrafamentos;
+
+        // soma um carro com a velocidade nova, sabendo se a celula atras dele estava vazia antes do passo
+        public void adicionar(int velocidade, boolean atrasVazia) {
+            carros++;
+            somaVelocidades += velocidade;
+            if (velocidade == 0) {
+                parados++;
+                if (atrasVazia) engarrafamentos++;
+            }
+        }
+
+        public void somar(Parcial outra) {
+            carros += outra.carros;
+            somaVelocidades += outra.somaVelocidades;
+            parados += outra.parados;
+            engarrafamentos += outra.engarrafamentos;
+        }
+
+        public void zerar() {
+            carros = 0;
+            somaVelocidades = 0;
+            parados = 0;
+            engarrafamentos = 0;
+        }
+
+        // com a estrada cheia de carros parados nenhum tem celula livre atras, mas ainda e um engarrafamento
+        public Observaveis fechar(int tamEstrada) {
+            int grupos = (engarrafamentos == 0 && parados > 0) ? 1 : engarrafamentos;
+            return new Observaveis(tamEstrada, carros, somaVelocidades, parados, grupos);
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package core;
+
+import java.io.Serializable;
+
+// parametros de uma execucao, copiados do Config uma vez e fixos dali em diante
+// cada motor e cada slave recebe o seu, entao duas simulacoes de tamanhos diferentes rodam juntas no mesmo processo
+// os lacos quentes copiam os campos pra variaveis locais finais, que o jit trata como constantes do laco
+public final class Parametros implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    public final int tamEstrada;
+    public final int numVeiculos;
+    public final int vMax;
+    public final double probabilidade;
+    public final int steps;
+    public final long semente;
+    public final int numThreads;
+    public final int rebalancearACada;
+    public final int passosPorTroca;
+    public final int passosPorBloco;
+    public final boolean modoVisual;
+    public final int delayVisualMs;
+
+    // construtor com tudo, os slaves usam pra montar os parametros que chegam pela rede
+    public Parametros(int tamEstrada, int numVeiculos, int vMax, double probabilidade, int steps, long semente,
+                       int numThreads, int rebalancearACada, int passosPorTroca, int passosPorBloco,
+                       boolean modoVisual, int delayVisualMs) {
+        this.tamEstrada = tamEstrada;
+        this.numVeiculos = numVeiculos;
+        this.vMax = vMax;
+        this.probabilidade = probabilidade;
+        this.steps = steps;
+        this.semente = semente;
+        this.numThreads = numThreads;
+        this.rebalancearACada = rebalancearACada;
+        this.passosPorTroca = passosPorTroca;
+        this.passosPorBloco = passosPorBloco;
+        this.modoVisual = modoVisual;
+        this.delayVisualMs = delayVisualMs;
+    }
+
+    // foto do Config agora, mudar o Config depois nao afeta quem ja recebeu
+    public static Parametros atual() {
+        return new Parametros(Config.L, Config.NUM_VEICULOS, Config.V_MAX, Config.PROBABILIDADE, Config.STEPS,
+                Config.SEMENTE, Config.NUM_THREADS, Config.REBALANCEAR_A_CADA, Config.PASSOS_POR_TROCA,
+                Config.PASSOS_POR_BLOCO, Config.MODO_VISUAL, Config.DELAY_VISUAL_MS);
+    }
+
+    // copia com outra estrada
+    public Parametros comEstrada(int tamEstrada, int numVeiculos) {
+        return new Parametros(tamEstrada, numVeiculos, vMax, probabilidade, steps, semente, numThreads,
+                rebalancearACada, passosPorTroca, passosPorBloco, modoVisual, delayVisualMs);
+    }
+
+    // copia com outra velocidade maxima e outra chance de frear
+    public Parametros comVelocidade(int vMax, double probabilidade) {
+        return new Parametros(tamEstrada, numVeiculos, vMax, probabilidade, steps, semente, numThreads,
+                rebalancearACada, passosPorTroca, passosPorBloco, modoVisual, delayVisualMs);
+    }
+
+    // copia com outro numero de threads
+    public Parametros comThreads(int numThreads) {
+        return new Parametros(tamEstrada, numVeiculos, vMax, probabilidade, steps, semente, numThreads,
+                rebalancearACada, passosPorTroca, passosPorBloco, modoVisual, delayVisualMs);
+    }
+
+    // copia com outra semente, cada replica de um ensemble tem a sua
+    public Parametros comSemente(long semente) {
+        return new Parametros(tamEstrada, numVeiculos, vMax, probabilidade, steps, semente, numThreads,
+                rebalancearACada, passosPorTroca, passosPorBloco, modoVisual, delayVisualMs);
+    }
+
+    @Override
+    public String toString() {
+        return "L=" + tamEstrada + ", Carros=" + numVeiculos + ", V_MAX=" + vMax + ", P=" + probabilidade
+                + ", Passos=" + steps + ", Semente=" + semente + ", Threads=" + numThreads;
+    }
+}
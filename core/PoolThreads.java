@@ -0,0 +1,54 @@
+package core;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.function.IntFunction;
+
+// pool de threads que continua vivo entre as execucoes de uma simulacao, assim cada inicializar/executar
+// reaproveita as threads ja aquecidas em vez de criar e matar o pool toda vez
+// so e recriado quando o numero de threads pedido muda, e so morre no encerrar da simulacao
+public class PoolThreads<T extends ExecutorService> {
+    private final IntFunction<T> fabrica;
+    private T pool;
+    private int threads;
+
+    private PoolThreads(IntFunction<T> fabrica) {
+        this.fabrica = fabrica;
+    }
+
+    // threads daemon, pra quem esquecer o encerrar nao segurar a jvm aberta
+    // as threads ja sobem aqui (e nao na primeira tarefa), entao o executar nao paga a criacao delas
+    public static PoolThreads<ExecutorService> fixo() {
+        return new PoolThreads<>(n -> {
+            ThreadPoolExecutor pool = (ThreadPoolExecutor) Executors.newFixedThreadPool(n, r -> {
+                Thread t = new Thread(r);
+                t.setDaemon(true);
+                return t;
+            });
+            pool.prestartAllCoreThreads();
+            return pool;
+        });
+    }
+
+    // as threads do ForkJoinPool ja sao daemon
+    public static PoolThreads<ForkJoinPool> forkJoin() {
+        return new PoolThreads<>(ForkJoinPool::new);
+    }
+
+    // devolve o pool vivo com esse numero de threads, criando so se precisar
+    public T obter(int threads) {
+        if (pool == null || pool.isShutdown() || this.threads != threads) {
+            encerrar();
+            pool = fabrica.apply(threads);
+            this.threads = threads;
+        }
+        return pool;
+    }
+
+    public void encerrar() {
+        if (pool != null) pool.shutdown();
+        pool = null;
+    }
+}
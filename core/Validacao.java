@@ -0,0 +1,309 @@
+package core;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.rmi.registry.LocateRegistry;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+// roda todas as implementacoes com a mesma semente e confere se a estrada final e identica
+// nas que medem as observaveis a cada passo, confere tambem a serie inteira e o ultimo passo contra a estrada final
+// nas que gravam o diagrama espaco-tempo, confere cada linha do arquivo contra as observaveis daquele passo
+// uso: java core.Validacao [distribuido] [concorrente]
+public class Validacao {
+
+    public static void main(String[] args) throws Exception {
+        Config.L = 2000;
+        Config.NUM_VEICULOS = 600;
+        Config.STEPS = 300;
+        Config.NUM_THREADS = 4;
+        Config.MODO_VISUAL = false;
+
+        System.out.println("Validacao: L=" + Config.L + ", Carros=" + Config.NUM_VEICULOS
+                + ", Passos=" + Config.STEPS + ", Semente=" + Config.SEMENTE);
+
+        // a primeira implementacao e a referencia
+        List<ISimulacao> simulacoes = Benchmark.simulacoes();
+        ISimulacao referencia = simulacoes.get(0);
+        List<Observaveis> esperadas = observar(referencia);
+        referencia.inicializar();
+        referencia.executar();
+        byte[] esperado = referencia.getEstrada();
+        referencia.encerrar();
+
+        boolean tudoIgual = true;
+        for (ISimulacao sim : simulacoes) {
+            List<Observaveis> serie = observar(sim);
+            GravadorDiagrama gravador = gravar(sim);
+            sim.inicializar();
+            sim.executar();
+            tudoIgual &= conferir(sim.getNome(), esperado, sim.getEstrada());
+            if (serie != null) tudoIgual &= conferirObservaveis(sim.getNome(), esperadas, serie, sim.getEstrada());
+            if (gravador != null) tudoIgual &= conferirDiagrama(sim.getNome(), esperadas, gravador, sim.getEstrada());
+            sim.encerrar();
+        }
+
+        // sobe os slaves dentro do proprio processo pra conferir os masters distribuidos
+        if (List.of(args).contains("distribuido")) {
+            tudoIgual &= validarDistribuido(esperado, esperadas);
+        }
+
+        // duas simulacoes de tamanhos diferentes ao mesmo tempo no mesmo processo
+        if (List.of(args).contains("concorrente")) {
+            tudoIgual &= validarConcorrente();
+        }
+
+        System.out.println(tudoIgual ? "Todas as estradas sao identicas." : "Existem implementacoes divergentes!");
+        System.exit(tudoIgual ? 0 : 1);
+    }
+
+    static boolean validarDistribuido(byte[] esperado, List<Observaveis> esperadas) throws Exception {
+        int n = 2;
+        boolean ok = true;
+
+        // socket memoria
+        for (int i = 1; i <= n; i++) iniciarEmThread(distribuido.memoria.socket.Slave::main, String.valueOf(i));
+        Thread.sleep(500);
+        distribuido.memoria.socket.Master socketMemoria = new distribuido.memoria.socket.Master(n);
+        List<Observaveis> serieSocket = new ArrayList<>();
+        socketMemoria.setObservador((step, o) -> serieSocket.add(o));
+        socketMemoria.conectar();
+        socketMemoria.executar();
+        ok &= conferir("Distribuido Socket (Memoria)", esperado, socketMemoria.getEstrada());
+        ok &= conferirObservaveis("Distribuido Socket (Memoria)", esperadas, serieSocket, socketMemoria.getEstrada());
+        socketMemoria.fechar();
+
+        // socket memoria com selector, nos mesmos slaves
+        distribuido.memoria.socket.MasterNio nioMemoria = new distribuido.memoria.socket.MasterNio(n);
+        List<Observaveis> serieNio = new ArrayList<>();
+        nioMemoria.setObservador((step, o) -> serieNio.add(o));
+        nioMemoria.conectar();
+        nioMemoria.executar();
+        ok &= conferir("Distribuido Socket NIO (Memoria)", esperado, nioMemoria.getEstrada());
+        ok &= conferirObservaveis("Distribuido Socket NIO (Memoria)", esperadas, serieNio, nioMemoria.getEstrada());
+        nioMemoria.fechar();
+
+        // socket memoria com troca de halo
+        for (int i = 1; i <= n; i++) iniciarEmThread(distribuido.memoria.socket.SlaveHalo::main, String.valueOf(i));
+        Thread.sleep(500);
+        distribuido.memoria.socket.MasterHalo socketHalo = new distribuido.memoria.socket.MasterHalo(n);
+        List<Observaveis> serieHalo = new ArrayList<>();
+        socketHalo.setObservador((step, o) -> serieHalo.add(o));
+        socketHalo.conectar();
+        socketHalo.executar();
+        ok &= conferir("Distribuido Socket Halo (Memoria)", esperado, socketHalo.getEstrada());
+        ok &= conferirObservaveis("Distribuido Socket Halo (Memoria)", esperadas, serieHalo, socketHalo.getEstrada());
+        socketHalo.fechar();
+
+        // socket memoria com halo andando varios passos por troca, o ultimo lote fica menor
+        Config.PASSOS_POR_TROCA = 7;
+        distribuido.memoria.socket.MasterHalo socketLote = new distribuido.memoria.socket.MasterHalo(n);
+        List<Observaveis> serieLote = new ArrayList<>();
+        socketLote.setObservador((step, o) -> serieLote.add(o));
+        socketLote.conectar();
+        socketLote.executar();
+        ok &= conferir("Distribuido Socket Halo k=7 (Memoria)", esperado, socketLote.getEstrada());
+        ok &= conferirObservaveis("Distribuido Socket Halo k=7 (Memoria)", esperadas, serieLote, socketLote.getEstrada());
+        socketLote.fechar();
+        Config.PASSOS_POR_TROCA = 1;
+
+        // o mesmo com os slaves num Config diferente do master, como se cada um rodasse na sua jvm:
+        // o master anda 7 passos por troca e os slaves continuam com o Config de 1
+        Config.PASSOS_POR_TROCA = 7;
+        Parametros doMaster = Parametros.atual();
+        Config.PASSOS_POR_TROCA = 1;
+        distribuido.memoria.socket.MasterHalo socketOutroConfig = new distribuido.memoria.socket.MasterHalo(n, doMaster);
+        List<Observaveis> serieOutroConfig = new ArrayList<>();
+        socketOutroConfig.setObservador((step, o) -> serieOutroConfig.add(o));
+        socketOutroConfig.conectar();
+        socketOutroConfig.executar();
+        ok &= conferir("Distribuido Socket Halo k=7, slaves k=1 (Memoria)", esperado, socketOutroConfig.getEstrada());
+        ok &= conferirObservaveis("Distribuido Socket Halo k=7, slaves k=1 (Memoria)", esperadas, serieOutroConfig,
+                socketOutroConfig.getEstrada());
+        socketOutroConfig.fechar();
+
+        // socket posicao
+        for (int i = 1; i <= n; i++) iniciarEmThread(distribuido.posicao.socket.Slave::main, String.valueOf(i));
+        Thread.sleep(500);
+        distribuido.posicao.socket.Master socketPosicao = new distribuido.posicao.socket.Master(n);
+        List<Observaveis> serieSocketPosicao = new ArrayList<>();
+        socketPosicao.setObservador((step, o) -> serieSocketPosicao.add(o));
+        socketPosicao.conectar();
+        socketPosicao.executar();
+        ok &= conferir("Distribuido Socket (Posicao)", esperado, socketPosicao.getEstrada());
+        ok &= conferirObservaveis("Distribuido Socket (Posicao)", esperadas, serieSocketPosicao, socketPosicao.getEstrada());
+        socketPosicao.fechar();
+
+        // socket posicao com selector, nos mesmos slaves
+        distribuido.posicao.socket.MasterNio nioPosicao = new distribuido.posicao.socket.MasterNio(n);
+        List<Observaveis> serieNioPosicao = new ArrayList<>();
+        nioPosicao.setObservador((step, o) -> serieNioPosicao.add(o));
+        nioPosicao.conectar();
+        nioPosicao.executar();
+        ok &= conferir("Distribuido Socket NIO (Posicao)", esperado, nioPosicao.getEstrada());
+        ok &= conferirObservaveis("Distribuido Socket NIO (Posicao)", esperadas, serieNioPosicao, nioPosicao.getEstrada());
+        nioPosicao.fechar();
+
+        // rmi memoria, com o registro no proprio processo
+        LocateRegistry.createRegistry(1099);
+        for (int i = 1; i <= n; i++) distribuido.memoria.rmi.Slave.main(new String[]{"Slave" + i});
+        distribuido.memoria.rmi.Master rmiMemoria = new distribuido.memoria.rmi.Master(n);
+        List<Observaveis> serieRmi = new ArrayList<>();
+        rmiMemoria.setObservador((step, o) -> serieRmi.add(o));
+        rmiMemoria.conectar();
+        rmiMemoria.executar();
+        ok &= conferir("Distribuido RMI (Memoria)", esperado, rmiMemoria.getEstrada());
+        ok &= conferirObservaveis("Distribuido RMI (Memoria)", esperadas, serieRmi, rmiMemoria.getEstrada());
+        rmiMemoria.encerrar();
+
+        // rmi posicao, os slaves substituem os nomes do registro
+        for (int i = 1; i <= n; i++) distribuido.posicao.rmi.SlavePosicao.main(new String[]{"Slave" + i});
+        distribuido.posicao.rmi.MasterPosicao rmiPosicao = new distribuido.posicao.rmi.MasterPosicao(n);
+        List<Observaveis> serieRmiPosicao = new ArrayList<>();
+        rmiPosicao.setObservador((step, o) -> serieRmiPosicao.add(o));
+        rmiPosicao.conectar();
+        rmiPosicao.executar();
+        ok &= conferir("Distribuido RMI (Posicao)", esperado, rmiPosicao.getEstrada());
+        ok &= conferirObservaveis("Distribuido RMI (Posicao)", esperadas, serieRmiPosicao, rmiPosicao.getEstrada());
+        rmiPosicao.encerrar();
+
+        // rmi com estado, cada slave guarda o proprio segmento
+        for (int i = 1; i <= n; i++) distribuido.memoria.rmi.SlaveParticao.main(new String[]{"Particao" + i});
+        distribuido.memoria.rmi.MasterParticao rmiParticao = new distribuido.memoria.rmi.MasterParticao(n);
+        List<Observaveis> serieParticao = new ArrayList<>();
+        rmiParticao.setObservador((step, o) -> serieParticao.add(o));
+        rmiParticao.conectar();
+        rmiParticao.executar();
+        ok &= conferir("Distribuido RMI Particao (Memoria)", esperado, rmiParticao.getEstrada());
+        ok &= conferirObservaveis("Distribuido RMI Particao (Memoria)", esperadas, serieParticao, rmiParticao.getEstrada());
+        rmiParticao.encerrar();
+
+        Config.PASSOS_POR_TROCA = 7;
+        distribuido.memoria.rmi.MasterParticao rmiLote = new distribuido.memoria.rmi.MasterParticao(n);
+        List<Observaveis> serieRmiLote = new ArrayList<>();
+        rmiLote.setObservador((step, o) -> serieRmiLote.add(o));
+        rmiLote.conectar();
+        rmiLote.executar();
+        ok &= conferir("Distribuido RMI Particao k=7 (Memoria)", esperado, rmiLote.getEstrada());
+        ok &= conferirObservaveis("Distribuido RMI Particao k=7 (Memoria)", esperadas, serieRmiLote, rmiLote.getEstrada());
+        rmiLote.encerrar();
+        Config.PASSOS_POR_TROCA = 1;
+
+        // rmi com estado, cada slave guarda um bloco de carros do anel
+        for (int i = 1; i <= n; i++) distribuido.posicao.rmi.SlaveBloco.main(new String[]{"Bloco" + i});
+        distribuido.posicao.rmi.MasterBloco rmiBloco = new distribuido.posicao.rmi.MasterBloco(n);
+        List<Observaveis> serieBloco = new ArrayList<>();
+        rmiBloco.setObservador((step, o) -> serieBloco.add(o));
+        rmiBloco.conectar();
+        rmiBloco.executar();
+        ok &= conferir("Distribuido RMI Bloco (Posicao)", esperado, rmiBloco.getEstrada());
+        ok &= conferirObservaveis("Distribuido RMI Bloco (Posicao)", esperadas, serieBloco, rmiBloco.getEstrada());
+        rmiBloco.encerrar();
+
+        return ok;
+    }
+
+    // roda cada implementacao com duas configuracoes em paralelo e compara com a referencia sequencial de cada uma
+    // a segunda estrada nao e multipla de 16 e tem V_MAX menor, entao passa pelos caminhos escalares tambem
+    static boolean validarConcorrente() throws Exception {
+        Parametros a = Parametros.atual().comEstrada(3200, 960);
+        Parametros b = Parametros.atual().comEstrada(1000, 250).comVelocidade(3, 0.5);
+        System.out.println();
+        System.out.println("Concorrente: [" + a + "] junto com [" + b + "]");
+
+        byte[] esperadoA = rodar(Benchmark.simulacoes().get(0), a);
+        byte[] esperadoB = rodar(Benchmark.simulacoes().get(0), b);
+
+        // instancias separadas pra cada configuracao, as duas rodam ao mesmo tempo
+        List<ISimulacao> simulacoesA = Benchmark.simulacoes();
+        List<ISimulacao> simulacoesB = Benchmark.simulacoes();
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        boolean ok = true;
+        try {
+            for (int i = 0; i < simulacoesA.size(); i++) {
+                ISimulacao simA = simulacoesA.get(i);
+                ISimulacao simB = simulacoesB.get(i);
+                Future<byte[]> obtidoA = executor.submit(() -> rodar(simA, a));
+                Future<byte[]> obtidoB = executor.submit(() -> rodar(simB, b));
+                ok &= conferir(simA.getNome() + " [A]", esperadoA, obtidoA.get());
+                ok &= conferir(simB.getNome() + " [B]", esperadoB, obtidoB.get());
+            }
+        } finally {
+            executor.shutdown();
+        }
+        return ok;
+    }
+
+    // uma execucao completa com os parametros dados
+    static byte[] rodar(ISimulacao sim, Parametros parametros) throws Exception {
+        sim.inicializar(parametros);
+        sim.executar();
+        byte[] estrada = sim.getEstrada();
+        sim.encerrar();
+        return estrada;
+    }
+
+    // liga um observador que guarda a serie de observaveis, null se o motor nao mede a cada passo
+    static List<Observaveis> observar(ISimulacao sim) {
+        if (!(sim instanceof ISimulacaoObservavel)) return null;
+        List<Observaveis> serie = new ArrayList<>();
+        ((ISimulacaoObservavel) sim).setObservador((step, o) -> serie.add(o));
+        return serie;
+    }
+
+    // liga um gravador do diagrama num arquivo temporario, null se o motor nao grava a cada passo
+    static GravadorDiagrama gravar(ISimulacao sim) throws IOException {
+        if (!(sim instanceof ISimulacaoGravavel)) return null;
+        Path arquivo = Files.createTempFile("diagrama", ".bin");
+        GravadorDiagrama gravador = new GravadorDiagrama(arquivo, Parametros.atual());
+        ((ISimulacaoGravavel) sim).setGravador(gravador);
+        return gravador;
+    }
+
+    // cada linha gravada tem que ter as observaveis da referencia naquele passo e a ultima tem que ser a estrada final
+    static boolean conferirDiagrama(String nome, List<Observaveis> esperadas, GravadorDiagrama gravador, byte[] estrada)
+            throws IOException {
+        gravador.close();
+        Path arquivo = gravador.getArquivo();
+        boolean igual = gravador.getLinhasGravadas() == esperadas.size();
+        for (int step = 0; igual && step < esperadas.size(); step++) {
+            igual = Observaveis.de(GravadorDiagrama.lerLinha(arquivo, step)).equals(esperadas.get(step));
+        }
+        igual &= Arrays.equals(GravadorDiagrama.lerLinha(arquivo, esperadas.size() - 1), estrada);
+        Files.delete(arquivo);
+        System.out.printf("%-45s | %s\n", nome + " (diagrama)", igual ? "OK" : "DIVERGENTE");
+        return igual;
+    }
+
+    // a serie tem que ser igual a da referencia e o ultimo passo igual ao que sai lendo a estrada final
+    static boolean conferirObservaveis(String nome, List<Observaveis> esperadas, List<Observaveis> serie, byte[] estrada) {
+        boolean igual = serie.equals(esperadas) && !serie.isEmpty()
+                && serie.get(serie.size() - 1).equals(Observaveis.de(estrada));
+        System.out.printf("%-45s | %s\n", nome + " (observaveis)", igual ? "OK" : "DIVERGENTE");
+        return igual;
+    }
+
+    // compara com a referencia e imprime o resultado
+    static boolean conferir(String nome, byte[] esperado, byte[] obtido) {
+        boolean igual = Arrays.equals(esperado, obtido);
+        System.out.printf("%-45s | %s\n", nome, igual ? "OK" : "DIVERGENTE");
+        return igual;
+    }
+
+    interface Principal {
+        void main(String[] args) throws Exception;
+    }
+
+    static void iniciarEmThread(Principal principal, String arg) {
+        Thread t = new Thread(() -> {
+            try { principal.main(new String[]{arg}); } catch (Exception e) { e.printStackTrace(); }
+        });
+        t.setDaemon(true);
+        t.start();
+    }
+}
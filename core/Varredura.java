@@ -0,0 +1,175 @@
+package core;
+
+import arquitetura.memoria.SequencialMemoriaByte;
+
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.Locale;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.function.Supplier;
+
+// diagrama fundamental: varre a densidade (NUM_VEICULOS / L) e a PROBABILIDADE de frear e mede o fluxo de cada ponto
+// cada ponto da grade roda inteiro numa thread com o motor sequencial, que cada thread guarda e reaproveita
+// entre os pontos (jit ja aquecido e arrays da estrada reaproveitados), e os pontos sao distribuidos entre os nucleos
+// cada linha do csv e gravada assim que o ponto termina, entao da pra acompanhar o arquivo enquanto a varredura roda
+// o fluxo e a velocidade sao a media no tempo dos passos da medicao, que vem depois do transiente
+// uso: java core.Varredura L=100000 densidades=100 probabilidades=20 transiente=1000 medicao=1000 threads=8 saida=diagrama.csv
+public class Varredura {
+    private final PoolThreads<ExecutorService> pool = PoolThreads.fixo();
+
+    // um motor por thread do pool, criado no primeiro ponto que a thread pega
+    private final ThreadLocal<ISimulacaoObservavel> motores;
+
+    // resultado de um ponto da grade
+    public static class Ponto {
+        public final double densidade;
+        public final double probabilidade;
+        public final int carros;
+        public final MediaObservaveis media;
+        public final double ms;
+
+        Ponto(double densidade, double probabilidade, int carros, MediaObservaveis media, double ms) {
+            this.densidade = densidade;
+            this.probabilidade = probabilidade;
+            this.carros = carros;
+            this.media = media;
+            this.ms = ms;
+        }
+    }
+
+    // recebe cada ponto na thread que chamou varrer, na ordem em que terminam
+    public interface Saida {
+        void aceitar(Ponto ponto) throws IOException;
+    }
+
+    // motor sequencial da estrada de bytes
+    public Varredura() {
+        this(SequencialMemoriaByte::new);
+    }
+
+    public Varredura(Supplier<ISimulacaoObservavel> motor) {
+        this.motores = ThreadLocal.withInitial(motor);
+    }
+
+    // roda todas as combinacoes de densidade e probabilidade, espalhadas em base.numThreads threads
+    // cada ponto anda base.steps passos e mede a media dos que vem depois dos primeiros transiente
+    public void varrer(Parametros base, double[] densidades, double[] probabilidades, int transiente, Saida saida)
+            throws Exception {
+        if (transiente < 0 || transiente >= base.steps) {
+            throw new IllegalArgumentException("Transiente de " + transiente + " passos, cada ponto tem " + base.steps);
+        }
+        CompletionService<Ponto> concluidos = new ExecutorCompletionService<>(pool.obter(base.numThreads));
+        Parametros umaThread = base.comThreads(1);
+
+        int total = 0;
+        for (double densidade : densidades) {
+            for (double probabilidade : probabilidades) {
+                int carros = (int) Math.round(densidade * base.tamEstrada);
+                Parametros p = umaThread.comEstrada(base.tamEstrada, carros).comVelocidade(base.vMax, probabilidade);
+                concluidos.submit(() -> rodarPonto(p, densidade, transiente));
+                total++;
+            }
+        }
+
+        // entrega cada ponto assim que ele termina, sem esperar a grade inteira
+        for (int i = 0; i < total; i++) {
+            Future<Ponto> ponto = concluidos.take();
+            saida.aceitar(ponto.get());
+        }
+    }
+
+    private Ponto rodarPonto(Parametros parametros, double densidade, int transiente) throws Exception {
+        ISimulacaoObservavel sim = motores.get();
+        MediaObservaveis media = new MediaObservaveis(transiente);
+        long inicio = System.nanoTime();
+        try {
+            sim.setObservador(media);
+            sim.inicializar(parametros);
+            sim.executar();
+        } finally {
+            // o motor volta pro pool da thread sem a media desse ponto, mesmo se ele falhou
+            sim.setObservador(null);
+        }
+        return new Ponto(densidade, parametros.probabilidade, parametros.numVeiculos, media,
+                (System.nanoTime() - inicio) / 1e6);
+    }
+
+    // fecha o pool que fica vivo entre as varreduras, os motores das threads morrem junto
+    public void encerrar() {
+        pool.encerrar();
+    }
+
+    // n valores igualmente espacados em (0, 1]
+    static double[] densidades(int n) {
+        double[] valores = new double[n];
+        for (int i = 0; i < n; i++) valores[i] = (double) (i + 1) / n;
+        return valores;
+    }
+
+    // n valores igualmente espacados em [0, 1)
+    static double[] probabilidades(int n) {
+        double[] valores = new double[n];
+        for (int i = 0; i < n; i++) valores[i] = (double) i / n;
+        return valores;
+    }
+
+    public static void main(String[] args) throws Exception {
+        int l = 100_000;
+        int numDensidades = 100;
+        int numProbabilidades = 20;
+        int transiente = 1000;
+        int medicao = 1000;
+        int threads = Runtime.getRuntime().availableProcessors();
+        String arquivo = "diagrama.csv";
+
+        for (String arg : args) {
+            String[] chaveValor = arg.split("=", 2);
+            switch (chaveValor[0]) {
+                case "L": l = Integer.parseInt(chaveValor[1]); break;
+                case "densidades": numDensidades = Integer.parseInt(chaveValor[1]); break;
+                case "probabilidades": numProbabilidades = Integer.parseInt(chaveValor[1]); break;
+                case "transiente": transiente = Integer.parseInt(chaveValor[1]); break;
+                case "medicao": medicao = Integer.parseInt(chaveValor[1]); break;
+                case "threads": threads = Integer.parseInt(chaveValor[1]); break;
+                case "saida": arquivo = chaveValor[1]; break;
+                default: throw new IllegalArgumentException("Parametro desconhecido: " + chaveValor[0]);
+            }
+        }
+
+        Config.L = l;
+        Config.STEPS = transiente + medicao;
+        Config.NUM_THREADS = threads;
+        Config.MODO_VISUAL = false;
+        Parametros base = Parametros.atual();
+        int total = numDensidades * numProbabilidades;
+
+        System.out.println("Varredura: L=" + l + ", " + numDensidades + " densidades x " + numProbabilidades
+                + " probabilidades, Transiente=" + transiente + ", Medicao=" + medicao + ", Threads=" + threads
+                + " -> " + arquivo);
+
+        Varredura varredura = new Varredura();
+        long inicio = System.nanoTime();
+        try (PrintWriter out = new PrintWriter(new FileWriter(arquivo))) {
+            out.println("densidade,probabilidade,carros,fluxo,velocidade_media,ms");
+            int[] prontos = {0};
+            varredura.varrer(base, densidades(numDensidades), probabilidades(numProbabilidades), transiente, ponto -> {
+                MediaObservaveis m = ponto.media;
+                out.printf(Locale.ROOT, "%.4f,%.4f,%d,%.6f,%.6f,%.1f\n", ponto.densidade, ponto.probabilidade,
+                        ponto.carros, m.fluxo(), m.velocidadeMedia(), ponto.ms);
+                out.flush();
+
+                // progresso a cada 5% da grade
+                prontos[0]++;
+                if (prontos[0] % Math.max(1, total / 20) == 0 || prontos[0] == total) {
+                    System.out.printf("%d/%d pontos, %.1f s\n", prontos[0], total, (System.nanoTime() - inicio) / 1e9);
+                }
+            });
+        } finally {
+            varredura.encerrar();
+        }
+    }
+}
@@ -76,6 +76,7 @@ public class Visualizacao {
         if (sim != null) {
             sim.inicializar();
             sim.executar();
+            sim.encerrar();
         }
     }
 
@@ -98,6 +99,7 @@ public class Visualizacao {
         if (sim != null) {
             sim.inicializar();
             sim.executar();
+            sim.encerrar();
         }
     }
 
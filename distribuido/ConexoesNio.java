@@ -0,0 +1,137 @@
+package distribuido;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.Iterator;
+
+// conexoes com os slaves de socket controladas por uma unica thread com Selector
+// a cada passo espalha um quadro pra cada slave e junta as respostas na ordem em que chegam, sem thread por slave
+public class ConexoesNio {
+    private final Selector selector;
+    private final SocketChannel[] canais;
+    private final SelectionKey[] chaves;
+
+    // buffers diretos de cada slave, reaproveitados entre os passos
+    private final ByteBuffer[] envios;
+    private final ByteBuffer[] respostas;
+
+    // ns entre o inicio da troca e a resposta completa de cada slave, na ultima troca
+    private final long[] tempos;
+
+    public ConexoesNio(String host, int portaBase, int n) throws IOException {
+        this.selector = Selector.open();
+        this.canais = new SocketChannel[n];
+        this.chaves = new SelectionKey[n];
+        this.envios = new ByteBuffer[n];
+        this.respostas = new ByteBuffer[n];
+        this.tempos = new long[n];
+
+        for (int i = 0; i < n; i++) {
+            SocketChannel canal = SocketChannel.open(new InetSocketAddress(host, portaBase + i));
+            canal.socket().setTcpNoDelay(true); // desliga o algoritmo de Nagle
+
+            // o cabecalho do protocolo e trocado ainda em modo bloqueante
+            ByteBuffer cabecalho = ByteBuffer.allocate(5);
+            cabecalho.putInt(Protocolo.MAGIC).put(Protocolo.VERSAO).flip();
+            while (cabecalho.hasRemaining()) canal.write(cabecalho);
+            cabecalho.clear();
+            while (cabecalho.hasRemaining()) {
+                if (canal.read(cabecalho) < 0) throw new EOFException("Slave " + (i + 1) + " desconectou");
+            }
+            Protocolo.conferirCabecalho(cabecalho.getInt(0), cabecalho.get(4));
+
+            canal.configureBlocking(false);
+            canais[i] = canal;
+            chaves[i] = canal.register(selector, 0, i);
+            envios[i] = ByteBuffer.allocateDirect(1024);
+            respostas[i] = ByteBuffer.allocateDirect(1024);
+            System.out.println(" + Conectado ao Slave " + (i + 1));
+        }
+    }
+
+    public int getNumSlaves() {
+        return canais.length;
+    }
+
+    public long getTempo(int i) {
+        return tempos[i];
+    }
+
+    // devolve o buffer do slave i pronto pra escrever um quadro de ate tamanho bytes
+    public ByteBuffer quadro(int i, int tamanho) {
+        if (envios[i].capacity() < 4 + tamanho) envios[i] = ByteBuffer.allocateDirect(4 + tamanho);
+        ByteBuffer quadro = envios[i];
+        quadro.clear();
+        quadro.position(4); // espaco pro tamanho do quadro
+        return quadro;
+    }
+
+    // envia o quadro montado pra cada slave e espera todas as respostas, que voltam posicionadas no corpo
+    public ByteBuffer[] trocar() throws IOException {
+        int n = canais.length;
+        long inicio = System.nanoTime();
+        for (int i = 0; i < n; i++) {
+            ByteBuffer quadro = envios[i];
+            quadro.putInt(0, quadro.position() - 4);
+            quadro.flip();
+            respostas[i].clear();
+            chaves[i].interestOps(SelectionKey.OP_WRITE);
+        }
+
+        int pendentes = n;
+        while (pendentes > 0) {
+            selector.select();
+            Iterator<SelectionKey> it = selector.selectedKeys().iterator();
+            while (it.hasNext()) {
+                SelectionKey chave = it.next();
+                it.remove();
+                int i = (Integer) chave.attachment();
+
+                if (chave.isWritable()) {
+                    // escreve o que o socket aceitar e espera a resposta quando acabar o quadro
+                    canais[i].write(envios[i]);
+                    if (!envios[i].hasRemaining()) chave.interestOps(SelectionKey.OP_READ);
+                } else if (chave.isReadable()) {
+                    if (canais[i].read(respostas[i]) < 0) throw new EOFException("Slave " + (i + 1) + " desconectou");
+                    if (respostaCompleta(i)) {
+                        tempos[i] = System.nanoTime() - inicio;
+                        chave.interestOps(0);
+                        pendentes--;
+                    }
+                }
+            }
+        }
+        return respostas;
+    }
+
+    // confere se o quadro de resposta do slave i chegou inteiro, aumentando o buffer se ele nao couber
+    private boolean respostaCompleta(int i) {
+        ByteBuffer resposta = respostas[i];
+        if (resposta.position() < 4) return false;
+
+        int tamanho = resposta.getInt(0);
+        if (resposta.capacity() < 4 + tamanho) {
+            ByteBuffer maior = ByteBuffer.allocateDirect(4 + tamanho);
+            resposta.flip();
+            maior.put(resposta);
+            respostas[i] = resposta = maior;
+        }
+        if (resposta.position() < 4 + tamanho) return false;
+
+        resposta.flip();
+        resposta.position(4);
+        return true;
+    }
+
+    public void fechar() {
+        for (SocketChannel canal : canais) {
+            try { if (canal != null) canal.close(); } catch (Exception e) {}
+        }
+        try { selector.close(); } catch (Exception e) {}
+    }
+}
@@ -0,0 +1,112 @@
+package distribuido;
+
+import core.Observaveis;
+import core.Parametros;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+// protocolo binario dos sockets: um cabecalho com MAGIC e versao na conexao e depois quadros
+// com o tamanho na frente, carregando so bytes de velocidade e posicoes int, sem serializacao java
+public final class Protocolo {
+    // "NaSc" em ascii, pra recusar conexao de quem nao fala esse protocolo
+    public static final int MAGIC = 0x4E615363;
+
+    // muda sempre que o formato de algum quadro mudar
+    // 2: janela da memoria compactada com 4 bits por celula
+    // 3: V_MAX e probabilidade vao do master pros slaves junto com o tamanho da estrada e a semente
+    // 4: o passo do halo diz se o slave devolve as observaveis de cada passo junto com as bordas
+    // 5: passos por troca, passos por bloco e rebalanceamento tambem vao do master pros slaves
+    public static final byte VERSAO = 5;
+
+    private Protocolo() {}
+
+    public static void enviarCabecalho(DataOutputStream out) throws IOException {
+        out.writeInt(MAGIC);
+        out.writeByte(VERSAO);
+        out.flush();
+    }
+
+    // confere se o outro lado fala a mesma versao do protocolo
+    public static void lerCabecalho(DataInputStream in) throws IOException {
+        int magic = in.readInt();
+        conferirCabecalho(magic, in.readByte());
+    }
+
+    // usado tambem pelos masters nio, que leem o cabecalho direto do canal
+    public static void conferirCabecalho(int magic, byte versao) throws IOException {
+        if (magic != MAGIC) throw new IOException("Conexao nao usa o protocolo da simulacao");
+        if (versao != VERSAO) {
+            throw new IOException("Versao do protocolo incompativel: esperada " + VERSAO + ", recebida " + versao);
+        }
+    }
+
+    // parametros da simulacao do master, tudo que muda o resultado ou o tamanho do que o slave guarda
+    public static void escreverParametros(DataOutputStream out, Parametros p) throws IOException {
+        out.writeInt(p.tamEstrada);
+        out.writeInt(p.numVeiculos);
+        out.writeInt(p.vMax);
+        out.writeDouble(p.probabilidade);
+        out.writeInt(p.steps);
+        out.writeLong(p.semente);
+        out.writeInt(p.rebalancearACada);
+        out.writeInt(p.passosPorTroca);
+        out.writeInt(p.passosPorBloco);
+    }
+
+    // so as threads ficam com o valor local, que e sobre as cpus de quem le, e o modo visual fica desligado
+    public static Parametros lerParametros(DataInputStream in) throws IOException {
+        int tamEstrada = in.readInt();
+        int numVeiculos = in.readInt();
+        int vMax = in.readInt();
+        double probabilidade = in.readDouble();
+        int steps = in.readInt();
+        long semente = in.readLong();
+        int rebalancearACada = in.readInt();
+        int passosPorTroca = in.readInt();
+        int passosPorBloco = in.readInt();
+        return new Parametros(tamEstrada, numVeiculos, vMax, probabilidade, steps, semente, Parametros.atual().numThreads,
+                rebalancearACada, passosPorTroca, passosPorBloco, false, 0);
+    }
+
+    // somas das observaveis de um passo num pedaco da estrada
+    public static void escreverParcial(DataOutputStream out, Observaveis.Parcial parcial) throws IOException {
+        out.writeInt(parcial.carros);
+        out.writeLong(parcial.somaVelocidades);
+        out.writeInt(parcial.parados);
+        out.writeInt(parcial.engarrafamentos);
+    }
+
+    public static void lerParcial(DataInputStream in, Observaveis.Parcial parcial) throws IOException {
+        parcial.carros = in.readInt();
+        parcial.somaVelocidades = in.readLong();
+        parcial.parados = in.readInt();
+        parcial.engarrafamentos = in.readInt();
+    }
+
+    // limpa o buffer pra montar um quadro novo, so aloca se o atual nao couber
+    public static ByteBuffer preparar(ByteBuffer buffer, int tamanho) {
+        if (buffer == null || buffer.capacity() < tamanho) return ByteBuffer.allocate(tamanho);
+        buffer.clear();
+        return buffer;
+    }
+
+    // envia o que foi escrito no buffer ate a posicao atual, com o tamanho na frente
+    public static void enviarQuadro(DataOutputStream out, ByteBuffer quadro) throws IOException {
+        out.writeInt(quadro.position());
+        out.write(quadro.array(), 0, quadro.position());
+        out.flush();
+    }
+
+    // le um quadro inteiro, reaproveitando o buffer se couber, e devolve pronto pra leitura
+    public static ByteBuffer lerQuadro(DataInputStream in, ByteBuffer buffer) throws IOException {
+        int tamanho = in.readInt();
+        if (tamanho < 0) throw new IOException("Tamanho de quadro invalido: " + tamanho);
+        buffer = preparar(buffer, tamanho);
+        in.readFully(buffer.array(), 0, tamanho);
+        buffer.limit(tamanho);
+        return buffer;
+    }
+}
@@ -0,0 +1,115 @@
+package distribuido.memoria;
+
+import arquitetura.memoria.SequencialMemoriaByte;
+import core.Observaveis;
+import core.Parametros;
+
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+
+// pedaco da estrada que fica guardado no slave entre os passos
+// a cada troca o slave so recebe as bordas dos vizinhos (halo) e devolve as proprias bordas
+// o segmento mora no meio de uma das duas janelas, alocadas uma vez com o maior halo (k * V_MAX de cada lado):
+// cada troca so copia as bordas pras pontas da janela, anda os passos trocando as duas e o segmento ja fica no lugar
+public class Particao {
+    private final int inicio;
+    private final int tamanho;
+    private final Parametros parametros;
+    private final int haloMaximo;
+
+    // janela com o segmento em [halo, halo + tamanho) e a outra de rascunho dos passos
+    private byte[] janela;
+    private byte[] rascunho;
+    private int halo;
+
+    // observaveis dos carros que sairam do segmento em cada passo da ultima troca
+    private final Observaveis.Parcial[] observaveis;
+
+    // construtor, o segmento e copiado pra janela
+    // os passos por troca sao os do master, que escolhe a largura do halo: a janela e as observaveis saem deles
+    public Particao(int inicio, byte[] segmento, Parametros parametros, int passosPorTroca) {
+        int k = Math.max(1, passosPorTroca);
+        this.inicio = inicio;
+        this.tamanho = segmento.length;
+        this.parametros = parametros;
+        this.haloMaximo = k * parametros.vMax;
+        this.janela = new byte[haloMaximo + tamanho + haloMaximo];
+        this.rascunho = new byte[janela.length];
+        this.halo = haloMaximo;
+        System.arraycopy(segmento, 0, janela, halo, tamanho);
+
+        this.observaveis = new Observaveis.Parcial[k];
+        for (int s = 0; s < observaveis.length; s++) observaveis[s] = new Observaveis.Parcial();
+    }
+
+    // primeiras celulas do segmento, o vizinho de tras precisa delas pra calcular a distancia
+    public byte[] cabeca(int largura) {
+        return Arrays.copyOfRange(janela, halo, halo + largura);
+    }
+
+    // ultimas celulas do segmento, de onde podem sair carros pro vizinho da frente
+    public byte[] cauda(int largura) {
+        return Arrays.copyOfRange(janela, halo + tamanho - largura, halo + tamanho);
+    }
+
+    // escreve a cabeca e a cauda direto da janela, sem copiar pra arrays novos
+    public void escreverBordas(DataOutput out, int largura) throws IOException {
+        out.write(janela, halo, largura);
+        out.write(janela, halo + tamanho - largura, largura);
+    }
+
+    // avanca alguns passos com a cauda do vizinho de tras e a cabeca do vizinho da frente
+    // cada passo estraga V_MAX celulas de cada ponta da janela, entao com um halo de passos * V_MAX
+    // celulas o segmento no meio da janela sai exato
+    public void avancar(byte[] esquerda, byte[] direita, int primeiroStep, int passos) {
+        avancar(esquerda, direita, primeiroStep, passos, false);
+    }
+
+    // o mesmo somando as observaveis do segmento em cada passo, que ficam em getObservaveis ate a proxima troca
+    // o segmento e a celula antes dele ficam no miolo exato da janela em todos os passos
+    public void avancar(byte[] esquerda, byte[] direita, int primeiroStep, int passos, boolean observar) {
+        int largura = esquerda.length;
+        if (largura > haloMaximo || direita.length != largura) {
+            throw new IllegalArgumentException("Halo de " + largura + " celulas, a particao aceita ate " + haloMaximo);
+        }
+        if (observar && passos > observaveis.length) {
+            throw new IllegalArgumentException(passos + " passos por troca, a particao soma ate " + observaveis.length);
+        }
+
+        // com um halo de outra largura o segmento anda dentro da janela (so acontece se o master mudar o k)
+        if (largura != halo) {
+            System.arraycopy(janela, halo, janela, largura, tamanho);
+            halo = largura;
+        }
+        System.arraycopy(esquerda, 0, janela, 0, halo);
+        System.arraycopy(direita, 0, janela, halo + tamanho, halo);
+
+        // indice da primeira celula da janela na estrada inteira
+        int tamJanela = halo + tamanho + halo;
+        int origem = Math.floorMod(inicio - halo, parametros.tamEstrada);
+
+        for (int s = 0; s < passos; s++) {
+            Observaveis.Parcial parcial = null;
+            if (observar) {
+                parcial = observaveis[s];
+                parcial.zerar();
+            }
+            SequencialMemoriaByte.passoJanela(janela, rascunho, tamJanela, origem, parametros, primeiroStep + s,
+                    parcial, halo, halo + tamanho);
+            byte[] temp = janela;
+            janela = rascunho;
+            rascunho = temp;
+        }
+    }
+
+    // observaveis de cada passo da ultima troca com observar, as primeiras passos posicoes valem
+    public Observaveis.Parcial[] getObservaveis() {
+        return observaveis;
+    }
+
+    // copia do segmento atual, so pra juntar a estrada no fim
+    public byte[] getSegmento() {
+        return Arrays.copyOfRange(janela, halo, halo + tamanho);
+    }
+}
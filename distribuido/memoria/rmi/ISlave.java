@@ -1,10 +1,13 @@
 package distribuido.memoria.rmi;
 
+import core.Parametros;
 import model.VeiculoMemoria;
 import java.rmi.Remote;
 import java.rmi.RemoteException;
 
 public interface ISlave extends Remote {
     // recebe a estrada e devolve com os novos segmentos calculados
-    VeiculoMemoria[] calcularSegmento(VeiculoMemoria[] estradaAtual, int inicio, int fim) throws RemoteException;
+    // os parametros trazem V_MAX e a chance de frear, a semente e o step escolhem os numeros aleatorios,
+    // iguais aos da versao sequencial
+    VeiculoMemoria[] calcularSegmento(VeiculoMemoria[] estradaAtual, int inicio, int fim, Parametros parametros, int step) throws RemoteException;
 }
\ No newline at end of file
@@ -0,0 +1,40 @@
+package distribuido.memoria.rmi;
+
+import core.Observaveis;
+import core.Parametros;
+import model.EstradaCompacta;
+
+import java.io.Serializable;
+import java.rmi.Remote;
+import java.rmi.RemoteException;
+
+public interface ISlaveParticao extends Remote {
+    // resposta de um avancar, tudo numa chamada so pra nao pagar outra ida e volta quando mede
+    final class Troca implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        public final byte[] cabeca;
+        public final byte[] cauda;
+
+        // somas do segmento em cada passo do lote, null quando nao pediu pra observar
+        public final Observaveis.Parcial[] observaveis;
+
+        public Troca(byte[] cabeca, byte[] cauda, Observaveis.Parcial[] observaveis) {
+            this.cabeca = cabeca;
+            this.cauda = cauda;
+            this.observaveis = observaveis;
+        }
+    }
+
+    // recebe uma vez o segmento que fica guardado no slave, compactado com 4 bits por celula,
+    // e os parametros da simulacao que ele vai usar em todos os passos
+    void iniciar(int inicio, EstradaCompacta segmento, Parametros parametros) throws RemoteException;
+
+    // avanca alguns passos com as bordas dos vizinhos (passos * V_MAX celulas cada)
+    // e devolve so as bordas novas, da mesma largura
+    // com observar a resposta tambem traz as observaveis do proprio segmento em cada passo
+    Troca avancar(byte[] esquerda, byte[] direita, int primeiroStep, int passos, boolean observar) throws RemoteException;
+
+    // segmento atual compactado, so pra juntar a estrada no fim
+    EstradaCompacta getSegmento() throws RemoteException;
+}
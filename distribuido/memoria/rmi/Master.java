@@ -1,7 +1,11 @@
 package distribuido.memoria.rmi;
 
-import core.Config;
+import core.IObservador;
+import core.Observaveis;
+import core.Parametros;
 import model.VeiculoMemoria;
+import arquitetura.memoria.CelulasSujas;
+import arquitetura.memoria.Particionamento;
 import arquitetura.memoria.SequencialMemoria;
 
 import java.rmi.registry.LocateRegistry;
@@ -14,18 +18,45 @@ public class Master {
 
     private VeiculoMemoria[] estradaAtual;
     private VeiculoMemoria[] proximaEstrada;
+
+    // celulas ocupadas de cada estrada, pra limpar so elas
+    private CelulasSujas sujasAtual;
+    private CelulasSujas sujasProxima;
+
     private ExecutorService executor;
     private List<ISlave> slaves;
 
+    // faixa de cada slave, refeita pela densidade de carros, e o tempo de cada chamada
+    private Particionamento particao;
+
+    // parametros fixos da simulacao
+    private final Parametros parametros;
+
+    // observaveis de cada passo, somadas enquanto as respostas dos slaves sao juntadas
+    private IObservador observador;
+    private final Observaveis.Parcial medicao = new Observaveis.Parcial();
+
+    // o passo continua contando entre as rodadas, pra cada passo ter seus proprios numeros aleatorios
+    private int passo;
+
     // construtor do master e ja inicializa a estrada
     public Master(int n) {
+        this(n, Parametros.atual());
+    }
+
+    // construtor com os parametros fixos da simulacao, os slaves recebem o que precisam deles
+    public Master(int n, Parametros parametros) {
+        this.parametros = parametros;
         this.numSlaves = n;
-        this.estradaAtual = new VeiculoMemoria[Config.L];
-        this.proximaEstrada = new VeiculoMemoria[Config.L];
+        this.estradaAtual = new VeiculoMemoria[parametros.tamEstrada];
+        this.proximaEstrada = new VeiculoMemoria[parametros.tamEstrada];
         this.slaves = new ArrayList<>();
         this.executor = Executors.newFixedThreadPool(n);
 
-        SequencialMemoria.inicializarEstrada(estradaAtual);
+        SequencialMemoria.inicializarEstrada(parametros, estradaAtual);
+        this.sujasAtual = CelulasSujas.de(estradaAtual);
+        this.sujasProxima = new CelulasSujas(parametros.numVeiculos);
+        this.particao = new Particionamento(n, parametros.tamEstrada, parametros.rebalancearACada);
     }
 
     public void conectar() throws Exception {
@@ -40,48 +71,87 @@ public class Master {
     }
 
     public void executar() throws Exception {
-        // divide a estrada a partir do numero de slaves
-        int segmento = (int) Math.ceil((double) Config.L / numSlaves);
-
-        for (int step = 0; step < Config.STEPS; step++) {
+        for (int step = 0; step < parametros.steps; step++) {
             List<Future<VeiculoMemoria[]>> futures = new ArrayList<>();
+            final int stepAtual = passo++;
 
             // copia da estrada pra enviar
-            final VeiculoMemoria[] copiaEstrada = Arrays.copyOf(estradaAtual, Config.L);
+            final VeiculoMemoria[] copiaEstrada = Arrays.copyOf(estradaAtual, parametros.tamEstrada);
+
+            // o slave recebe inicio e fim a cada chamada, entao as faixas podem mudar de um passo pro outro
+            if (particao.deveRebalancear(stepAtual)) particao.rebalancear(estradaAtual);
 
             // distribui as taferas pros slaves
             for (int i = 0; i < numSlaves; i++) {
                 final int id = i;
-                final int inicio = i * segmento;
-                final int fim = Math.min(inicio + segmento, Config.L);
+                final int inicio = particao.getInicio(i);
+                final int fim = particao.getFim(i);
 
                 // chama o metodo nos slaves
-                futures.add(executor.submit(() ->
-                        slaves.get(id).calcularSegmento(copiaEstrada, inicio, fim)
-                ));
+                futures.add(executor.submit(() -> {
+                    long t0 = System.nanoTime();
+                    VeiculoMemoria[] parcial = slaves.get(id).calcularSegmento(copiaEstrada, inicio, fim, parametros, stepAtual);
+                    particao.somarOcupado(id, System.nanoTime() - t0);
+                    return parcial;
+                }));
             }
 
-            // espera as respostas e cria a proxima estrada
-            Arrays.fill(proximaEstrada, null);
-            for (Future<VeiculoMemoria[]> f : futures) {
-                VeiculoMemoria[] parcial = f.get(); // bloqueia ate o slave mandar o resultado
-                for (int k = 0; k < Config.L; k++) {
-                    if (parcial[k] != null) proximaEstrada[k] = parcial[k];
+            // espera as respostas e cria a proxima estrada, limpando so as celulas que tinham carro no passo anterior
+            sujasProxima.limpar(proximaEstrada);
+            final boolean medir = observador != null;
+            if (medir) medicao.zerar();
+            for (int i = 0; i < futures.size(); i++) {
+                VeiculoMemoria[] parcial = futures.get(i).get(); // bloqueia ate o slave mandar o resultado
+
+                // os carros do slave so podem estar entre o inicio do segmento e V_MAX celulas depois do fim
+                int inicio = particao.getInicio(i);
+                int janela = Math.min(particao.getFim(i) - inicio + parametros.vMax, parametros.tamEstrada);
+                for (int d = 0; d < janela; d++) {
+                    int k = (inicio + d) % parametros.tamEstrada;
+                    if (parcial[k] != null) {
+                        proximaEstrada[k] = parcial[k];
+                        sujasProxima.adicionar(k);
+
+                        // o carro saiu de k - v, a estrada atual ainda e a do passo anterior
+                        if (medir) {
+                            int v = parcial[k].velocidade;
+                            medicao.adicionar(v, estradaAtual[Math.floorMod(k - v - 1, parametros.tamEstrada)] == null);
+                        }
+                    }
                 }
             }
 
+            if (medir) observador.observar(step, medicao.fechar(parametros.tamEstrada));
+
             // faz a troca de estradas
             VeiculoMemoria[] temp = estradaAtual;
             estradaAtual = proximaEstrada;
             proximaEstrada = temp;
+            CelulasSujas tempSujas = sujasAtual;
+            sujasAtual = sujasProxima;
+            sujasProxima = tempSujas;
 
-            if (Config.MODO_VISUAL) {
+            if (parametros.modoVisual) {
                 imprimirEstrada(estradaAtual, step);
-                try { Thread.sleep(Config.DELAY_VISUAL_MS); } catch (Exception e) {}
+                try { Thread.sleep(parametros.delayVisualMs); } catch (Exception e) {}
             }
         }
     }
 
+    // liga o observador das observaveis de cada passo (null desliga)
+    public void setObservador(IObservador observador) {
+        this.observador = observador;
+    }
+
+    // velocidade de cada celula da estrada atual, -1 nas vazias
+    public byte[] getEstrada() {
+        return SequencialMemoria.paraBytes(estradaAtual);
+    }
+
+    public Particionamento getParticionamento() {
+        return particao;
+    }
+
     public void encerrar() {
         executor.shutdown();
     }
@@ -99,6 +169,7 @@ public class Master {
 
             // warmup
             master.executar();
+            master.getParticionamento().zerarOcupado();
 
             long somaTempo = 0;
             long maxMemoria = 0;
@@ -126,6 +197,9 @@ public class Master {
                 System.out.printf("Rodada %d: %d ms | %d MB\n", i, tempoMs, usoMem);
             }
 
+            // faixa e tempo de ida e volta de cada slave nas rodadas medidas
+            System.out.print(master.getParticionamento().relatorio(master.getEstrada()));
+
             master.encerrar();
 
             // resultado final media
@@ -0,0 +1,206 @@
+package distribuido.memoria.rmi;
+
+import core.IObservador;
+import core.Observaveis;
+import core.Parametros;
+import arquitetura.memoria.SequencialMemoriaByte;
+import model.EstradaCompacta;
+
+import java.rmi.registry.LocateRegistry;
+import java.rmi.registry.Registry;
+import java.util.*;
+import java.util.concurrent.*;
+
+// master rmi em que cada slave guarda o proprio segmento e por troca so trafegam as bordas
+// com k = PASSOS_POR_TROCA os slaves andam k passos por chamada com um halo de k * V_MAX celulas
+public class MasterParticao {
+    private int numSlaves;
+    private int[] inicios;
+
+    // passos entre as trocas e largura do halo
+    private int passosPorTroca;
+    private int largura;
+
+    // bordas atuais de cada slave, a cauda vai pro vizinho da frente e a cabeca pro de tras
+    private byte[][] cabecas;
+    private byte[][] caudas;
+
+    private ExecutorService executor;
+    private List<ISlaveParticao> slaves;
+
+    // parametros fixos da simulacao
+    private final Parametros parametros;
+
+    // observaveis de cada passo do lote, cada slave soma as do seu segmento e o master junta depois da troca
+    private IObservador observador;
+    private final Observaveis.Parcial total = new Observaveis.Parcial();
+
+    // o passo continua contando entre as rodadas, pra cada passo ter seus proprios numeros aleatorios
+    private int passo;
+
+    public MasterParticao(int n) {
+        this(n, Parametros.atual());
+    }
+
+    // construtor com os parametros fixos da simulacao, os slaves recebem o que precisam deles
+    public MasterParticao(int n, Parametros parametros) {
+        this.parametros = parametros;
+        this.passosPorTroca = Math.max(1, parametros.passosPorTroca);
+        this.largura = passosPorTroca * parametros.vMax;
+
+        // o halo so pode vir do vizinho imediato, entao todo segmento precisa ter pelo menos k * V_MAX celulas
+        if (parametros.tamEstrada / n < largura) {
+            throw new IllegalArgumentException("Segmento menor que o halo: L=" + parametros.tamEstrada + ", slaves=" + n
+                    + ", halo=" + largura);
+        }
+
+        this.numSlaves = n;
+        this.slaves = new ArrayList<>();
+        this.executor = Executors.newFixedThreadPool(n);
+
+        // divide a estrada em segmentos que diferem no maximo em uma celula
+        this.inicios = new int[n + 1];
+        for (int i = 0; i <= n; i++) inicios[i] = (int) ((long) i * parametros.tamEstrada / n);
+    }
+
+    // procura os slaves e manda o segmento inicial de cada um
+    public void conectar() throws Exception {
+        Registry registry = LocateRegistry.getRegistry("localhost");
+        System.out.println("Procurando " + numSlaves + " slaves RMI (Particao)...");
+
+        byte[] estrada = new byte[parametros.tamEstrada];
+        SequencialMemoriaByte.inicializarEstrada(parametros, estrada);
+
+        int g = largura;
+        cabecas = new byte[numSlaves][];
+        caudas = new byte[numSlaves][];
+
+        for (int i = 0; i < numSlaves; i++) {
+            ISlaveParticao slave = (ISlaveParticao) registry.lookup("Particao" + (i + 1));
+            slaves.add(slave);
+
+            byte[] segmento = Arrays.copyOfRange(estrada, inicios[i], inicios[i + 1]);
+            slave.iniciar(inicios[i], EstradaCompacta.de(segmento), parametros);
+            cabecas[i] = Arrays.copyOfRange(segmento, 0, g);
+            caudas[i] = Arrays.copyOfRange(segmento, segmento.length - g, segmento.length);
+            System.out.println(" + Conectado ao Particao" + (i + 1));
+        }
+    }
+
+    public void executar() throws Exception {
+        for (int step = 0; step < parametros.steps; step += passosPorTroca) {
+            List<Future<ISlaveParticao.Troca>> futures = new ArrayList<>();
+            final int stepAtual = passo;
+
+            // o ultimo lote pode ser menor, o halo continua com a mesma largura
+            final int passos = Math.min(passosPorTroca, parametros.steps - step);
+            passo += passos;
+            final boolean medir = observador != null;
+            final Observaveis.Parcial[][] parciais = new Observaveis.Parcial[numSlaves][];
+
+            for (int i = 0; i < numSlaves; i++) {
+                final ISlaveParticao slave = slaves.get(i);
+                // cauda do vizinho de tras e cabeca do vizinho da frente, dando a volta no anel
+                final byte[] esquerda = caudas[(i - 1 + numSlaves) % numSlaves];
+                final byte[] direita = cabecas[(i + 1) % numSlaves];
+
+                // as observaveis voltam na mesma resposta das bordas
+                futures.add(executor.submit(() -> slave.avancar(esquerda, direita, stepAtual, passos, medir)));
+            }
+
+            // so troca as bordas depois que todos os slaves leram as antigas
+            for (int i = 0; i < numSlaves; i++) {
+                ISlaveParticao.Troca troca = futures.get(i).get(); // bloqueia ate o slave mandar o resultado
+                cabecas[i] = troca.cabeca;
+                caudas[i] = troca.cauda;
+                parciais[i] = troca.observaveis;
+            }
+
+            // junta as somas dos slaves de cada passo do lote
+            if (medir) {
+                for (int s = 0; s < passos; s++) {
+                    total.zerar();
+                    for (Observaveis.Parcial[] doSlave : parciais) total.somar(doSlave[s]);
+                    observador.observar(step + s, total.fechar(parametros.tamEstrada));
+                }
+            }
+
+            // com lotes de k passos so da pra mostrar a estrada a cada k passos
+            if (parametros.modoVisual) {
+                SequencialMemoriaByte.imprimirEstrada(getEstrada(), step);
+                try { Thread.sleep(parametros.delayVisualMs); } catch (Exception e) {}
+            }
+        }
+    }
+
+    // liga o observador das observaveis de cada passo (null desliga)
+    public void setObservador(IObservador observador) {
+        this.observador = observador;
+    }
+
+    // junta os segmentos de todos os slaves, velocidade de cada celula e -1 nas vazias
+    public byte[] getEstrada() throws Exception {
+        byte[] estrada = new byte[parametros.tamEstrada];
+        for (int i = 0; i < numSlaves; i++) {
+            slaves.get(i).getSegmento().paraBytes(estrada, inicios[i]);
+        }
+        return estrada;
+    }
+
+    public void encerrar() {
+        executor.shutdown();
+    }
+
+    public static void main(String[] args) {
+        // le o numero de slaves e execucoes pelos args
+        int n = (args.length > 0) ? Integer.parseInt(args[0]) : 2;
+        int rounds = (args.length > 1) ? Integer.parseInt(args[1]) : 5;
+
+        try {
+            System.out.println(" Master RMI Particao (Memoria) - Slaves: " + n + " | Rodadas: " + rounds);
+
+            MasterParticao master = new MasterParticao(n);
+            master.conectar();
+
+            // warmup
+            master.executar();
+
+            long somaTempo = 0;
+            long maxMemoria = 0;
+
+            // loop de medicoes
+            for (int i = 1; i <= rounds; i++) {
+                // limpa a memoria pro benchmark
+                System.gc();
+                Thread.sleep(500);
+
+                long memAntes = Master.medMemoria();
+                long start = System.nanoTime();
+
+                master.executar(); // executa a simulacao
+
+                long end = System.nanoTime();
+                long memDepois = Master.medMemoria();
+
+                long tempoMs = (end - start) / 1_000_000;
+                long usoMem = Math.max(0, memDepois - memAntes);
+
+                somaTempo += tempoMs;
+                if (usoMem > maxMemoria) maxMemoria = usoMem;
+
+                System.out.printf("Rodada %d: %d ms | %d MB\n", i, tempoMs, usoMem);
+            }
+
+            master.encerrar();
+
+            // resultado final media
+            double media = (double) somaTempo / rounds;
+            System.out.println("\nResultado Final:");
+            System.out.printf("Tempo Medio: %.1f ms\n", media);
+            System.out.printf("Memoria Pico: %d MB (no Master)\n", maxMemoria);
+
+        } catch (Exception e) {
+            System.err.println("Erro: " + e.getMessage());
+        }
+    }
+}
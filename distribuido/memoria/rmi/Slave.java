@@ -1,19 +1,24 @@
 package distribuido.memoria.rmi;
 
-import core.Config;
+import core.Aleatorio;
+import core.Parametros;
 import model.VeiculoMemoria;
 import java.rmi.registry.LocateRegistry;
 import java.rmi.registry.Registry;
 import java.rmi.server.UnicastRemoteObject;
-import java.util.Random;
 import java.rmi.RemoteException;
 
 public class Slave implements ISlave {
-    private final Random random = new Random();
-
     @Override
-    public VeiculoMemoria[] calcularSegmento(VeiculoMemoria[] estradaAtual, int inicio, int fim) throws RemoteException {
-        int tamEstrada = estradaAtual.length;
+    public VeiculoMemoria[] calcularSegmento(VeiculoMemoria[] estradaAtual, int inicio, int fim, Parametros parametros, int step) throws RemoteException {
+        // copia os parametros pra variaveis locais fora do loop
+        final int tamEstrada = estradaAtual.length;
+        final int vMax = parametros.vMax;
+        final double prob = parametros.probabilidade;
+        final long semente = parametros.semente;
+
+        // a busca do proximo carro so precisa ir ate V_MAX + 1 celulas, depois disso o carro nao e limitado
+        int limite = Math.min(vMax + 1, tamEstrada - 1);
 
         // o array pra retornar
         VeiculoMemoria[] proxima = new VeiculoMemoria[tamEstrada];
@@ -23,17 +28,17 @@ public class Slave implements ISlave {
             if (carro != null) {
                 int v = carro.velocidade;
 
-                if (v < Config.V_MAX) v++;
+                if (v < vMax) v++;
 
                 int dist = 0;
-                for (int k = 1; k < tamEstrada; k++) {
+                for (int k = 1; k <= limite; k++) {
                     dist++;
                     if (estradaAtual[(i + k) % tamEstrada] != null) break;
                 }
 
                 v = Math.min(v, dist - 1);
 
-                if (random.nextDouble() < Config.PROBABILIDADE && v > 0) v--;
+                if (Aleatorio.uniforme(semente, step, i) < prob && v > 0) v--;
 
                 carro.velocidade = v;
 
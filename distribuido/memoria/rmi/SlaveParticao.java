@@ -0,0 +1,54 @@
+package distribuido.memoria.rmi;
+
+import core.Observaveis;
+import core.Parametros;
+import distribuido.memoria.Particao;
+import model.EstradaCompacta;
+import java.util.Arrays;
+import java.rmi.registry.LocateRegistry;
+import java.rmi.registry.Registry;
+import java.rmi.server.UnicastRemoteObject;
+import java.rmi.RemoteException;
+
+// slave que guarda o proprio segmento entre as chamadas, o custo de cada passo nao depende de L
+public class SlaveParticao implements ISlaveParticao {
+    private Particao particao;
+
+    @Override
+    public void iniciar(int inicio, EstradaCompacta segmento, Parametros parametros) throws RemoteException {
+        this.particao = new Particao(inicio, segmento.paraBytes(), parametros, parametros.passosPorTroca);
+    }
+
+    @Override
+    public Troca avancar(byte[] esquerda, byte[] direita, int primeiroStep, int passos, boolean observar)
+            throws RemoteException {
+        particao.avancar(esquerda, direita, primeiroStep, passos, observar);
+        Observaveis.Parcial[] observaveis = observar ? Arrays.copyOf(particao.getObservaveis(), passos) : null;
+        return new Troca(particao.cabeca(esquerda.length), particao.cauda(esquerda.length), observaveis);
+    }
+
+    @Override
+    public EstradaCompacta getSegmento() throws RemoteException {
+        return EstradaCompacta.de(particao.getSegmento());
+    }
+
+    public static void main(String[] args) {
+        try {
+            // nome do slave por args
+            String nome = (args.length > 0) ? args[0] : "Particao1";
+
+            // exporta o objeto com uma porta anonima
+            SlaveParticao obj = new SlaveParticao();
+            ISlaveParticao stub = (ISlaveParticao) UnicastRemoteObject.exportObject(obj, 0);
+
+            // registro rmi rodando na porta padrao
+            Registry registry = LocateRegistry.getRegistry();
+            registry.rebind(nome, stub);
+
+            System.out.println(">>> [RMI Particao] Servidor '" + nome + "' aguardando...");
+
+        } catch (Exception e) {
+            System.err.println("Erro no Slave: " + e.toString());
+        }
+    }
+}
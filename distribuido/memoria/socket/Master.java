@@ -1,11 +1,18 @@
 package distribuido.memoria.socket;
 
-import core.Config;
+import core.IObservador;
+import core.Observaveis;
+import core.Parametros;
+import model.EstradaCompacta;
 import model.VeiculoMemoria;
+import arquitetura.memoria.CelulasSujas;
+import arquitetura.memoria.Particionamento;
 import arquitetura.memoria.SequencialMemoria;
+import distribuido.Protocolo;
 
 import java.io.*;
 import java.net.Socket;
+import java.nio.ByteBuffer;
 import java.util.*;
 import java.util.concurrent.*;
 
@@ -13,20 +20,50 @@ public class Master {
     static final String HOST = "localhost";
     static final int PORTA_BASE = 50000;
 
+    // inicio, fim, tamanho da estrada, V_MAX, probabilidade, semente e passo, antes das celulas da janela
+    static final int CABECALHO_PASSO = 4 + 4 + 4 + 4 + 8 + 8 + 4;
+
     private int numSlaves;
     private VeiculoMemoria[] estradaAtual;
     private VeiculoMemoria[] proximaEstrada;
+
+    // celulas ocupadas de cada estrada, pra limpar so elas
+    private CelulasSujas sujasAtual;
+    private CelulasSujas sujasProxima;
+
     private List<SocketContext> conexoes;
     private ExecutorService executor;
 
+    // faixa de cada slave, refeita pela densidade de carros, e o tempo de ida e volta de cada um
+    private Particionamento particao;
+
+    // parametros fixos da simulacao
+    private final Parametros parametros;
+
+    // observaveis de cada passo, somadas enquanto as respostas dos slaves sao aplicadas
+    private IObservador observador;
+    private final Observaveis.Parcial parcial = new Observaveis.Parcial();
+
+    // o passo continua contando entre as rodadas, pra cada passo ter seus proprios numeros aleatorios
+    private int passo;
+
     public Master(int n) {
+        this(n, Parametros.atual());
+    }
+
+    // construtor com os parametros fixos da simulacao, os slaves recebem o que precisam deles
+    public Master(int n, Parametros parametros) {
+        this.parametros = parametros;
         this.numSlaves = n;
-        this.estradaAtual = new VeiculoMemoria[Config.L];
-        this.proximaEstrada = new VeiculoMemoria[Config.L];
+        this.estradaAtual = new VeiculoMemoria[parametros.tamEstrada];
+        this.proximaEstrada = new VeiculoMemoria[parametros.tamEstrada];
         this.conexoes = new ArrayList<>();
         this.executor = Executors.newFixedThreadPool(n);
 
-        SequencialMemoria.inicializarEstrada(estradaAtual);
+        SequencialMemoria.inicializarEstrada(parametros, estradaAtual);
+        this.sujasAtual = CelulasSujas.de(estradaAtual);
+        this.sujasProxima = new CelulasSujas(parametros.numVeiculos);
+        this.particao = new Particionamento(n, parametros.tamEstrada, parametros.rebalancearACada);
     }
 
     // metodo pra estabelecer as conexoes usando TCP
@@ -40,51 +77,126 @@ public class Master {
     }
 
     public void executar() throws Exception {
-        int segmento = (int) Math.ceil((double) Config.L / numSlaves);
+        for (int step = 0; step < parametros.steps; step++) {
+            final VeiculoMemoria[] atual = estradaAtual;
+            List<Future<ByteBuffer>> futures = new ArrayList<>();
+            final int stepAtual = passo++;
 
-        for (int step = 0; step < Config.STEPS; step++) {
-            final VeiculoMemoria[] copia = Arrays.copyOf(estradaAtual, Config.L);
-            List<Future<VeiculoMemoria[]>> futures = new ArrayList<>();
+            // o slave recebe inicio e fim a cada passo, entao as faixas podem mudar de um passo pro outro
+            if (particao.deveRebalancear(stepAtual)) particao.rebalancear(atual);
 
             for (int i = 0; i < numSlaves; i++) {
-                final int inicio = i * segmento;
-                final int fim = Math.min(inicio + segmento, Config.L);
+                final int id = i;
+                final int inicio = particao.getInicio(i);
+                final int fim = particao.getFim(i);
                 final SocketContext ctx = conexoes.get(i);
 
+                final int tamanho = tamanhoQuadro(inicio, fim, parametros.vMax);
+
                 // envia a tarefa pra uma thread que gerencia a comunicao
                 futures.add(executor.submit(() -> {
                     synchronized(ctx) {
-                        ctx.out.writeInt(inicio); // enviao indice de inicio
-                        ctx.out.writeInt(fim); // envia o indice final
-                        ctx.out.writeObject(copia); // envia a copia da estrada
-                        ctx.out.flush(); // envia os dados
-                        ctx.out.reset(); // limpa o cache
-                        return (VeiculoMemoria[]) ctx.in.readObject(); // bloqueia ate ter as respostas dos slaves
+                        long t0 = System.nanoTime();
+                        ctx.envio = Protocolo.preparar(ctx.envio, tamanho);
+                        escreverPasso(ctx.envio, atual, inicio, fim, parametros, stepAtual);
+                        Protocolo.enviarQuadro(ctx.out, ctx.envio);
+
+                        // bloqueia ate ter a nova velocidade de cada carro do segmento, na ordem das celulas
+                        ctx.recebido = Protocolo.lerQuadro(ctx.in, ctx.recebido);
+                        particao.somarOcupado(id, System.nanoTime() - t0);
+                        return ctx.recebido;
                     }
                 }));
             }
 
-            // sincroniza os resultados
-            Arrays.fill(proximaEstrada, null);
-            for(Future<VeiculoMemoria[]> f : futures) {
-                VeiculoMemoria[] parcial = f.get(); // espera as threads receberem os dados
-                for(int k=0; k<Config.L; k++) {
-                    if(parcial[k] != null) proximaEstrada[k] = parcial[k];
+            // espera todos os slaves antes de mexer nos carros, que ainda estao sendo lidos pelas outras tarefas
+            ByteBuffer[] respostas = new ByteBuffer[numSlaves];
+            for (int i = 0; i < numSlaves; i++) respostas[i] = futures.get(i).get();
+
+            // sincroniza os resultados, limpando so as celulas que tinham carro no passo anterior
+            sujasProxima.limpar(proximaEstrada);
+            final boolean medir = observador != null;
+            if (medir) parcial.zerar();
+            for (int i = 0; i < numSlaves; i++) {
+                for (int k = particao.getInicio(i); k < particao.getFim(i); k++) {
+                    VeiculoMemoria v = estradaAtual[k];
+                    if (v != null) {
+                        v.velocidade = respostas[i].get();
+                        int destino = (k + v.velocidade) % parametros.tamEstrada;
+                        proximaEstrada[destino] = v;
+                        sujasProxima.adicionar(destino);
+
+                        // a estrada atual ainda e a do passo anterior
+                        if (medir) parcial.adicionar(v.velocidade, estradaAtual[k == 0 ? parametros.tamEstrada - 1 : k - 1] == null);
+                    }
                 }
             }
+            if (medir) observador.observar(step, parcial.fechar(parametros.tamEstrada));
 
             // troca as estradas
             VeiculoMemoria[] temp = estradaAtual;
             estradaAtual = proximaEstrada;
             proximaEstrada = temp;
+            CelulasSujas tempSujas = sujasAtual;
+            sujasAtual = sujasProxima;
+            sujasProxima = tempSujas;
 
-            if (Config.MODO_VISUAL) {
+            if (parametros.modoVisual) {
                 imprimirEstrada(estradaAtual, step);
-                try { Thread.sleep(Config.DELAY_VISUAL_MS); } catch (Exception e) {}
+                try { Thread.sleep(parametros.delayVisualMs); } catch (Exception e) {}
             }
         }
     }
 
+    // o slave so precisa do proprio segmento e de V_MAX celulas depois dele pra ver o carro da frente
+    static int tamanhoJanela(int inicio, int fim, int vMax) {
+        return Math.max(0, fim - inicio) + vMax;
+    }
+
+    // a janela vai compactada com 4 bits por celula
+    static int tamanhoQuadro(int inicio, int fim, int vMax) {
+        return CABECALHO_PASSO + EstradaCompacta.tamanhoEmBytes(tamanhoJanela(inicio, fim, vMax));
+    }
+
+    // monta o corpo do quadro de um passo, tambem usado pelo master nio
+    static void escreverPasso(ByteBuffer quadro, VeiculoMemoria[] atual, int inicio, int fim, Parametros parametros, int step) {
+        int tamEstrada = parametros.tamEstrada;
+        quadro.putInt(inicio); // indice de inicio
+        quadro.putInt(fim); // indice final
+        quadro.putInt(tamEstrada); // tamanho da estrada
+        quadro.putInt(parametros.vMax); // velocidade maxima
+        quadro.putDouble(parametros.probabilidade); // chance de frear
+        quadro.putLong(parametros.semente); // semente
+        quadro.putInt(step); // passo atual
+
+        // celulas da janela compactadas, 16 por palavra
+        int janela = tamanhoJanela(inicio, fim, parametros.vMax);
+        long palavra = 0;
+        for (int d = 0; d < janela; d++) {
+            VeiculoMemoria v = atual[(inicio + d) % tamEstrada];
+            if (v != null) palavra |= EstradaCompacta.nibble(v.velocidade, d);
+            if ((d & 15) == 15) {
+                quadro.putLong(palavra);
+                palavra = 0;
+            }
+        }
+        if ((janela & 15) != 0) quadro.putLong(palavra);
+    }
+
+    // liga o observador das observaveis de cada passo (null desliga)
+    public void setObservador(IObservador observador) {
+        this.observador = observador;
+    }
+
+    // velocidade de cada celula da estrada atual, -1 nas vazias
+    public byte[] getEstrada() {
+        return SequencialMemoria.paraBytes(estradaAtual);
+    }
+
+    public Particionamento getParticionamento() {
+        return particao;
+    }
+
     public void fechar() {
         executor.shutdown(); // encerra o pool
         for(SocketContext ctx : conexoes) ctx.fechar(); // fecha os sockets
@@ -103,6 +215,7 @@ public class Master {
 
             // warmup
             master.executar();
+            master.getParticionamento().zerarOcupado();
 
             long somaTempo = 0;
             long maxMemoria = 0;
@@ -128,6 +241,9 @@ public class Master {
                 System.out.printf("Rodada %d: %d ms | %d MB\n", i, tempoMs, usoMem);
             }
 
+            // faixa e tempo de ida e volta de cada slave nas rodadas medidas
+            System.out.print(master.getParticionamento().relatorio(master.getEstrada()));
+
             master.fechar();
 
             double media = (double) somaTempo / rounds;
@@ -146,11 +262,15 @@ public class Master {
         return (rt.totalMemory() - rt.freeMemory()) / (1024 * 1024);
     }
 
-    // encapsula o Socket e os fluxos IO
+    // encapsula o Socket, os fluxos IO e os buffers dos quadros
     static class SocketContext {
         Socket s;
-        ObjectOutputStream out;
-        ObjectInputStream in;
+        DataOutputStream out;
+        DataInputStream in;
+
+        // reaproveitados entre os passos
+        ByteBuffer envio;
+        ByteBuffer recebido;
 
         SocketContext(String host, int port) throws IOException {
             s = new Socket(host, port);
@@ -159,10 +279,12 @@ public class Master {
             // agrupa os bytes antes de enviar
             s.setTcpNoDelay(true); // desliga o algoritmo de Nagle
 
-            out = new ObjectOutputStream(new BufferedOutputStream(s.getOutputStream()));
-            out.flush(); // envia o cabeçalho
+            out = new DataOutputStream(new BufferedOutputStream(s.getOutputStream()));
+            in = new DataInputStream(new BufferedInputStream(s.getInputStream()));
 
-            in = new ObjectInputStream(new BufferedInputStream(s.getInputStream()));
+            // confere a versao do protocolo dos dois lados
+            Protocolo.enviarCabecalho(out);
+            Protocolo.lerCabecalho(in);
         }
 
         void fechar() { try { s.close(); } catch (Exception e) {} }
@@ -0,0 +1,252 @@
+package distribuido.memoria.socket;
+
+import core.IObservador;
+import core.Observaveis;
+import core.Parametros;
+import arquitetura.memoria.SequencialMemoriaByte;
+import distribuido.Protocolo;
+import model.EstradaCompacta;
+
+import java.io.*;
+import java.util.*;
+import java.util.concurrent.*;
+
+// master com troca de halo: cada slave guarda o proprio segmento da estrada entre os passos
+// e por troca so trafegam as k * V_MAX celulas de cada borda, em vez da estrada inteira pra cada slave
+// com k = PASSOS_POR_TROCA os slaves andam k passos sozinhos, recalculando as bordas, e a troca e k vezes menor
+public class MasterHalo {
+    static final String HOST = "localhost";
+    static final int PORTA_BASE = 52000;
+
+    // operacoes do protocolo
+    static final int INICIAR = 1;
+    static final int PASSO = 2;
+    static final int COLETAR = 3;
+
+    private int numSlaves;
+    private int[] inicios;
+
+    // passos entre as trocas e largura do halo
+    private int passosPorTroca;
+    private int largura;
+
+    // bordas atuais de cada slave, a cauda vai pro vizinho da frente e a cabeca pro de tras
+    private byte[][] cabecas;
+    private byte[][] caudas;
+
+    private List<Master.SocketContext> conexoes;
+    private ExecutorService executor;
+
+    // parametros fixos da simulacao
+    private final Parametros parametros;
+
+    // observaveis de cada passo do lote, cada slave soma as do seu segmento e o master junta depois da troca
+    private IObservador observador;
+    private final Observaveis.Parcial[][] parciais;
+    private final Observaveis.Parcial total = new Observaveis.Parcial();
+
+    // o passo continua contando entre as rodadas, pra cada passo ter seus proprios numeros aleatorios
+    private int passo;
+
+    public MasterHalo(int n) {
+        this(n, Parametros.atual());
+    }
+
+    // construtor com os parametros fixos da simulacao, os slaves recebem o que precisam deles
+    public MasterHalo(int n, Parametros parametros) {
+        this.parametros = parametros;
+        this.passosPorTroca = Math.max(1, parametros.passosPorTroca);
+        this.largura = passosPorTroca * parametros.vMax;
+
+        // o halo so pode vir do vizinho imediato, entao todo segmento precisa ter pelo menos k * V_MAX celulas
+        if (parametros.tamEstrada / n < largura) {
+            throw new IllegalArgumentException("Segmento menor que o halo: L=" + parametros.tamEstrada + ", slaves=" + n
+                    + ", halo=" + largura);
+        }
+
+        this.numSlaves = n;
+        this.conexoes = new ArrayList<>();
+        this.executor = Executors.newFixedThreadPool(n);
+
+        // divide a estrada em segmentos que diferem no maximo em uma celula
+        this.inicios = new int[n + 1];
+        for (int i = 0; i <= n; i++) inicios[i] = (int) ((long) i * parametros.tamEstrada / n);
+
+        this.parciais = new Observaveis.Parcial[n][passosPorTroca];
+        for (Observaveis.Parcial[] doSlave : parciais) {
+            for (int s = 0; s < passosPorTroca; s++) doSlave[s] = new Observaveis.Parcial();
+        }
+    }
+
+    // conecta nos slaves e manda o segmento inicial de cada um
+    public void conectar() throws IOException {
+        System.out.println("Tentando conectar a " + numSlaves + " slaves (Socket Halo)...");
+        byte[] estrada = new byte[parametros.tamEstrada];
+        SequencialMemoriaByte.inicializarEstrada(parametros, estrada);
+
+        int g = largura;
+        cabecas = new byte[numSlaves][];
+        caudas = new byte[numSlaves][];
+
+        for (int i = 0; i < numSlaves; i++) {
+            Master.SocketContext ctx = new Master.SocketContext(HOST, PORTA_BASE + i);
+            conexoes.add(ctx);
+
+            byte[] segmento = Arrays.copyOfRange(estrada, inicios[i], inicios[i + 1]);
+            ctx.out.writeInt(INICIAR);
+            ctx.out.writeInt(inicios[i]); // indice do inicio na estrada
+            Protocolo.escreverParametros(ctx.out, parametros); // estrada, V_MAX, probabilidade, semente e passos por troca
+            ctx.out.writeInt(largura); // largura do halo
+            ctx.out.writeInt(segmento.length);
+            EstradaCompacta.de(segmento).escrever(ctx.out); // segmento compactado, 4 bits por celula
+            ctx.out.flush();
+
+            cabecas[i] = Arrays.copyOfRange(segmento, 0, g);
+            caudas[i] = Arrays.copyOfRange(segmento, segmento.length - g, segmento.length);
+            System.out.println(" + Conectado ao Slave " + (i + 1));
+        }
+    }
+
+    public void executar() throws Exception {
+        int g = largura;
+
+        for (int step = 0; step < parametros.steps; step += passosPorTroca) {
+            List<Future<byte[][]>> futures = new ArrayList<>();
+            final int stepAtual = passo;
+
+            // o ultimo lote pode ser menor, o halo continua com a mesma largura
+            final int passos = Math.min(passosPorTroca, parametros.steps - step);
+            passo += passos;
+            final boolean medir = observador != null;
+
+            for (int i = 0; i < numSlaves; i++) {
+                final Master.SocketContext ctx = conexoes.get(i);
+                final Observaveis.Parcial[] doSlave = parciais[i];
+                // cauda do vizinho de tras e cabeca do vizinho da frente, dando a volta no anel
+                final byte[] esquerda = caudas[(i - 1 + numSlaves) % numSlaves];
+                final byte[] direita = cabecas[(i + 1) % numSlaves];
+
+                futures.add(executor.submit(() -> {
+                    synchronized (ctx) {
+                        ctx.out.writeInt(PASSO);
+                        ctx.out.writeInt(stepAtual); // envia o passo atual
+                        ctx.out.writeInt(passos); // quantos passos andar antes de responder
+                        ctx.out.writeBoolean(medir); // se devolve as observaveis de cada passo
+                        ctx.out.write(esquerda); // halo da esquerda
+                        ctx.out.write(direita); // halo da direita
+                        ctx.out.flush();
+
+                        // bloqueia ate o slave devolver as bordas novas
+                        byte[] cabeca = new byte[g];
+                        byte[] cauda = new byte[g];
+                        ctx.in.readFully(cabeca);
+                        ctx.in.readFully(cauda);
+                        if (medir) {
+                            for (int s = 0; s < passos; s++) Protocolo.lerParcial(ctx.in, doSlave[s]);
+                        }
+                        return new byte[][]{cabeca, cauda};
+                    }
+                }));
+            }
+
+            // so troca as bordas depois que todos os slaves leram as antigas
+            for (int i = 0; i < numSlaves; i++) {
+                byte[][] bordas = futures.get(i).get();
+                cabecas[i] = bordas[0];
+                caudas[i] = bordas[1];
+            }
+
+            if (medir) observarLote(step, passos);
+
+            // com lotes de k passos so da pra mostrar a estrada a cada k passos
+            if (parametros.modoVisual) {
+                SequencialMemoriaByte.imprimirEstrada(getEstrada(), step);
+                try { Thread.sleep(parametros.delayVisualMs); } catch (Exception e) {}
+            }
+        }
+    }
+
+    // junta as somas dos slaves de cada passo do lote que comeca em step
+    private void observarLote(int step, int passos) {
+        for (int s = 0; s < passos; s++) {
+            total.zerar();
+            for (Observaveis.Parcial[] doSlave : parciais) total.somar(doSlave[s]);
+            observador.observar(step + s, total.fechar(parametros.tamEstrada));
+        }
+    }
+
+    // liga o observador das observaveis de cada passo (null desliga)
+    public void setObservador(IObservador observador) {
+        this.observador = observador;
+    }
+
+    // junta os segmentos de todos os slaves, velocidade de cada celula e -1 nas vazias
+    public byte[] getEstrada() throws IOException {
+        byte[] estrada = new byte[parametros.tamEstrada];
+        for (int i = 0; i < numSlaves; i++) {
+            Master.SocketContext ctx = conexoes.get(i);
+            synchronized (ctx) {
+                ctx.out.writeInt(COLETAR);
+                ctx.out.flush();
+                int tamanho = ctx.in.readInt();
+                EstradaCompacta.ler(ctx.in, tamanho).paraBytes(estrada, inicios[i]);
+            }
+        }
+        return estrada;
+    }
+
+    public void fechar() {
+        executor.shutdown(); // encerra o pool
+        for (Master.SocketContext ctx : conexoes) ctx.fechar(); // fecha os sockets
+    }
+
+    public static void main(String[] args) {
+        // define o numero de slaves e rodadas pelo args
+        int n = (args.length > 0) ? Integer.parseInt(args[0]) : 2;
+        int rounds = (args.length > 1) ? Integer.parseInt(args[1]) : 5;
+
+        try {
+            System.out.println(" Master Socket Halo (Memoria) - Slaves: " + n + " | Rodadas: " + rounds);
+
+            MasterHalo master = new MasterHalo(n);
+            master.conectar();
+
+            // warmup
+            master.executar();
+
+            long somaTempo = 0;
+            long maxMemoria = 0;
+
+            // loop de medicoes
+            for (int i = 1; i <= rounds; i++) {
+                System.gc(); Thread.sleep(500);
+
+                long memAntes = Master.medMemoria();
+                long start = System.nanoTime();
+
+                master.executar();
+
+                long end = System.nanoTime();
+                long memDepois = Master.medMemoria();
+
+                long tempoMs = (end - start) / 1_000_000;
+                long usoMem = Math.max(0, memDepois - memAntes);
+
+                somaTempo += tempoMs;
+                if (usoMem > maxMemoria) maxMemoria = usoMem;
+
+                System.out.printf("Rodada %d: %d ms | %d MB\n", i, tempoMs, usoMem);
+            }
+
+            master.fechar();
+
+            double media = (double) somaTempo / rounds;
+            System.out.println("\nResultado Final:");
+            System.out.printf("Tempo Medio: %.1f ms\n", media);
+            System.out.printf("Memoria Pico: %d MB\n", maxMemoria);
+
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+    }
+}
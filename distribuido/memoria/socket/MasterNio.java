@@ -0,0 +1,187 @@
+package distribuido.memoria.socket;
+
+import core.IObservador;
+import core.Observaveis;
+import core.Parametros;
+import model.VeiculoMemoria;
+import arquitetura.memoria.CelulasSujas;
+import arquitetura.memoria.Particionamento;
+import arquitetura.memoria.SequencialMemoria;
+import arquitetura.memoria.SequencialMemoriaByte;
+import distribuido.ConexoesNio;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+
+// master com uma unica thread e Selector no lugar do pool com uma thread bloqueada por slave
+// fala o mesmo protocolo binario do Master, entao usa os mesmos slaves
+public class MasterNio {
+    private int numSlaves;
+    private VeiculoMemoria[] estradaAtual;
+    private VeiculoMemoria[] proximaEstrada;
+
+    // celulas ocupadas de cada estrada, pra limpar so elas
+    private CelulasSujas sujasAtual;
+    private CelulasSujas sujasProxima;
+
+    private ConexoesNio conexoes;
+
+    // faixa de cada slave, refeita pela densidade de carros, e o tempo de ida e volta de cada um
+    private Particionamento particao;
+
+    // parametros fixos da simulacao
+    private final Parametros parametros;
+
+    // observaveis de cada passo, somadas enquanto as respostas dos slaves sao aplicadas
+    private IObservador observador;
+    private final Observaveis.Parcial parcial = new Observaveis.Parcial();
+
+    // o passo continua contando entre as rodadas, pra cada passo ter seus proprios numeros aleatorios
+    private int passo;
+
+    public MasterNio(int n) {
+        this(n, Parametros.atual());
+    }
+
+    // construtor com os parametros fixos da simulacao, os slaves recebem o que precisam deles
+    public MasterNio(int n, Parametros parametros) {
+        this.parametros = parametros;
+        this.numSlaves = n;
+        this.estradaAtual = new VeiculoMemoria[parametros.tamEstrada];
+        this.proximaEstrada = new VeiculoMemoria[parametros.tamEstrada];
+
+        SequencialMemoria.inicializarEstrada(parametros, estradaAtual);
+        this.sujasAtual = CelulasSujas.de(estradaAtual);
+        this.sujasProxima = new CelulasSujas(parametros.numVeiculos);
+        this.particao = new Particionamento(n, parametros.tamEstrada, parametros.rebalancearACada);
+    }
+
+    public void conectar() throws IOException {
+        System.out.println("Tentando conectar a " + numSlaves + " slaves (Socket NIO)...");
+        conexoes = new ConexoesNio(Master.HOST, Master.PORTA_BASE, numSlaves);
+    }
+
+    public void executar() throws Exception {
+        for (int step = 0; step < parametros.steps; step++) {
+            int stepAtual = passo++;
+
+            // o slave recebe inicio e fim a cada passo, entao as faixas podem mudar de um passo pro outro
+            if (particao.deveRebalancear(stepAtual)) particao.rebalancear(estradaAtual);
+
+            // monta o quadro de cada slave e troca todos de uma vez no selector
+            for (int i = 0; i < numSlaves; i++) {
+                int inicio = particao.getInicio(i);
+                int fim = particao.getFim(i);
+                ByteBuffer quadro = conexoes.quadro(i, Master.tamanhoQuadro(inicio, fim, parametros.vMax));
+                Master.escreverPasso(quadro, estradaAtual, inicio, fim, parametros, stepAtual);
+            }
+            ByteBuffer[] respostas = conexoes.trocar();
+            for (int i = 0; i < numSlaves; i++) particao.somarOcupado(i, conexoes.getTempo(i));
+
+            // sincroniza os resultados, limpando so as celulas que tinham carro no passo anterior
+            sujasProxima.limpar(proximaEstrada);
+            final boolean medir = observador != null;
+            if (medir) parcial.zerar();
+            for (int i = 0; i < numSlaves; i++) {
+                for (int k = particao.getInicio(i); k < particao.getFim(i); k++) {
+                    VeiculoMemoria v = estradaAtual[k];
+                    if (v != null) {
+                        v.velocidade = respostas[i].get();
+                        int destino = (k + v.velocidade) % parametros.tamEstrada;
+                        proximaEstrada[destino] = v;
+                        sujasProxima.adicionar(destino);
+
+                        // a estrada atual ainda e a do passo anterior
+                        if (medir) parcial.adicionar(v.velocidade, estradaAtual[k == 0 ? parametros.tamEstrada - 1 : k - 1] == null);
+                    }
+                }
+            }
+            if (medir) observador.observar(step, parcial.fechar(parametros.tamEstrada));
+
+            // troca as estradas
+            VeiculoMemoria[] temp = estradaAtual;
+            estradaAtual = proximaEstrada;
+            proximaEstrada = temp;
+            CelulasSujas tempSujas = sujasAtual;
+            sujasAtual = sujasProxima;
+            sujasProxima = tempSujas;
+
+            if (parametros.modoVisual) {
+                SequencialMemoriaByte.imprimirEstrada(getEstrada(), step);
+                try { Thread.sleep(parametros.delayVisualMs); } catch (Exception e) {}
+            }
+        }
+    }
+
+    // liga o observador das observaveis de cada passo (null desliga)
+    public void setObservador(IObservador observador) {
+        this.observador = observador;
+    }
+
+    // velocidade de cada celula da estrada atual, -1 nas vazias
+    public byte[] getEstrada() {
+        return SequencialMemoria.paraBytes(estradaAtual);
+    }
+
+    public Particionamento getParticionamento() {
+        return particao;
+    }
+
+    public void fechar() {
+        conexoes.fechar(); // fecha os canais e o selector
+    }
+
+    public static void main(String[] args) {
+        // define o numero de slaves e rodadas pelo args
+        int n = (args.length > 0) ? Integer.parseInt(args[0]) : 2;
+        int rounds = (args.length > 1) ? Integer.parseInt(args[1]) : 5;
+
+        try {
+            System.out.println(" Master Socket NIO (Memoria) - Slaves: " + n + " | Rodadas: " + rounds);
+
+            MasterNio master = new MasterNio(n);
+            master.conectar();
+
+            // warmup
+            master.executar();
+            master.getParticionamento().zerarOcupado();
+
+            long somaTempo = 0;
+            long maxMemoria = 0;
+
+            // loop de medicoes
+            for (int i = 1; i <= rounds; i++) {
+                System.gc(); Thread.sleep(500);
+
+                long memAntes = Master.medMemoria();
+                long start = System.nanoTime();
+
+                master.executar();
+
+                long end = System.nanoTime();
+                long memDepois = Master.medMemoria();
+
+                long tempoMs = (end - start) / 1_000_000;
+                long usoMem = Math.max(0, memDepois - memAntes);
+
+                somaTempo += tempoMs;
+                if (usoMem > maxMemoria) maxMemoria = usoMem;
+
+                System.out.printf("Rodada %d: %d ms | %d MB\n", i, tempoMs, usoMem);
+            }
+
+            // faixa e tempo de ida e volta de cada slave nas rodadas medidas
+            System.out.print(master.getParticionamento().relatorio(master.getEstrada()));
+
+            master.fechar();
+
+            double media = (double) somaTempo / rounds;
+            System.out.println("\nResultado Final:");
+            System.out.printf("Tempo Medio: %.1f ms\n", media);
+            System.out.printf("Memoria Pico: %d MB\n", maxMemoria);
+
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+    }
+}
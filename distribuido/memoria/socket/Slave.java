@@ -1,11 +1,12 @@
 package distribuido.memoria.socket;
 
-import core.Config;
-import model.VeiculoMemoria;
+import core.Aleatorio;
+import distribuido.Protocolo;
+import model.EstradaCompacta;
 import java.io.*;
 import java.net.ServerSocket;
 import java.net.Socket;
-import java.util.Random;
+import java.nio.ByteBuffer;
 
 public class Slave {
     static final int PORTA_BASE = 50000;
@@ -33,48 +34,63 @@ public class Slave {
 
             // buffering
             try (
-                    ObjectOutputStream out = new ObjectOutputStream(new BufferedOutputStream(socket.getOutputStream()));
-                    ObjectInputStream in = new ObjectInputStream(new BufferedInputStream(socket.getInputStream()))
+                    DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+                    DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()))
             ) {
-                // envia o cabeçalho de serializacao
-                out.flush();
+                // confere a versao do protocolo dos dois lados
+                Protocolo.lerCabecalho(in);
+                Protocolo.enviarCabecalho(out);
 
-                Random random = new Random();
+                // reaproveitados entre os passos
+                ByteBuffer quadro = null;
+                ByteBuffer resposta = null;
+                long[] janela = new long[0];
 
                 while (true) {
-                    // le a estrada
-                    int inicio = in.readInt();
-                    int fim = in.readInt();
-                    VeiculoMemoria[] estrada = (VeiculoMemoria[]) in.readObject();
+                    // le o quadro do passo
+                    quadro = Protocolo.lerQuadro(in, quadro);
+                    int inicio = quadro.getInt();
+                    int fim = quadro.getInt();
+                    int tamEstrada = quadro.getInt();
+                    int vMax = quadro.getInt();
+                    double prob = quadro.getDouble();
+                    long semente = quadro.getLong();
+                    int step = quadro.getInt();
 
-                    int tamEstrada = estrada.length;
+                    // o resto do quadro e a janela compactada: o segmento e mais V_MAX celulas depois dele
+                    // as celulas que sobram na ultima palavra vem vazias, igual ao que fica depois da janela
+                    int numPalavras = quadro.remaining() / Long.BYTES;
+                    if (janela.length < numPalavras) janela = new long[numPalavras];
+                    for (int w = 0; w < numPalavras; w++) janela[w] = quadro.getLong();
+                    int tamJanela = numPalavras * EstradaCompacta.CELULAS_POR_PALAVRA;
+                    int tamSegmento = Math.max(0, fim - inicio);
 
-                    // array de resposta
-                    VeiculoMemoria[] resposta = new VeiculoMemoria[tamEstrada];
+                    // a busca do proximo carro so precisa ir ate V_MAX + 1 celulas, depois disso o carro nao e limitado
+                    int limite = Math.min(vMax + 1, tamEstrada - 1);
+
+                    // uma velocidade por carro, na ordem das celulas
+                    resposta = Protocolo.preparar(resposta, tamSegmento);
 
                     // calcula as velocidades
-                    for (int i = inicio; i < fim; i++) {
-                        VeiculoMemoria v = estrada[i];
-                        if (v != null) {
-                            int vel = v.velocidade;
-                            if (vel < Config.V_MAX) vel++;
+                    for (int j = 0; j < tamSegmento; j++) {
+                        int vel = EstradaCompacta.get(janela, j);
+                        if (vel >= 0) {
+                            if (vel < vMax) vel++;
 
+                            // depois do fim da janela o carro ja nao e limitado
                             int dist = 0;
-                            for (int k = 1; k < tamEstrada; k++) {
+                            for (int k = 1; k <= limite; k++) {
                                 dist++;
-                                if (estrada[(i + k) % tamEstrada] != null) break;
+                                if (j + k < tamJanela && EstradaCompacta.get(janela, j + k) >= 0) break;
                             }
                             vel = Math.min(vel, dist - 1);
 
-                            if (random.nextDouble() < Config.PROBABILIDADE && vel > 0) vel--;
-                            v.velocidade = vel;
-                            resposta[(i + vel) % tamEstrada] = v;
+                            if (Aleatorio.uniforme(semente, step, inicio + j) < prob && vel > 0) vel--;
+                            resposta.put((byte) vel);
                         }
                     }
 
-                    out.writeObject(resposta); // manda o array de resposta
-                    out.flush(); // envia o buffer acumulado pela rede
-                    out.reset(); // limpa a tabela de referencia
+                    Protocolo.enviarQuadro(out, resposta); // manda as velocidades novas
                 }
             }
         } catch (EOFException e) {
@@ -0,0 +1,103 @@
+package distribuido.memoria.socket;
+
+import core.Observaveis;
+import core.Parametros;
+import distribuido.Protocolo;
+import distribuido.memoria.Particao;
+import model.EstradaCompacta;
+
+import java.io.*;
+import java.net.ServerSocket;
+import java.net.Socket;
+
+// slave que guarda o proprio segmento da estrada e so troca as bordas com o master a cada passo
+public class SlaveHalo {
+    static final int PORTA_BASE = 52000;
+
+    public static void main(String[] args) {
+        // define o id do slave pelo args
+        int id = (args.length > 0) ? Integer.parseInt(args[0]) : 1;
+        int porta = PORTA_BASE + (id - 1);
+        System.out.println(">>> [Socket Halo Memoria] Slave " + id + " ouvindo na porta " + porta);
+
+        try (ServerSocket server = new ServerSocket(porta)) {
+            while (true) {
+                Socket client = server.accept(); // bloqueia a conexao ate o master se conectar
+                tratarConexao(client); // executa a conexao
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    private static void tratarConexao(Socket socket) {
+        try {
+            // reduz a latencia
+            socket.setTcpNoDelay(true);
+
+            try (
+                    DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+                    DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()))
+            ) {
+                // confere a versao do protocolo dos dois lados
+                Protocolo.lerCabecalho(in);
+                Protocolo.enviarCabecalho(out);
+
+                Particao particao = null;
+                int g = 0;
+                byte[] esquerda = null;
+                byte[] direita = null;
+
+                while (true) {
+                    int operacao = in.readInt();
+                    switch (operacao) {
+                        case MasterHalo.INICIAR: {
+                            // recebe o segmento que fica com esse slave
+                            // o halo do master tem k * V_MAX celulas, e o k dele que manda no tamanho da particao
+                            int inicio = in.readInt();
+                            Parametros parametros = Protocolo.lerParametros(in);
+                            g = in.readInt();
+                            esquerda = new byte[g];
+                            direita = new byte[g];
+                            int tamanho = in.readInt();
+                            byte[] segmento = EstradaCompacta.ler(in, tamanho).paraBytes();
+                            particao = new Particao(inicio, segmento, parametros, g / parametros.vMax);
+                            break;
+                        }
+                        case MasterHalo.PASSO: {
+                            // recebe o passo, quantos passos andar, se soma as observaveis e as bordas dos vizinhos
+                            int step = in.readInt();
+                            int passos = in.readInt();
+                            boolean observar = in.readBoolean();
+                            in.readFully(esquerda);
+                            in.readFully(direita);
+                            particao.avancar(esquerda, direita, step, passos, observar);
+
+                            // devolve as bordas novas direto da janela da particao e as observaveis de cada passo
+                            particao.escreverBordas(out, g);
+                            if (observar) {
+                                Observaveis.Parcial[] observaveis = particao.getObservaveis();
+                                for (int s = 0; s < passos; s++) Protocolo.escreverParcial(out, observaveis[s]);
+                            }
+                            out.flush();
+                            break;
+                        }
+                        case MasterHalo.COLETAR: {
+                            byte[] segmento = particao.getSegmento();
+                            out.writeInt(segmento.length);
+                            EstradaCompacta.de(segmento).escrever(out);
+                            out.flush();
+                            break;
+                        }
+                        default:
+                            throw new IOException("Operacao desconhecida: " + operacao);
+                    }
+                }
+            }
+        } catch (EOFException e) {
+            System.out.println("Master desconectou.");
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+    }
+}
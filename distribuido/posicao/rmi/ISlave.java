@@ -1,5 +1,6 @@
 package distribuido.posicao.rmi;
 
+import core.Parametros;
 import model.VeiculoPosicao;
 import java.rmi.Remote;
 import java.rmi.RemoteException;
@@ -7,5 +8,7 @@ import java.util.List;
 
 public interface ISlave extends Remote {
     // recebe a estrada e os veiculos pra atualizar
-    List<VeiculoPosicao> calcularVelocidades(VeiculoPosicao[] estradaCompleta, List<VeiculoPosicao> meusVeiculos) throws RemoteException;
+    // os parametros trazem V_MAX e a chance de frear, a semente e o step escolhem os numeros aleatorios,
+    // iguais aos da versao sequencial
+    List<VeiculoPosicao> calcularVelocidades(VeiculoPosicao[] estradaCompleta, List<VeiculoPosicao> meusVeiculos, Parametros parametros, int step) throws RemoteException;
 }
\ No newline at end of file
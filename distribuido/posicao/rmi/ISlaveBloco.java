@@ -0,0 +1,27 @@
+package distribuido.posicao.rmi;
+
+import core.Parametros;
+
+import java.rmi.Remote;
+import java.rmi.RemoteException;
+
+public interface ISlaveBloco extends Remote {
+    // recebe uma vez um bloco de carros seguidos no anel, em ordem de posicao, e os parametros da simulacao
+    void iniciar(int[] posicoes, byte[] velocidades, Parametros parametros) throws RemoteException;
+
+    // avanca um passo sabendo so onde esta o carro a frente do ultimo do bloco
+    // e devolve a nova posicao do primeiro carro do bloco, que o vizinho de tras vai precisar
+    int avancar(int proxima, int step) throws RemoteException;
+
+    // o mesmo somando as observaveis do bloco, anterior e a posicao do carro atras do primeiro do bloco
+    // devolve {primeiro, ultimo, carros, soma das velocidades, parados, engarrafamentos}, com as posicoes novas
+    long[] avancarMedindo(int proxima, int anterior, int step) throws RemoteException;
+
+    // posicao atual do ultimo carro do bloco (-1 se o bloco nao tem carro)
+    int getUltima() throws RemoteException;
+
+    // estado atual do bloco, so pra juntar a estrada no fim
+    int[] getPosicoes() throws RemoteException;
+
+    byte[] getVelocidades() throws RemoteException;
+}
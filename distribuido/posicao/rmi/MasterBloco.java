@@ -0,0 +1,234 @@
+package distribuido.posicao.rmi;
+
+import core.Aleatorio;
+import core.IObservador;
+import core.Observaveis;
+import core.Parametros;
+import arquitetura.memoria.SequencialMemoriaByte;
+
+import java.rmi.registry.LocateRegistry;
+import java.rmi.registry.Registry;
+import java.util.*;
+import java.util.concurrent.*;
+
+// master rmi em que cada slave guarda um bloco de carros seguidos no anel
+// como ninguem ultrapassa, o slave so precisa saber onde esta o primeiro carro do bloco da frente
+public class MasterBloco {
+    private int numSlaves;
+    private int[] inicios;
+    private List<ISlaveBloco> slaves;
+    private ExecutorService executor;
+
+    // posicao atual do primeiro carro de cada bloco (-1 se o bloco nao tem carro)
+    // e o indice do proximo bloco com carro, pra onde o ultimo carro de cada bloco olha
+    private int[] primeiros;
+    private int[] blocoDaFrente;
+
+    // so quando mede: posicao do ultimo carro de cada bloco e o bloco com carro de tras de cada um,
+    // de onde vem a celula de tras do primeiro carro do bloco
+    private int[] ultimos;
+    private int[] blocoDeTras;
+
+    // observaveis de cada passo, cada slave soma as do seu bloco
+    private IObservador observador;
+    private final Observaveis.Parcial total = new Observaveis.Parcial();
+
+    // parametros fixos da simulacao
+    private final Parametros parametros;
+
+    // o passo continua contando entre as rodadas, pra cada passo ter seus proprios numeros aleatorios
+    private int passo;
+
+    public MasterBloco(int n) {
+        this(n, Parametros.atual());
+    }
+
+    // construtor com os parametros fixos da simulacao, os slaves recebem o que precisam deles
+    public MasterBloco(int n, Parametros parametros) {
+        this.parametros = parametros;
+        this.numSlaves = n;
+        this.slaves = new ArrayList<>();
+        this.executor = Executors.newFixedThreadPool(n);
+
+        // divide os carros em blocos que diferem no maximo em um carro
+        this.inicios = new int[n + 1];
+        for (int i = 0; i <= n; i++) inicios[i] = (int) ((long) i * parametros.numVeiculos / n);
+    }
+
+    public void conectar() throws Exception {
+        // registro rmi no localhost
+        Registry registry = LocateRegistry.getRegistry("localhost");
+        System.out.println("Procurando " + numSlaves + " slaves RMI (Bloco)...");
+
+        // a inicializacao ja sai em ordem de posicao
+        int[] pos = new int[parametros.numVeiculos];
+        byte[] vel = new byte[parametros.numVeiculos];
+        int[] n = {0};
+        Aleatorio.sortearVeiculos(parametros, (p, v) -> {
+            pos[n[0]] = p;
+            vel[n[0]] = (byte) v;
+            n[0]++;
+        });
+
+        primeiros = new int[numSlaves];
+        for (int i = 0; i < numSlaves; i++) {
+            ISlaveBloco slave = (ISlaveBloco) registry.lookup("Bloco" + (i + 1));
+            slaves.add(slave);
+
+            slave.iniciar(Arrays.copyOfRange(pos, inicios[i], inicios[i + 1]),
+                    Arrays.copyOfRange(vel, inicios[i], inicios[i + 1]), parametros);
+            primeiros[i] = inicios[i] < inicios[i + 1] ? pos[inicios[i]] : -1;
+            System.out.println(" + Conectado ao Bloco" + (i + 1));
+        }
+
+        // com menos carros que slaves alguns blocos ficam vazios e sao pulados
+        blocoDaFrente = new int[numSlaves];
+        for (int i = 0; i < numSlaves; i++) {
+            int j = (i + 1) % numSlaves;
+            while (primeiros[j] < 0 && j != i) j = (j + 1) % numSlaves;
+            blocoDaFrente[i] = j;
+        }
+        blocoDeTras = new int[numSlaves];
+        for (int i = 0; i < numSlaves; i++) {
+            if (primeiros[i] >= 0) blocoDeTras[blocoDaFrente[i]] = i;
+        }
+        ultimos = new int[numSlaves];
+    }
+
+    public void executar() throws Exception {
+        if (observador != null) {
+            executarMedindo();
+            return;
+        }
+
+        for (int step = 0; step < parametros.steps; step++) {
+            List<Future<Integer>> futures = new ArrayList<>();
+            final int stepAtual = passo++;
+
+            for (int i = 0; i < numSlaves; i++) {
+                final ISlaveBloco slave = slaves.get(i);
+                final int proxima = primeiros[blocoDaFrente[i]];
+
+                // manda so a posicao do carro da frente do bloco
+                futures.add(executor.submit(() -> slave.avancar(proxima, stepAtual)));
+            }
+
+            // so troca os primeiros depois que todos os slaves leram os antigos
+            for (int i = 0; i < numSlaves; i++) primeiros[i] = futures.get(i).get();
+
+            if (parametros.modoVisual) {
+                SequencialMemoriaByte.imprimirEstrada(getEstrada(), step);
+                try { Thread.sleep(parametros.delayVisualMs); } catch (Exception e) {}
+            }
+        }
+    }
+
+    // mesmo laco com cada slave somando as observaveis do bloco, que tambem precisa da posicao do ultimo carro
+    // do bloco de tras (um int a mais em cada sentido)
+    private void executarMedindo() throws Exception {
+        for (int i = 0; i < numSlaves; i++) ultimos[i] = slaves.get(i).getUltima();
+
+        for (int step = 0; step < parametros.steps; step++) {
+            List<Future<long[]>> futures = new ArrayList<>();
+            final int stepAtual = passo++;
+
+            for (int i = 0; i < numSlaves; i++) {
+                final ISlaveBloco slave = slaves.get(i);
+                final int proxima = primeiros[blocoDaFrente[i]];
+                final int anterior = ultimos[blocoDeTras[i]];
+
+                futures.add(executor.submit(() -> slave.avancarMedindo(proxima, anterior, stepAtual)));
+            }
+
+            // so troca as pontas depois que todos os slaves leram as antigas
+            total.zerar();
+            for (int i = 0; i < numSlaves; i++) {
+                long[] r = futures.get(i).get();
+                primeiros[i] = (int) r[0];
+                ultimos[i] = (int) r[1];
+                total.carros += (int) r[2];
+                total.somaVelocidades += r[3];
+                total.parados += (int) r[4];
+                total.engarrafamentos += (int) r[5];
+            }
+            observador.observar(step, total.fechar(parametros.tamEstrada));
+
+            if (parametros.modoVisual) {
+                SequencialMemoriaByte.imprimirEstrada(getEstrada(), step);
+                try { Thread.sleep(parametros.delayVisualMs); } catch (Exception e) {}
+            }
+        }
+    }
+
+    // liga o observador das observaveis de cada passo (null desliga)
+    public void setObservador(IObservador observador) {
+        this.observador = observador;
+    }
+
+    // junta os blocos de todos os slaves, velocidade de cada celula e -1 nas vazias
+    public byte[] getEstrada() throws Exception {
+        byte[] estrada = new byte[parametros.tamEstrada];
+        Arrays.fill(estrada, (byte) -1);
+        for (ISlaveBloco slave : slaves) {
+            int[] pos = slave.getPosicoes();
+            byte[] vel = slave.getVelocidades();
+            for (int k = 0; k < pos.length; k++) estrada[pos[k]] = vel[k];
+        }
+        return estrada;
+    }
+
+    public void encerrar() {
+        executor.shutdown(); // encerra o pool de threads local
+    }
+
+    public static void main(String[] args) {
+        // define o numero de slaves e rodadas pelo args
+        int n = (args.length > 0) ? Integer.parseInt(args[0]) : 2;
+        int rounds = (args.length > 1) ? Integer.parseInt(args[1]) : 5;
+
+        try {
+            System.out.println(" Master RMI Bloco (Posicao) - Slaves: " + n + " | Rodadas: " + rounds);
+
+            MasterBloco master = new MasterBloco(n);
+            master.conectar();
+
+            // warmup
+            master.executar();
+
+            long somaTempo = 0;
+            long maxMemoria = 0;
+
+            // loop de medicoes
+            for (int i = 1; i <= rounds; i++) {
+                System.gc(); Thread.sleep(500);
+
+                long memAntes = MasterPosicao.medMemoria();
+                long start = System.nanoTime();
+
+                master.executar();
+
+                long end = System.nanoTime();
+                long memDepois = MasterPosicao.medMemoria();
+
+                long tempoMs = (end - start) / 1_000_000;
+                long usoMem = Math.max(0, memDepois - memAntes);
+
+                somaTempo += tempoMs;
+                if (usoMem > maxMemoria) maxMemoria = usoMem;
+
+                System.out.printf("Rodada %d: %d ms | %d MB\n", i, tempoMs, usoMem);
+            }
+
+            master.encerrar();
+
+            // resultado final media
+            double media = (double) somaTempo / rounds;
+            System.out.println("\nResultado Final:");
+            System.out.printf("Tempo Medio: %.1f ms\n", media);
+            System.out.printf("Memoria Pico: %d MB\n", maxMemoria);
+
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+    }
+}
@@ -1,6 +1,8 @@
 package distribuido.posicao.rmi;
 
-import core.Config;
+import core.IObservador;
+import core.Observaveis;
+import core.Parametros;
 import model.VeiculoPosicao;
 import arquitetura.posicao.SequencialPosicao;
 
@@ -16,10 +18,26 @@ public class MasterPosicao {
     private List<ISlave> slaves;
     private ExecutorService executor;
 
+    // parametros fixos da simulacao
+    private final Parametros parametros;
+
+    // observaveis de cada passo, somadas enquanto os carros das respostas andam
+    private IObservador observador;
+    private final Observaveis.Parcial medicao = new Observaveis.Parcial();
+
+    // o passo continua contando entre as rodadas, pra cada passo ter seus proprios numeros aleatorios
+    private int passo;
+
     public MasterPosicao(int n) {
+        this(n, Parametros.atual());
+    }
+
+    // construtor com os parametros fixos da simulacao, os slaves recebem o que precisam deles
+    public MasterPosicao(int n, Parametros parametros) {
+        this.parametros = parametros;
         this.numSlaves = n;
-        this.estrada = new VeiculoPosicao[Config.L];
-        this.veiculosList = SequencialPosicao.gerarListaInicial(this.estrada);
+        this.estrada = new VeiculoPosicao[parametros.tamEstrada];
+        this.veiculosList = SequencialPosicao.gerarListaInicial(parametros, this.estrada);
         this.slaves = new ArrayList<>();
         this.executor = Executors.newFixedThreadPool(n);
     }
@@ -38,10 +56,11 @@ public class MasterPosicao {
         // calcula o tamanho dos veiculos com base na quantidade de Slaves
         int chunkSize = (int) Math.ceil((double) veiculosList.size() / numSlaves);
 
-        for (int step = 0; step < Config.STEPS; step++) {
+        for (int step = 0; step < parametros.steps; step++) {
             // lista de tarefas e a copia da estrada
             List<Future<List<VeiculoPosicao>>> futures = new ArrayList<>();
-            final VeiculoPosicao[] copiaEstrada = Arrays.copyOf(estrada, Config.L);
+            final int stepAtual = passo++;
+            final VeiculoPosicao[] copiaEstrada = Arrays.copyOf(estrada, parametros.tamEstrada);
 
             for (int i = 0; i < numSlaves; i++) {
                 final int id = i;
@@ -52,32 +71,50 @@ public class MasterPosicao {
 
                 // manda os veiculos e a estrada pra processamento
                 futures.add(executor.submit(() ->
-                        slaves.get(id).calcularVelocidades(copiaEstrada, subLista)
+                        slaves.get(id).calcularVelocidades(copiaEstrada, subLista, parametros, stepAtual)
                 ));
             }
 
-            // limpa a estrada
-            Arrays.fill(estrada, null);
+            // limpa a estrada so nas celulas onde os carros estavam
+            for (VeiculoPosicao v : veiculosList) estrada[v.posicao] = null;
             List<VeiculoPosicao> novaLista = new ArrayList<>();
+            final boolean medir = observador != null;
+            if (medir) medicao.zerar();
 
             // aguarda resposta dos slaves, move os veiculos e reorganiza a estrada
             for (Future<List<VeiculoPosicao>> f : futures) {
                 List<VeiculoPosicao> parcial = f.get(); // bloqueia ate receber as respostas
                 for (VeiculoPosicao v : parcial) {
-                    v.andar(Config.L);
+                    // a copia da estrada ainda e a do passo anterior
+                    if (medir) {
+                        int p = v.posicao;
+                        medicao.adicionar(v.velocidade, copiaEstrada[p == 0 ? parametros.tamEstrada - 1 : p - 1] == null);
+                    }
+                    v.andar(parametros.tamEstrada);
                     estrada[v.posicao] = v;
                     novaLista.add(v);
                 }
             }
             this.veiculosList = novaLista;
+            if (medir) observador.observar(step, medicao.fechar(parametros.tamEstrada));
 
-            if (Config.MODO_VISUAL) {
+            if (parametros.modoVisual) {
                 imprimirEstrada(estrada, step);
-                try { Thread.sleep(Config.DELAY_VISUAL_MS); } catch (Exception e) {}
+                try { Thread.sleep(parametros.delayVisualMs); } catch (Exception e) {}
             }
         }
     }
 
+    // liga o observador das observaveis de cada passo (null desliga)
+    public void setObservador(IObservador observador) {
+        this.observador = observador;
+    }
+
+    // velocidade de cada celula da estrada atual, -1 nas vazias
+    public byte[] getEstrada() {
+        return SequencialPosicao.paraBytes(veiculosList, parametros.tamEstrada);
+    }
+
     public void encerrar() {
         executor.shutdown(); // encerra o pool de threads local
     }
@@ -0,0 +1,70 @@
+package distribuido.posicao.rmi;
+
+import arquitetura.posicao.SequencialPosicaoAnel;
+import core.Observaveis;
+import core.Parametros;
+import java.rmi.registry.LocateRegistry;
+import java.rmi.registry.Registry;
+import java.rmi.server.UnicastRemoteObject;
+import java.rmi.RemoteException;
+
+// slave que guarda o proprio bloco de carros entre as chamadas, cada passo so troca um int em cada sentido
+public class SlaveBloco implements ISlaveBloco {
+    private int[] pos;
+    private byte[] vel;
+    private Parametros parametros;
+
+    @Override
+    public void iniciar(int[] posicoes, byte[] velocidades, Parametros parametros) throws RemoteException {
+        this.pos = posicoes;
+        this.vel = velocidades;
+        this.parametros = parametros;
+    }
+
+    @Override
+    public int avancar(int proxima, int step) throws RemoteException {
+        SequencialPosicaoAnel.passo(pos, vel, proxima, parametros, step);
+        return pos.length > 0 ? pos[0] : -1;
+    }
+
+    @Override
+    public long[] avancarMedindo(int proxima, int anterior, int step) throws RemoteException {
+        Observaveis.Parcial parcial = new Observaveis.Parcial();
+        SequencialPosicaoAnel.passo(pos, vel, proxima, anterior, parametros, step, parcial);
+        return new long[]{pos.length > 0 ? pos[0] : -1, getUltima(), parcial.carros, parcial.somaVelocidades,
+                parcial.parados, parcial.engarrafamentos};
+    }
+
+    @Override
+    public int getUltima() throws RemoteException {
+        return pos.length > 0 ? pos[pos.length - 1] : -1;
+    }
+
+    @Override
+    public int[] getPosicoes() throws RemoteException {
+        return pos;
+    }
+
+    @Override
+    public byte[] getVelocidades() throws RemoteException {
+        return vel;
+    }
+
+    public static void main(String[] args) {
+        try {
+            // define o nome do slave pelo args
+            String nome = (args.length > 0) ? args[0] : "Bloco1";
+
+            SlaveBloco obj = new SlaveBloco();
+            // exporta o objeto com uma porta anonima
+            ISlaveBloco stub = (ISlaveBloco) UnicastRemoteObject.exportObject(obj, 0);
+            // registro rmi rodando na porta padrao
+            Registry registry = LocateRegistry.getRegistry();
+            registry.rebind(nome, stub);
+
+            System.out.println(">>> [RMI Bloco] Servidor '" + nome + "' pronto.");
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+    }
+}
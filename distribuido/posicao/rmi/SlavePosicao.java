@@ -1,29 +1,31 @@
 package distribuido.posicao.rmi;
 
-import core.Config;
+import core.Aleatorio;
+import core.Parametros;
 import model.VeiculoPosicao;
 import java.rmi.registry.LocateRegistry;
 import java.rmi.registry.Registry;
 import java.rmi.server.UnicastRemoteObject;
 import java.util.List;
-import java.util.Random;
 import java.rmi.RemoteException;
 
 public class SlavePosicao implements ISlave {
-    private final Random random = new Random();
-
     @Override
-    public List<VeiculoPosicao> calcularVelocidades(VeiculoPosicao[] estradaCompleta, List<VeiculoPosicao> meusVeiculos) throws RemoteException {
-        int tamEstrada = estradaCompleta.length;
+    public List<VeiculoPosicao> calcularVelocidades(VeiculoPosicao[] estradaCompleta, List<VeiculoPosicao> meusVeiculos, Parametros parametros, int step) throws RemoteException {
+        // copia os parametros pra variaveis locais fora do loop
+        final int tamEstrada = estradaCompleta.length;
+        final int vMax = parametros.vMax;
+        final double prob = parametros.probabilidade;
+        final long semente = parametros.semente;
 
         // calcula a velocidade
         for (VeiculoPosicao v : meusVeiculos) {
             int vel = v.velocidade;
 
-            if (vel < Config.V_MAX) vel++;
+            if (vel < vMax) vel++;
 
             int dist = 1;
-            while (dist <= Config.V_MAX) {
+            while (dist <= vMax) {
                 int andar = (v.posicao + dist) % tamEstrada;
                 if (estradaCompleta[andar] != null) break;
                 dist++;
@@ -31,7 +33,7 @@ public class SlavePosicao implements ISlave {
 
             vel = Math.min(vel, dist - 1);
 
-            if (random.nextDouble() < Config.PROBABILIDADE) {
+            if (Aleatorio.uniforme(semente, step, v.posicao) < prob) {
                 vel = Math.max(vel - 1, 0);
             }
 
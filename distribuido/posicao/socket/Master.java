@@ -1,11 +1,15 @@
 package distribuido.posicao.socket;
 
-import core.Config;
+import core.IObservador;
+import core.Observaveis;
+import core.Parametros;
 import model.VeiculoPosicao;
 import arquitetura.posicao.SequencialPosicao;
+import distribuido.Protocolo;
 
 import java.io.*;
 import java.net.Socket;
+import java.nio.ByteBuffer;
 import java.util.*;
 import java.util.concurrent.*;
 
@@ -13,16 +17,36 @@ public class Master {
     static final String HOST = "localhost";
     static final int PORTA_BASE = 51000;
 
+    // tamanho da estrada, V_MAX, probabilidade, semente, passo, quantidade de carros e posicao do carro da frente
+    // do bloco, antes das posicoes (int) e velocidades (byte) dos carros
+    static final int CABECALHO_PASSO = 4 + 4 + 8 + 8 + 4 + 4 + 4;
+
     private int numSlaves;
     private VeiculoPosicao[] estrada;
     private List<VeiculoPosicao> veiculosList;
     private List<SocketContext> conexoes;
     private ExecutorService executor;
 
+    // parametros fixos da simulacao
+    private final Parametros parametros;
+
+    // observaveis de cada passo, somadas enquanto as respostas dos slaves sao aplicadas
+    private IObservador observador;
+    private final Observaveis.Parcial parcial = new Observaveis.Parcial();
+
+    // o passo continua contando entre as rodadas, pra cada passo ter seus proprios numeros aleatorios
+    private int passo;
+
     public Master(int n) {
+        this(n, Parametros.atual());
+    }
+
+    // construtor com os parametros fixos da simulacao, os slaves recebem o que precisam deles
+    public Master(int n, Parametros parametros) {
+        this.parametros = parametros;
         this.numSlaves = n;
-        this.estrada = new VeiculoPosicao[Config.L];
-        this.veiculosList = SequencialPosicao.gerarListaInicial(this.estrada);
+        this.estrada = new VeiculoPosicao[parametros.tamEstrada];
+        this.veiculosList = SequencialPosicao.gerarListaInicial(parametros, this.estrada);
         this.conexoes = new ArrayList<>();
         this.executor = Executors.newFixedThreadPool(n);
     }
@@ -40,50 +64,95 @@ public class Master {
         // define o tamanho da lista de veiculos com base nos slaves
         int chunkSize = (int) Math.ceil((double) veiculosList.size() / numSlaves);
 
-        for (int step = 0; step < Config.STEPS; step++) {
-            // copia da estrada
-            final VeiculoPosicao[] copiaEstrada = Arrays.copyOf(estrada, Config.L);
-            List<Future<List<VeiculoPosicao>>> futures = new ArrayList<>();
+        for (int step = 0; step < parametros.steps; step++) {
+            final List<VeiculoPosicao> lista = veiculosList;
+            final int total = lista.size();
+            List<Future<ByteBuffer>> futures = new ArrayList<>();
+            final int stepAtual = passo++;
 
             for (int i = 0; i < numSlaves; i++) {
-                int inicio = i * chunkSize;
-                int fim = Math.min(inicio + chunkSize, veiculosList.size());
-                List<VeiculoPosicao> subLista = new ArrayList<>(veiculosList.subList(inicio, fim));
+                final int inicio = Math.min(i * chunkSize, total);
+                final int fim = Math.min(inicio + chunkSize, total);
                 SocketContext ctx = conexoes.get(i);
 
                 futures.add(executor.submit(() -> {
                     synchronized (ctx) {
-                        ctx.out.writeObject(copiaEstrada); // envia a copia da estrada
-                        ctx.out.writeObject(subLista); // envia a lista dos veiculos
-                        ctx.out.flush(); // envia os dados
-                        ctx.out.reset(); // limpa o cache
-                        return (List<VeiculoPosicao>) ctx.in.readObject(); // bloqueia ate ter as respostas dos slaves
+                        ctx.envio = Protocolo.preparar(ctx.envio, CABECALHO_PASSO + (fim - inicio) * 5);
+                        escreverPasso(ctx.envio, lista, inicio, fim, parametros, stepAtual);
+                        Protocolo.enviarQuadro(ctx.out, ctx.envio);
+
+                        // bloqueia ate ter a nova velocidade de cada carro do bloco
+                        ctx.recebido = Protocolo.lerQuadro(ctx.in, ctx.recebido);
+                        return ctx.recebido;
                     }
                 }));
             }
 
-            // limpa a estrada
-            Arrays.fill(estrada, null);
-            List<VeiculoPosicao> novaLista = new ArrayList<>();
+            // espera todos os slaves antes de mexer nos carros, que ainda estao sendo lidos pelas outras tarefas
+            ByteBuffer[] respostas = new ByteBuffer[numSlaves];
+            for (int i = 0; i < numSlaves; i++) respostas[i] = futures.get(i).get();
 
-            // espera todos os slaves e agrupa os resultados
-            for (Future<List<VeiculoPosicao>> f : futures) {
-                List<VeiculoPosicao> parcial = f.get();
-                for (VeiculoPosicao v : parcial) {
-                    v.andar(Config.L);
+            // limpa a estrada so nas celulas onde os carros estavam
+            for (VeiculoPosicao v : lista) estrada[v.posicao] = null;
+
+            // aplica as velocidades na mesma ordem em que foram enviadas e anda com os carros
+            // anterior e a posicao antes do passo do carro de tras, o do primeiro e o ultimo da lista
+            final boolean medir = observador != null;
+            if (medir) parcial.zerar();
+            int anterior = (total == 0) ? 0 : lista.get(total - 1).posicao;
+            for (int i = 0; i < numSlaves; i++) {
+                int inicio = Math.min(i * chunkSize, total);
+                int fim = Math.min(inicio + chunkSize, total);
+                for (int k = inicio; k < fim; k++) {
+                    VeiculoPosicao v = lista.get(k);
+                    v.velocidade = respostas[i].get();
+                    if (medir) {
+                        int p = v.posicao;
+                        parcial.adicionar(v.velocidade, anterior != (p == 0 ? parametros.tamEstrada - 1 : p - 1));
+                        anterior = p;
+                    }
+                    v.andar(parametros.tamEstrada);
                     estrada[v.posicao] = v;
-                    novaLista.add(v);
                 }
             }
-            this.veiculosList = novaLista;
 
-            if (Config.MODO_VISUAL) {
+            if (medir) observador.observar(step, parcial.fechar(parametros.tamEstrada));
+
+            if (parametros.modoVisual) {
                 imprimirEstrada(estrada, step);
-                try { Thread.sleep(Config.DELAY_VISUAL_MS); } catch (Exception e) {}
+                try { Thread.sleep(parametros.delayVisualMs); } catch (Exception e) {}
             }
         }
     }
 
+    // monta o corpo do quadro de um passo com os carros [inicio, fim) da lista, tambem usado pelo master nio
+    static void escreverPasso(ByteBuffer quadro, List<VeiculoPosicao> lista, int inicio, int fim, Parametros parametros, int step) {
+        int total = lista.size();
+        quadro.putInt(parametros.tamEstrada); // tamanho da estrada
+        quadro.putInt(parametros.vMax); // velocidade maxima
+        quadro.putDouble(parametros.probabilidade); // chance de frear
+        quadro.putLong(parametros.semente); // semente
+        quadro.putInt(step); // passo atual
+        quadro.putInt(fim - inicio); // quantidade de carros do bloco
+
+        // como ninguem ultrapassa, a lista fica sempre na ordem do anel e o carro da frente
+        // do ultimo do bloco e o primeiro do proximo bloco (o ultimo da lista olha pro primeiro)
+        quadro.putInt(total == 0 ? 0 : lista.get(fim % total).posicao);
+
+        for (int k = inicio; k < fim; k++) quadro.putInt(lista.get(k).posicao); // posicoes
+        for (int k = inicio; k < fim; k++) quadro.put((byte) lista.get(k).velocidade); // velocidades
+    }
+
+    // liga o observador das observaveis de cada passo (null desliga)
+    public void setObservador(IObservador observador) {
+        this.observador = observador;
+    }
+
+    // velocidade de cada celula da estrada atual, -1 nas vazias
+    public byte[] getEstrada() {
+        return SequencialPosicao.paraBytes(veiculosList, parametros.tamEstrada);
+    }
+
     public void fechar() {
         executor.shutdown(); // encerra o pool de threads
         for(SocketContext ctx : conexoes) ctx.fechar(); // fecha os sockets
@@ -145,11 +214,15 @@ public class Master {
         return (rt.totalMemory() - rt.freeMemory()) / (1024 * 1024);
     }
 
-    // classe pra gerenciar os sockets e o fluxo IO
+    // classe pra gerenciar os sockets, o fluxo IO e os buffers dos quadros
     static class SocketContext {
         Socket s;
-        ObjectOutputStream out;
-        ObjectInputStream in;
+        DataOutputStream out;
+        DataInputStream in;
+
+        // reaproveitados entre os passos
+        ByteBuffer envio;
+        ByteBuffer recebido;
 
         SocketContext(String host, int port) throws IOException {
             s = new Socket(host, port);
@@ -157,10 +230,12 @@ public class Master {
             // agrupa os bytes antes de enviar
             s.setTcpNoDelay(true); // desliga o algoritmo de Nagle
 
-            out = new ObjectOutputStream(new BufferedOutputStream(s.getOutputStream()));
-            out.flush(); // envia o cabeçalho inicial
+            out = new DataOutputStream(new BufferedOutputStream(s.getOutputStream()));
+            in = new DataInputStream(new BufferedInputStream(s.getInputStream()));
 
-            in = new ObjectInputStream(new BufferedInputStream(s.getInputStream()));
+            // confere a versao do protocolo dos dois lados
+            Protocolo.enviarCabecalho(out);
+            Protocolo.lerCabecalho(in);
         }
 
         void fechar() { try { s.close(); } catch (Exception e) {} }
@@ -0,0 +1,156 @@
+package distribuido.posicao.socket;
+
+import core.IObservador;
+import core.Observaveis;
+import core.Parametros;
+import model.VeiculoPosicao;
+import arquitetura.posicao.SequencialPosicao;
+import distribuido.ConexoesNio;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.util.*;
+
+// master com uma unica thread e Selector no lugar do pool com uma thread bloqueada por slave
+// fala o mesmo protocolo binario do Master, entao usa os mesmos slaves
+public class MasterNio {
+    private int numSlaves;
+    private List<VeiculoPosicao> veiculosList;
+    private ConexoesNio conexoes;
+
+    // parametros fixos da simulacao
+    private final Parametros parametros;
+
+    // observaveis de cada passo, somadas enquanto as respostas dos slaves sao aplicadas
+    private IObservador observador;
+    private final Observaveis.Parcial parcial = new Observaveis.Parcial();
+
+    // o passo continua contando entre as rodadas, pra cada passo ter seus proprios numeros aleatorios
+    private int passo;
+
+    public MasterNio(int n) {
+        this(n, Parametros.atual());
+    }
+
+    // construtor com os parametros fixos da simulacao, os slaves recebem o que precisam deles
+    public MasterNio(int n, Parametros parametros) {
+        this.parametros = parametros;
+        this.numSlaves = n;
+        this.veiculosList = SequencialPosicao.gerarListaInicial(parametros);
+    }
+
+    public void conectar() throws IOException {
+        System.out.println("Tentando conectar a " + numSlaves + " slaves (Socket NIO Posicao)...");
+        conexoes = new ConexoesNio(Master.HOST, Master.PORTA_BASE, numSlaves);
+    }
+
+    public void executar() throws Exception {
+        // define o tamanho do bloco de veiculos com base nos slaves
+        int total = veiculosList.size();
+        int chunkSize = (int) Math.ceil((double) total / numSlaves);
+
+        for (int step = 0; step < parametros.steps; step++) {
+            int stepAtual = passo++;
+
+            // monta o quadro de cada slave e troca todos de uma vez no selector
+            for (int i = 0; i < numSlaves; i++) {
+                int inicio = Math.min(i * chunkSize, total);
+                int fim = Math.min(inicio + chunkSize, total);
+                ByteBuffer quadro = conexoes.quadro(i, Master.CABECALHO_PASSO + (fim - inicio) * 5);
+                Master.escreverPasso(quadro, veiculosList, inicio, fim, parametros, stepAtual);
+            }
+            ByteBuffer[] respostas = conexoes.trocar();
+
+            // aplica as velocidades na mesma ordem em que foram enviadas e anda com os carros
+            // anterior e a posicao antes do passo do carro de tras, o do primeiro e o ultimo da lista
+            final boolean medir = observador != null;
+            if (medir) parcial.zerar();
+            int anterior = (total == 0) ? 0 : veiculosList.get(total - 1).posicao;
+            for (int i = 0; i < numSlaves; i++) {
+                int inicio = Math.min(i * chunkSize, total);
+                int fim = Math.min(inicio + chunkSize, total);
+                for (int k = inicio; k < fim; k++) {
+                    VeiculoPosicao v = veiculosList.get(k);
+                    v.velocidade = respostas[i].get();
+                    if (medir) {
+                        int p = v.posicao;
+                        parcial.adicionar(v.velocidade, anterior != (p == 0 ? parametros.tamEstrada - 1 : p - 1));
+                        anterior = p;
+                    }
+                    v.andar(parametros.tamEstrada);
+                }
+            }
+
+            if (medir) observador.observar(step, parcial.fechar(parametros.tamEstrada));
+
+            if (parametros.modoVisual) {
+                SequencialPosicao.imprimirEstrada(veiculosList, parametros.tamEstrada, step);
+                try { Thread.sleep(parametros.delayVisualMs); } catch (Exception e) {}
+            }
+        }
+    }
+
+    // liga o observador das observaveis de cada passo (null desliga)
+    public void setObservador(IObservador observador) {
+        this.observador = observador;
+    }
+
+    // velocidade de cada celula da estrada atual, -1 nas vazias
+    public byte[] getEstrada() {
+        return SequencialPosicao.paraBytes(veiculosList, parametros.tamEstrada);
+    }
+
+    public void fechar() {
+        conexoes.fechar(); // fecha os canais e o selector
+    }
+
+    public static void main(String[] args) {
+        // le o numero de slaves e rodadas pelos args
+        int n = (args.length > 0) ? Integer.parseInt(args[0]) : 2;
+        int rounds = (args.length > 1) ? Integer.parseInt(args[1]) : 5;
+
+        try {
+            System.out.println(" Master Socket NIO (Posicao) - Slaves: " + n + " | Rodadas: " + rounds);
+
+            MasterNio master = new MasterNio(n);
+            master.conectar();
+
+            // warmup
+            master.executar();
+
+            long somaTempo = 0;
+            long maxMemoria = 0;
+
+            // loop de medicoes
+            for (int i = 1; i <= rounds; i++) {
+                System.gc(); Thread.sleep(500);
+
+                long memAntes = Master.medMemoria();
+                long start = System.nanoTime();
+
+                master.executar();
+
+                long end = System.nanoTime();
+                long memDepois = Master.medMemoria();
+
+                long tempoMs = (end - start) / 1_000_000;
+                long usoMem = Math.max(0, memDepois - memAntes);
+
+                somaTempo += tempoMs;
+                if (usoMem > maxMemoria) maxMemoria = usoMem;
+
+                System.out.printf("Rodada %d: %d ms | %d MB\n", i, tempoMs, usoMem);
+            }
+
+            master.fechar();
+
+            double media = (double) somaTempo / rounds;
+            System.out.println("\nResultado Final:");
+            System.out.printf("Tempo Medio: %.1f ms\n", media);
+            System.out.printf("Memoria Pico: %d MB\n", maxMemoria);
+
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+    }
+}
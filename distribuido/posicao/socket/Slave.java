@@ -1,12 +1,11 @@
 package distribuido.posicao.socket;
 
-import core.Config;
-import model.VeiculoPosicao;
+import core.Aleatorio;
+import distribuido.Protocolo;
 import java.io.*;
 import java.net.ServerSocket;
 import java.net.Socket;
-import java.util.List;
-import java.util.Random;
+import java.nio.ByteBuffer;
 
 public class Slave {
     // Mantive a porta 51000 do seu código original
@@ -34,40 +33,49 @@ public class Slave {
             socket.setTcpNoDelay(true);
 
             // buffering
-            try (ObjectOutputStream out = new ObjectOutputStream(new BufferedOutputStream(socket.getOutputStream()));
-                 ObjectInputStream in = new ObjectInputStream(new BufferedInputStream(socket.getInputStream()))) {
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+                 DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()))) {
 
-                // envia o cabeçalho de serializacao
-                out.flush();
+                // confere a versao do protocolo dos dois lados
+                Protocolo.lerCabecalho(in);
+                Protocolo.enviarCabecalho(out);
 
-                Random random = new Random();
+                // reaproveitados entre os passos
+                ByteBuffer quadro = null;
+                ByteBuffer resposta = null;
 
                 while (true) {
-                    // le a estrada e a lista de veículos
-                    VeiculoPosicao[] estrada = (VeiculoPosicao[]) in.readObject();
-                    List<VeiculoPosicao> meusVeiculos = (List<VeiculoPosicao>) in.readObject();
+                    // le o tamanho da estrada, V_MAX, a probabilidade, a semente, o passo e o bloco de carros
+                    quadro = Protocolo.lerQuadro(in, quadro);
+                    int tamEstrada = quadro.getInt();
+                    int vMax = quadro.getInt();
+                    double prob = quadro.getDouble();
+                    long semente = quadro.getLong();
+                    int step = quadro.getInt();
+                    int n = quadro.getInt();
+                    int proxima = quadro.getInt();
+                    int posicoes = quadro.position();
+                    int velocidades = posicoes + 4 * n;
 
-                    int tamEstrada = estrada.length;
+                    resposta = Protocolo.preparar(resposta, n);
 
-                    // calcula a velocidade
-                    for (VeiculoPosicao v : meusVeiculos) {
-                        int vel = v.velocidade;
-                        if (vel < Config.V_MAX) vel++;
+                    // calcula a velocidade, os carros vem na ordem do anel
+                    for (int k = 0; k < n; k++) {
+                        int p = quadro.getInt(posicoes + 4 * k);
+                        int vel = quadro.get(velocidades + k);
+                        if (vel < vMax) vel++;
+
+                        // distancia pro carro da frente (sozinho na estrada o carro da a volta inteira)
+                        int frente = (k + 1 < n) ? quadro.getInt(posicoes + 4 * (k + 1)) : proxima;
+                        int dist = frente - p;
+                        if (dist <= 0) dist += tamEstrada;
 
-                        int dist = 1;
-                        while (dist <= Config.V_MAX) {
-                            int andar = (v.posicao + dist) % tamEstrada;
-                            if (estrada[andar] != null) break;
-                            dist++;
-                        }
                         vel = Math.min(vel, dist - 1);
-                        if (random.nextDouble() < Config.PROBABILIDADE) vel = Math.max(vel - 1, 0);
-                        v.velocidade = vel;
+                        if (Aleatorio.uniforme(semente, step, p) < prob) vel = Math.max(vel - 1, 0);
+                        resposta.put((byte) vel);
                     }
 
-                    out.writeObject(meusVeiculos); // envia a lista de veiculos atualizado
-                    out.flush(); // envia o buffer
-                    out.reset(); // limpa o cache de referencias
+                    Protocolo.enviarQuadro(out, resposta); // envia as velocidades novas
                 }
             }
         } catch (EOFException e) {
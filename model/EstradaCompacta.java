@@ -0,0 +1,164 @@
+package model;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.io.Serializable;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+
+public class EstradaCompacta implements Serializable {
+    // versao da classe
+    private static final long serialVersionUID = 1L;
+
+    // 4 bits por celula, 16 celulas por palavra: 0 e vazia e v + 1 e um carro com velocidade v
+    public static final int CELULAS_POR_PALAVRA = 16;
+    public static final int VELOCIDADE_MAX = 14;
+
+    // le 8 celulas de uma estrada de bytes num long, a celula de indice menor no byte mais baixo
+    private static final VarHandle OITO_BYTES = MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+
+    private final int tamanho;
+    private final long[] palavras;
+
+    // construtor, a estrada comeca vazia
+    public EstradaCompacta(int tamanho) {
+        this.tamanho = tamanho;
+        this.palavras = new long[numPalavras(tamanho)];
+    }
+
+    // compacta uma estrada de bytes (velocidade ou -1 nas vazias)
+    public static EstradaCompacta de(byte[] estrada) {
+        EstradaCompacta compacta = new EstradaCompacta(estrada.length);
+        for (int i = 0; i < estrada.length; i++) {
+            if (estrada[i] >= 0) compacta.set(i, estrada[i]);
+        }
+        return compacta;
+    }
+
+    // compacta uma estrada de bytes do mesmo tamanho por cima desta, sem alocar
+    // as palavras cheias saem de 8 celulas por vez (SWAR), so a ultima palavra incompleta vai celula a celula
+    public void compactar(byte[] estrada) {
+        int cheias = tamanho / CELULAS_POR_PALAVRA;
+        for (int w = 0; w < cheias; w++) {
+            int base = w * CELULAS_POR_PALAVRA;
+            long baixa = (long) OITO_BYTES.get(estrada, base);
+            long alta = (long) OITO_BYTES.get(estrada, base + 8);
+            palavras[w] = nibbles(baixa) | (nibbles(alta) << 32);
+        }
+        if (cheias < palavras.length) {
+            long palavra = 0;
+            for (int i = cheias * CELULAS_POR_PALAVRA; i < tamanho; i++) {
+                palavra |= (long) ((estrada[i] + 1) & 0xF) << ((i & 15) << 2);
+            }
+            palavras[cheias] = palavra;
+        }
+    }
+
+    // 8 bytes de velocidade (-1 nas vazias) viram 8 nibbles v + 1 nos 32 bits baixos
+    private static long nibbles(long oito) {
+        // soma 1 em cada byte sem vai-um pro vizinho (o -1 das vazias vira 0)
+        long x = ((oito & 0x7F7F7F7F7F7F7F7FL) + 0x0101010101010101L) ^ (oito & 0x8080808080808080L);
+        x &= 0x0F0F0F0F0F0F0F0FL;
+        // junta os nibbles dos bytes vizinhos, depois dos pares e depois dos quartetos
+        x = (x | (x >>> 4)) & 0x00FF00FF00FF00FFL;
+        x = (x | (x >>> 8)) & 0x0000FFFF0000FFFFL;
+        return (x | (x >>> 16)) & 0xFFFFFFFFL;
+    }
+
+    public static int numPalavras(int celulas) {
+        return (celulas + CELULAS_POR_PALAVRA - 1) / CELULAS_POR_PALAVRA;
+    }
+
+    // bytes que as celulas ocupam compactadas, na memoria ou na rede
+    public static int tamanhoEmBytes(int celulas) {
+        return numPalavras(celulas) * Long.BYTES;
+    }
+
+    // nibble de um carro ja deslocado pra posicao da celula dentro da palavra
+    public static long nibble(int velocidade, int celula) {
+        return (long) (velocidade + 1) << ((celula & 15) << 2);
+    }
+
+    // velocidade do carro na celula da palavra, -1 se vazia
+    public static int celula(long palavra, int celula) {
+        return ((int) (palavra >>> ((celula & 15) << 2)) & 0xF) - 1;
+    }
+
+    // velocidade da celula i, -1 se vazia
+    public static int get(long[] palavras, int i) {
+        return celula(palavras[i >>> 4], i);
+    }
+
+    public int get(int i) {
+        return get(palavras, i);
+    }
+
+    public boolean vazia(int i) {
+        return get(palavras, i) < 0;
+    }
+
+    // poe um carro com velocidade v numa celula que esta vazia
+    public static void ocupar(long[] palavras, int i, int v) {
+        palavras[i >>> 4] |= nibble(v, i);
+    }
+
+    // poe um carro com velocidade v na celula i
+    public void set(int i, int v) {
+        int deslocamento = (i & 15) << 2;
+        palavras[i >>> 4] = (palavras[i >>> 4] & ~(0xFL << deslocamento)) | ((long) (v + 1) << deslocamento);
+    }
+
+    // esvazia a celula i
+    public void esvaziar(int i) {
+        palavras[i >>> 4] &= ~(0xFL << ((i & 15) << 2));
+    }
+
+    // limpa a estrada inteira escrevendo L/16 palavras
+    public void limpar() {
+        Arrays.fill(palavras, 0L);
+    }
+
+    public int getTamanho() {
+        return tamanho;
+    }
+
+    public long[] getPalavras() {
+        return palavras;
+    }
+
+    // descompacta pra velocidade de cada celula, -1 nas vazias
+    public byte[] paraBytes() {
+        byte[] estrada = new byte[tamanho];
+        paraBytes(estrada, 0);
+        return estrada;
+    }
+
+    public void paraBytes(byte[] destino, int inicio) {
+        for (int i = 0; i < tamanho; i++) destino[inicio + i] = (byte) get(i);
+    }
+
+    // grava e le as palavras, o tamanho fica a cargo de quem chama
+    public void escrever(DataOutput out) throws IOException {
+        for (long palavra : palavras) out.writeLong(palavra);
+    }
+
+    public void escrever(ByteBuffer buffer) {
+        for (long palavra : palavras) buffer.putLong(palavra);
+    }
+
+    public static EstradaCompacta ler(DataInput in, int tamanho) throws IOException {
+        EstradaCompacta compacta = new EstradaCompacta(tamanho);
+        for (int w = 0; w < compacta.palavras.length; w++) compacta.palavras[w] = in.readLong();
+        return compacta;
+    }
+
+    public static EstradaCompacta ler(ByteBuffer buffer, int tamanho) {
+        EstradaCompacta compacta = new EstradaCompacta(tamanho);
+        for (int w = 0; w < compacta.palavras.length; w++) compacta.palavras[w] = buffer.getLong();
+        return compacta;
+    }
+}
@@ -0,0 +1,101 @@
+package model;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Arrays;
+import java.util.List;
+
+public class Ocupacao {
+    // acesso atomico as palavras pra varias threads marcarem celulas da mesma palavra
+    private static final VarHandle PALAVRAS = MethodHandles.arrayElementVarHandle(long[].class);
+
+    // um bit por celula, 64 celulas por palavra
+    private final int tamanho;
+    private final long[] palavras;
+
+    // construtor
+    public Ocupacao(int tamanho) {
+        this.tamanho = tamanho;
+        this.palavras = new long[(tamanho + 63) >>> 6];
+    }
+
+    public int getTamanho() {
+        return tamanho;
+    }
+
+    // quantidade de palavras, e o custo de limpar tudo
+    public int getNumPalavras() {
+        return palavras.length;
+    }
+
+    // marca a celula como ocupada (o shift do java ja usa so os 6 bits de baixo de pos)
+    public void marcar(int pos) {
+        palavras[pos >>> 6] |= 1L << pos;
+    }
+
+    // marca a celula sem perder bits que outra thread esteja marcando na mesma palavra
+    public void marcarAtomico(int pos) {
+        PALAVRAS.getAndBitwiseOr(palavras, pos >>> 6, 1L << pos);
+    }
+
+    // desmarca a celula
+    public void desmarcar(int pos) {
+        palavras[pos >>> 6] &= ~(1L << pos);
+    }
+
+    public boolean ocupada(int pos) {
+        return (palavras[pos >>> 6] & (1L << pos)) != 0;
+    }
+
+    // limpa a estrada inteira escrevendo L/64 palavras
+    public void limpar() {
+        Arrays.fill(palavras, 0L);
+    }
+
+    // limpa so as palavras onde estao os veiculos (todos os bits delas vao sumir mesmo)
+    // se tiver mais veiculo que palavra, limpar tudo sai mais barato
+    public void limpar(List<VeiculoPosicao> veiculos) {
+        if (veiculos.size() >= palavras.length) {
+            limpar();
+            return;
+        }
+        for (VeiculoPosicao v : veiculos) palavras[v.posicao >>> 6] = 0L;
+    }
+
+    // limpa as palavras onde os veiculos estavam antes do ultimo movimento (posicao - velocidade)
+    // usado quando a estrada do passo anterior vira a proxima estrada e os veiculos ja andaram
+    public void limparAnteriores(List<VeiculoPosicao> veiculos) {
+        if (veiculos.size() >= palavras.length) {
+            limpar();
+            return;
+        }
+        for (VeiculoPosicao v : veiculos) {
+            int anterior = v.posicao - v.velocidade;
+            if (anterior < 0) anterior += tamanho;
+            palavras[anterior >>> 6] = 0L;
+        }
+    }
+
+    // distancia ate a proxima celula ocupada depois de pos, dando a volta no anel
+    // olha 64 celulas por vez e devolve limite + 1 se nao tiver carro nas proximas limite celulas
+    public int distancia(int pos, int limite) {
+        int p = pos + 1;
+        if (p == tamanho) p = 0;
+        int dist = 1;
+
+        while (dist <= limite) {
+            // bits da palavra a partir da celula p
+            long bits = palavras[p >>> 6] >>> p;
+            if (bits != 0) {
+                return Math.min(dist + Long.numberOfTrailingZeros(bits), limite + 1);
+            }
+
+            // pula pro comeco da proxima palavra, ou volta pro inicio se acabou a estrada
+            int avanco = Math.min(64 - (p & 63), tamanho - p);
+            dist += avanco;
+            p += avanco;
+            if (p == tamanho) p = 0;
+        }
+        return limite + 1;
+    }
+}